@@ -0,0 +1,131 @@
+package com.pokerproject.model;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Shuffle and deal cost of one six-handed hand: reset, shuffle, two hole
+ * cards per seat, then burn and deal flop, turn and river.
+ *
+ * {@code shuffle} and {@code dealCardsFromPosition} time the two halves on
+ * their own. {@code listDeckHand} replays the same hand on the previous
+ * {@code ArrayList<Card>} deck as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+    private static final int SEATS = 6;
+
+    @Param({"random", "splittable", "xoshiro", "secure"})
+    public String rng;
+
+    private Deck deck;
+    private ListDeck listDeck;
+    private List<Player> players;
+
+    @Setup
+    public void setUp() {
+        deck = new Deck(randomGenerator(rng));
+        listDeck = new ListDeck();
+        players = new ArrayList<>(SEATS);
+        for (int i = 0; i < SEATS; i++) {
+            players.add(new Player("P" + i, null, i == 0));
+        }
+    }
+
+    static RandomGenerator randomGenerator(String name) {
+        switch (name) {
+            case "splittable": return new SplittableRandom(42);
+            case "xoshiro": return RandomGeneratorFactory.of("Xoshiro256PlusPlus").create(42);
+            case "secure": return new SecureRandom();
+            default: return new Random(42);
+        }
+    }
+
+    @Benchmark
+    public void deckHand(Blackhole bh) {
+        deck.reset();
+        deck.shuffle();
+        for (int i = 0; i < SEATS * 2; i++) {
+            bh.consume(deck.dealCardIndex());
+        }
+        for (int i = 0; i < 8; i++) {
+            bh.consume(deck.dealCardIndex());
+        }
+    }
+
+    @Benchmark
+    public void shuffle() {
+        deck.reset();
+        deck.shuffle();
+    }
+
+    @Benchmark
+    public void dealCardsFromPosition() {
+        deck.reset();
+        deck.dealCardsFromPosition(players, 3, 2);
+    }
+
+    @Benchmark
+    public void listDeckHand(Blackhole bh) {
+        listDeck.reset();
+        listDeck.shuffle();
+        for (int i = 0; i < SEATS * 2; i++) {
+            bh.consume(listDeck.dealCard());
+        }
+        for (int i = 0; i < 8; i++) {
+            bh.consume(listDeck.dealCard());
+        }
+    }
+
+    // the deck as it was before it moved to a byte[] with a cursor
+    static final class ListDeck {
+        private final List<Card> cards = new ArrayList<>(52);
+        private final Random random = new Random(42);
+
+        synchronized void reset() {
+            cards.clear();
+            for (Suit suit : Suit.values()) {
+                for (Rank rank : Rank.values()) {
+                    cards.add(new Card(rank, suit));
+                }
+            }
+        }
+
+        synchronized void shuffle() {
+            Collections.shuffle(cards, random);
+        }
+
+        synchronized Card dealCard() {
+            if (cards.isEmpty()) {
+                return null;
+            }
+            return cards.remove(0);
+        }
+    }
+}
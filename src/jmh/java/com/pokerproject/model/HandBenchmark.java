@@ -0,0 +1,97 @@
+package com.pokerproject.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pokerproject.history.HandHistoryWriter;
+import com.pokerproject.history.HandRecorder;
+
+/**
+ * One complete hand through {@link Game#processPlayerAction}: every seat
+ * calls or checks from the blinds to showdown, then NEXT deals the next hand.
+ * With {@code recorded} every hand also goes to a {@link HandRecorder} that
+ * writes to a temporary directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandBenchmark {
+
+    private static final int STACK = 1000;
+    private static final int MAX_ACTIONS = 200;
+
+    @Param({"2", "6", "8"})
+    public int players;
+
+    @Param({"false", "true"})
+    public boolean recorded;
+
+    private Game game;
+    private Path historyDir;
+    private HandHistoryWriter history;
+
+    @Setup
+    public void setUp() throws IOException {
+        game = new Game("BENCH", 50, 100, new SplittableRandom(42));
+        if (recorded) {
+            historyDir = Files.createTempDirectory("hand-history");
+            history = new HandHistoryWriter(historyDir, 64L << 20, 65_536);
+            game.setHandObserver(new HandRecorder(history));
+        }
+        for (int i = 0; i < players; i++) {
+            game.addPlayer(new Player("P" + i, null, i == 0));
+        }
+        game.initializeFirstDealer();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (history != null) {
+            history.close();
+            try (Stream<Path> files = Files.walk(historyDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public int playHand() {
+        int actions = 0;
+        while (game.getCurrentRound() != Game.Round.SHOWDOWN && actions < MAX_ACTIONS) {
+            Player player = game.getCurrentPlayer();
+            Game.Action action = game.getPlayerBet(player) < game.getCurrentBet()
+                    ? Game.Action.CALL
+                    : Game.Action.CHECK;
+            game.processPlayerAction(player, action, 0);
+            actions++;
+        }
+
+        // keep stacks level so every hand plays the same way
+        for (Player player : game.getPlayers()) {
+            player.addChips(STACK - player.getChips());
+        }
+        game.processPlayerAction(game.getCurrentPlayer(), Game.Action.NEXT, 0);
+        return actions;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pokerproject.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Five card {@link PokerHand} construction and comparison, next to ranking
+ * the same cards with {@link LookupHandEvaluator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PokerHandBenchmark {
+
+    private static final int HANDS = 1024;
+
+    private final List<List<Card>> hands = new ArrayList<>(HANDS);
+    private final PokerHand[] built = new PokerHand[HANDS];
+    private final long[] masks = new long[HANDS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Deck deck = new Deck(new SplittableRandom(42));
+        for (int i = 0; i < HANDS; i++) {
+            deck.reset();
+            deck.shuffle();
+            List<Card> hand = new ArrayList<>(5);
+            for (int c = 0; c < 5; c++) {
+                hand.add(deck.dealCard());
+            }
+            hands.add(hand);
+            built[i] = new PokerHand(hand);
+            masks[i] = CardCodec.mask(hand);
+        }
+    }
+
+    private int nextHand() {
+        next = (next + 1) & (HANDS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public PokerHand construct() {
+        return new PokerHand(hands.get(nextHand()));
+    }
+
+    @Benchmark
+    public int compareTo() {
+        int i = nextHand();
+        return built[i].compareTo(built[(i + 1) & (HANDS - 1)]);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return LookupHandEvaluator.getInstance().evaluate7(masks[nextHand()]);
+    }
+}
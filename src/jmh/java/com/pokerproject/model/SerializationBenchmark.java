@@ -0,0 +1,104 @@
+package com.pokerproject.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * The full {@code gson.toJson(game)} the server used to send after every
+ * action, next to the {@link GameDelta} it sends now as JSON or in the
+ * binary protocol, on a table that has reached the flop.
+ *
+ * {@link Game} no longer serializes to that shape, so {@link #toJson()}
+ * rebuilds it: every seat with its hole cards, plus the undealt deck.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private static final Gson gson = new Gson();
+
+    @Param({"2", "6", "8"})
+    public int players;
+
+    // what gson.toJson(game) wrote before the seats moved into arrays
+    private static final class FullState {
+
+        final GameSnapshot game;
+        final List<Card> deck;
+
+        FullState(GameSnapshot game, List<Card> deck) {
+            this.game = game;
+            this.deck = deck;
+        }
+    }
+
+    private FullState full;
+    private GameSnapshot before;
+    private GameSnapshot after;
+
+    @Setup
+    public void setUp() {
+        Game game = new Game("BENCH", 50, 100, new SplittableRandom(42));
+        for (int i = 0; i < players; i++) {
+            game.addPlayer(new Player("Player" + i, null, i == 0));
+        }
+        game.initializeFirstDealer();
+        while (game.getCurrentRound() == Game.Round.PREFLOP) {
+            Player player = game.getCurrentPlayer();
+            Game.Action action = game.getPlayerBet(player) < game.getCurrentBet()
+                    ? Game.Action.CALL
+                    : Game.Action.CHECK;
+            game.processPlayerAction(player, action, 0);
+        }
+
+        // one check on the flop
+        before = game.snapshot(1).publicView();
+        Player player = game.getCurrentPlayer();
+        game.processPlayerAction(player, Game.Action.CHECK, 0);
+        after = game.snapshot(2).publicView();
+
+        List<Card> deck = new ArrayList<>();
+        for (long rest = game.getDeck().getRemainingMask(); rest != 0; rest &= rest - 1) {
+            deck.add(CardCodec.toCard(Long.numberOfTrailingZeros(rest)));
+        }
+        full = new FullState(game.snapshot(2), deck);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(full);
+    }
+
+    @Benchmark
+    public String deltaJson() {
+        return gson.toJson(GameDelta.diff(before, after));
+    }
+
+    @Benchmark
+    public byte[] deltaBinary() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        GameDelta.diff(before, after).writeTo(out);
+        return out.toByteArray();
+    }
+}
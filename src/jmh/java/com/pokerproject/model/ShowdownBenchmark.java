@@ -0,0 +1,114 @@
+package com.pokerproject.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Game#determineWinner()} on a dealt river for 2-8 players.
+ *
+ * {@code combinations} ranks the same seats with the 21 five card
+ * {@link PokerHand}s per player that showdown used before
+ * {@link LookupHandEvaluator}. {@code allInSettlement} puts every seat
+ * all-in with a different stack, so the pot is cut into one side pot per
+ * seat.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShowdownBenchmark {
+
+    @Param({"2", "4", "6", "8"})
+    public int players;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = new Game("BENCH", 50, 100, new SplittableRandom(42));
+        for (int i = 0; i < players; i++) {
+            game.addPlayer(new Player("P" + i, null, i == 0));
+        }
+        Deck deck = game.getDeck();
+        deck.shuffle();
+        deck.dealCardsFromPosition(game.getPlayers(), 0, 2);
+        List<Card> board = new ArrayList<>(5);
+        for (int i = 0; i < 5; i++) {
+            board.add(deck.dealCard());
+        }
+        game.setCommunityCards(board);
+    }
+
+    @Benchmark
+    public Player determineWinner() {
+        game.determineWinner();
+        return game.getWinner();
+    }
+
+    @Benchmark
+    public Player allInSettlement() {
+        for (int seat = 0; seat < players; seat++) {
+            game.seatChips[seat] = (seat + 1) * 100;
+            game.putInPot(seat, Integer.MAX_VALUE);
+        }
+        game.determineWinner();
+        return game.getWinner();
+    }
+
+    @Benchmark
+    public PokerHand combinations() {
+        PokerHand best = null;
+        List<Card> board = game.getCommunityCards();
+        for (Player player : game.getPlayers()) {
+            List<Card> cards = new ArrayList<>(player.getHoleCards());
+            cards.addAll(board);
+            PokerHand hand = bestOfCombinations(cards);
+            if (best == null || hand.compareTo(best) > 0) {
+                best = hand;
+            }
+        }
+        return best;
+    }
+
+    private static PokerHand bestOfCombinations(List<Card> cards) {
+        PokerHand bestHand = null;
+        for (int a = 0; a < cards.size() - 4; a++) {
+            for (int b = a + 1; b < cards.size() - 3; b++) {
+                for (int c = b + 1; c < cards.size() - 2; c++) {
+                    for (int d = c + 1; d < cards.size() - 1; d++) {
+                        for (int e = d + 1; e < cards.size(); e++) {
+                            List<Card> combination = new ArrayList<>();
+                            combination.add(cards.get(a));
+                            combination.add(cards.get(b));
+                            combination.add(cards.get(c));
+                            combination.add(cards.get(d));
+                            combination.add(cards.get(e));
+
+                            PokerHand hand = new PokerHand(combination);
+                            if (bestHand == null || hand.compareTo(bestHand) > 0) {
+                                bestHand = hand;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return bestHand;
+    }
+}
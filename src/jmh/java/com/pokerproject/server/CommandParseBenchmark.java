@@ -0,0 +1,57 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing one action line as the read loop gets it, {@link TextCommand}
+ * next to the old decode, {@code split(":")} and string compare. Run with
+ * {@code -prof gc} to see the allocation per command.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandParseBenchmark {
+
+    private static final byte[] GAME_ID = "4f2a9c1e".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NAME = "alice".getBytes(StandardCharsets.UTF_8);
+
+    private final ByteBuffer line = ByteBuffer.wrap("RAISE:4f2a9c1e:alice:120\r".getBytes(StandardCharsets.UTF_8));
+    private final TextCommand command = new TextCommand();
+
+    @Benchmark
+    public int splitAndCompare() {
+        byte[] bytes = new byte[line.remaining()];
+        line.duplicate().get(bytes);
+        String message = new String(bytes, StandardCharsets.UTF_8).trim();
+        String[] parts = message.split(":");
+        String keyword = parts[0].toUpperCase();
+        if (!keyword.equals("RAISE") || !parts[1].equals("4f2a9c1e") || !parts[2].equals("alice")) {
+            return -1;
+        }
+        return Integer.parseInt(parts[3]);
+    }
+
+    @Benchmark
+    public int textCommand() {
+        if (command.parse(line) != BinaryProtocol.ACTION + 4
+                || !command.nextEquals(GAME_ID) || !command.nextEquals(NAME)) {
+            return -1;
+        }
+        return command.nextInt();
+    }
+}
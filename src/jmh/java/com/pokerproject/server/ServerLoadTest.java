@@ -0,0 +1,194 @@
+package com.pokerproject.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection and request-rate load test against a running server.
+ *
+ * Opens the given number of connections from one selector thread, then lets
+ * every client send a command that is answered without joining a table
+ * ("You must JOIN or CREATE a game first." plus an empty line) in a closed
+ * loop. Reports how many clients stayed connected, completed requests per
+ * second and the request latency percentiles.
+ *
+ * <pre>
+ * java -Dpoker.transport=blocking -Dpoker.executor=virtual -cp target/classes:... com.pokerproject.server.PokerServer
+ * java -cp target/benchmarks.jar com.pokerproject.server.ServerLoadTest 10000 30
+ * </pre>
+ */
+public class ServerLoadTest {
+
+    private static final byte[] REQUEST = "PING\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int LINES_PER_REPLY = 2;
+    private static final int MAX_PENDING_CONNECTS = 256;
+    // latency buckets of 10 microseconds up to one second
+    private static final int BUCKET_NANOS = 10_000;
+    private static final int BUCKETS = 100_000;
+
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer request = ByteBuffer.wrap(REQUEST);
+        int linesSeen;
+        long sentAt;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final Selector selector;
+    private final InetSocketAddress address;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final long[] latencies = new long[BUCKETS + 1];
+    private int connected;
+    private int pendingConnects;
+    private int failed;
+    private long completed;
+    private boolean flooding;
+
+    private ServerLoadTest(InetSocketAddress address) throws IOException {
+        this.selector = Selector.open();
+        this.address = address;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String host = args.length > 2 ? args[2] : "localhost";
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 12345;
+
+        new ServerLoadTest(new InetSocketAddress(host, port)).run(clients, seconds);
+    }
+
+    private void run(int clients, int seconds) throws IOException {
+        long connectStart = System.nanoTime();
+        int opened = 0;
+        while (connected + failed < clients) {
+            while (opened < clients && pendingConnects < MAX_PENDING_CONNECTS) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Client(channel));
+                pendingConnects++;
+                opened++;
+            }
+            poll(100);
+        }
+        long connectNanos = System.nanoTime() - connectStart;
+        System.out.printf("connected %d of %d clients in %d ms (%d failed)%n",
+                connected, clients, TimeUnit.NANOSECONDS.toMillis(connectNanos), failed);
+
+        flooding = true;
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                send(key);
+            }
+        }
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            poll(10);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int alive = 0;
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && ((Client) key.attachment()).channel.isConnected()) {
+                alive++;
+            }
+        }
+        System.out.printf("%d clients still connected, %d requests in %.1f s = %.0f requests/s%n",
+                alive, completed, elapsed, completed / elapsed);
+        System.out.printf("latency p50 %s  p99 %s  p99.9 %s%n",
+                percentile(0.50), percentile(0.99), percentile(0.999));
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void poll(long timeoutMillis) throws IOException {
+        selector.select(timeoutMillis);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Client client = (Client) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    client.channel.finishConnect();
+                    pendingConnects--;
+                    connected++;
+                    key.interestOps(SelectionKey.OP_READ);
+                    if (flooding) {
+                        send(key);
+                    }
+                } else if (key.isReadable()) {
+                    read(key, client);
+                } else if (key.isWritable()) {
+                    write(key, client);
+                }
+            } catch (IOException e) {
+                if (key.interestOps() == SelectionKey.OP_CONNECT) {
+                    pendingConnects--;
+                    failed++;
+                }
+                key.cancel();
+                client.channel.close();
+            }
+        }
+    }
+
+    private void send(SelectionKey key) throws IOException {
+        Client client = (Client) key.attachment();
+        client.request.rewind();
+        client.linesSeen = 0;
+        client.sentAt = System.nanoTime();
+        write(key, client);
+    }
+
+    private void write(SelectionKey key, Client client) throws IOException {
+        client.channel.write(client.request);
+        key.interestOps(client.request.hasRemaining()
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ);
+    }
+
+    private void read(SelectionKey key, Client client) throws IOException {
+        readBuffer.clear();
+        if (client.channel.read(readBuffer) < 0) {
+            throw new IOException("closed by server");
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            if (readBuffer.get() == '\n' && ++client.linesSeen == LINES_PER_REPLY) {
+                long nanos = System.nanoTime() - client.sentAt;
+                latencies[(int) Math.min(BUCKETS, nanos / BUCKET_NANOS)]++;
+                completed++;
+                send(key);
+            }
+        }
+    }
+
+    private String percentile(double fraction) {
+        long target = (long) Math.ceil(completed * fraction);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += latencies[i];
+            if (seen >= target && seen > 0) {
+                return i == BUCKETS ? ">1 s" : ((i + 1) * BUCKET_NANOS / 1000) + " us";
+            }
+        }
+        return "n/a";
+    }
+}
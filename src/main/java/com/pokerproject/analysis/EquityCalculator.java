@@ -0,0 +1,249 @@
+package com.pokerproject.analysis;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.pokerproject.model.Card;
+import com.pokerproject.model.CardCodec;
+
+/**
+ * All-in equity of two or more hands.
+ *
+ * {@link #monteCarlo} deals random runouts of the missing board cards and
+ * ranks them with the same {@link com.pokerproject.model.HandEvaluator} that
+ * {@code Game.determineWinner} uses. The runouts are split into fork-join
+ * tasks; every task owns a {@link SplittableRandom} split from its parent
+ * and its own tally, so nothing is shared while the tasks run and a given
+ * seed always produces the same result.
+ *
+ * {@link #exact} walks every remaining runout instead. Suits that appear in
+ * no hole, board or dead card are interchangeable, so only one runout per
+ * suit permutation is ranked and counted with the size of its class;
+ * branches that can only lead to non-canonical runouts are cut as soon as
+ * the offending card is placed. The runouts are split into fork-join tasks by
+ * their first card.
+ *
+ * {@link #versusRandom} samples one hand against random opponents on the
+ * calling thread until a deadline, for callers with a time budget such as
+ * bots.
+ */
+public class EquityCalculator {
+
+    private static final long MIN_TASK_RUNOUTS = 16_384;
+    // runouts between clock checks in versusRandom
+    private static final int RUNOUTS_PER_CHECK = 64;
+
+    private final ForkJoinPool pool;
+
+    public EquityCalculator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public EquityCalculator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public EquityResult monteCarlo(List<List<Card>> holeCards, List<Card> board, List<Card> deadCards,
+            long runouts) {
+        return monteCarlo(holeCards, board, deadCards, runouts, new SplittableRandom().nextLong());
+    }
+
+    public EquityResult monteCarlo(List<List<Card>> holeCards, List<Card> board, List<Card> deadCards,
+            long runouts, long seed) {
+        if (runouts <= 0) {
+            throw new IllegalArgumentException("Runouts must be greater than 0");
+        }
+        EquitySpot spot = new EquitySpot(holeCards, board, deadCards);
+
+        if (spot.missingBoardCards == 0) {
+            EquityTally tally = new EquityTally(spot.players());
+            tally.showdown(spot.holeMasks, spot.boardMask, 1);
+            return tally.toResult();
+        }
+
+        long chunk = Math.max(MIN_TASK_RUNOUTS, runouts / (pool.getParallelism() * 8L));
+        return pool.invoke(new SampleTask(spot, runouts, new SplittableRandom(seed), chunk)).toResult();
+    }
+
+    /**
+     * Exact equity over every possible runout of the missing board cards.
+     * Preflop heads-up that is 1,712,304 boards.
+     */
+    public EquityResult exact(List<List<Card>> holeCards, List<Card> board, List<Card> deadCards) {
+        EquitySpot spot = new EquitySpot(holeCards, board, deadCards);
+
+        if (spot.missingBoardCards == 0) {
+            EquityTally tally = new EquityTally(spot.players());
+            tally.showdown(spot.holeMasks, spot.boardMask, 1);
+            return tally.toResult();
+        }
+
+        int lastFirst = spot.undealt.length - spot.missingBoardCards;
+        return pool.invoke(new EnumerationTask(new SuitSymmetry(spot), 0, lastFirst + 1)).toResult();
+    }
+
+    /**
+     * Equity, 0-1, of {@code holeCards} on {@code board}, both
+     * {@link CardCodec} masks, against {@code opponents} hands dealt at
+     * random from the unseen cards. Samples up to {@code maxRunouts}
+     * runouts on the calling thread but stops at {@code deadline}
+     * ({@link System#nanoTime()}), checked every
+     * {@value #RUNOUTS_PER_CHECK} runouts.
+     */
+    public static double versusRandom(long holeCards, long board, int opponents, int maxRunouts, long deadline,
+            SplittableRandom random) {
+        if (opponents <= 0 || maxRunouts <= 0) {
+            return 1.0;
+        }
+        long known = holeCards | board;
+        int[] unseen = new int[CardCodec.DECK_SIZE - Long.bitCount(known)];
+        for (int card = 0, i = 0; card < CardCodec.DECK_SIZE; card++) {
+            if ((known & (1L << card)) == 0) {
+                unseen[i++] = card;
+            }
+        }
+        int missing = 5 - Long.bitCount(board);
+        int needed = missing + 2 * opponents;
+        if (needed > unseen.length) {
+            throw new IllegalArgumentException("Not enough cards for " + opponents + " opponents");
+        }
+
+        EquityTally tally = new EquityTally(opponents + 1);
+        long[] holeMasks = new long[opponents + 1];
+        holeMasks[0] = holeCards;
+        for (int r = 1; r <= maxRunouts; r++) {
+            deal(unseen, needed, random);
+            long runout = board;
+            for (int k = 0; k < missing; k++) {
+                runout |= 1L << unseen[k];
+            }
+            for (int o = 1, k = missing; o <= opponents; o++, k += 2) {
+                holeMasks[o] = 1L << unseen[k] | 1L << unseen[k + 1];
+            }
+            tally.showdown(holeMasks, runout, 1);
+            if (r % RUNOUTS_PER_CHECK == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return tally.toResult().getEquity(0);
+    }
+
+    /**
+     * Partial Fisher-Yates: the first {@code count} slots of {@code cards}
+     * become a random deal from all of them.
+     */
+    private static void deal(int[] cards, int count, SplittableRandom random) {
+        for (int k = 0; k < count; k++) {
+            int j = k + random.nextInt(cards.length - k);
+            int card = cards[j];
+            cards[j] = cards[k];
+            cards[k] = card;
+        }
+    }
+
+    private static final class SampleTask extends RecursiveTask<EquityTally> {
+        private static final long serialVersionUID = 1L;
+
+        private final EquitySpot spot;
+        private final long runouts;
+        private final SplittableRandom random;
+        private final long chunk;
+
+        SampleTask(EquitySpot spot, long runouts, SplittableRandom random, long chunk) {
+            this.spot = spot;
+            this.runouts = runouts;
+            this.random = random;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected EquityTally compute() {
+            if (runouts <= chunk) {
+                return sample();
+            }
+            long half = runouts / 2;
+            SampleTask left = new SampleTask(spot, half, random.split(), chunk);
+            left.fork();
+            EquityTally tally = new SampleTask(spot, runouts - half, random, chunk).compute();
+            tally.merge(left.join());
+            return tally;
+        }
+
+        private EquityTally sample() {
+            EquityTally tally = new EquityTally(spot.players());
+            int[] cards = spot.undealt.clone();
+            int missing = spot.missingBoardCards;
+
+            for (long r = 0; r < runouts; r++) {
+                // the first 'missing' slots become the runout
+                deal(cards, missing, random);
+                long board = spot.boardMask;
+                for (int k = 0; k < missing; k++) {
+                    board |= 1L << cards[k];
+                }
+                tally.showdown(spot.holeMasks, board, 1);
+            }
+            return tally;
+        }
+    }
+
+    private static final class EnumerationTask extends RecursiveTask<EquityTally> {
+        private static final long serialVersionUID = 1L;
+
+        private final SuitSymmetry symmetry;
+        private final int from;
+        private final int to;
+
+        // suit lanes of the runout cards placed so far
+        private final int[] lanes = new int[4];
+        private EquityTally tally;
+
+        EnumerationTask(SuitSymmetry symmetry, int from, int to) {
+            this.symmetry = symmetry;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected EquityTally compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                EnumerationTask left = new EnumerationTask(symmetry, from, mid);
+                left.fork();
+                EquityTally right = new EnumerationTask(symmetry, mid, to).compute();
+                right.merge(left.join());
+                return right;
+            }
+
+            EquitySpot spot = symmetry.spot;
+            tally = new EquityTally(spot.players());
+            int card = spot.undealt[from];
+            if (symmetry.place(lanes, card)) {
+                enumerate(from + 1, 1, spot.boardMask | 1L << card);
+            }
+            return tally;
+        }
+
+        private void enumerate(int position, int placed, long board) {
+            EquitySpot spot = symmetry.spot;
+            if (placed == spot.missingBoardCards) {
+                tally.showdown(spot.holeMasks, board, symmetry.weight(lanes));
+                return;
+            }
+
+            int last = spot.undealt.length - (spot.missingBoardCards - placed);
+            for (int p = position; p <= last; p++) {
+                int card = spot.undealt[p];
+                if (!symmetry.place(lanes, card)) {
+                    // higher cards of this suit are no better, go on with the next suit
+                    p = symmetry.lastPositionOfSuit(card);
+                    continue;
+                }
+                enumerate(p + 1, placed + 1, board | 1L << card);
+                symmetry.remove(lanes, card);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.pokerproject.analysis;
+
+/**
+ * Win/tie counts per player over a number of board runouts.
+ *
+ * A runout won outright adds one to {@code wins}; a runout split k ways adds
+ * one to {@code ties} and 1/k to the equity of every player in the split.
+ */
+public class EquityResult {
+    private final long runouts;
+    private final long[] wins;
+    private final long[] ties;
+    private final double[] equity;
+
+    EquityResult(long runouts, long[] wins, long[] ties, double[] equity) {
+        this.runouts = runouts;
+        this.wins = wins;
+        this.ties = ties;
+        this.equity = equity;
+    }
+
+    public int getPlayerCount() {
+        return wins.length;
+    }
+
+    public long getRunouts() {
+        return runouts;
+    }
+
+    public long getWins(int player) {
+        return wins[player];
+    }
+
+    public long getTies(int player) {
+        return ties[player];
+    }
+
+    public double getWinPercentage(int player) {
+        return runouts == 0 ? 0 : 100.0 * wins[player] / runouts;
+    }
+
+    public double getTiePercentage(int player) {
+        return runouts == 0 ? 0 : 100.0 * ties[player] / runouts;
+    }
+
+    /**
+     * Share of the pot the player is expected to take, 0-1.
+     */
+    public double getEquity(int player) {
+        return runouts == 0 ? 0 : equity[player] / runouts;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(runouts).append(" runouts");
+        for (int i = 0; i < wins.length; i++) {
+            sb.append(String.format(" | P%d win %.2f%% tie %.2f%% equity %.2f%%",
+                    i, getWinPercentage(i), getTiePercentage(i), 100 * getEquity(i)));
+        }
+        return sb.toString();
+    }
+}
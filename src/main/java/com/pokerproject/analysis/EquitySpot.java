@@ -0,0 +1,62 @@
+package com.pokerproject.analysis;
+
+import java.util.List;
+
+import com.pokerproject.model.Card;
+import com.pokerproject.model.CardCodec;
+
+/**
+ * Validated calculator input: every player's hole cards and the known board
+ * as card masks, plus the indexes of the cards that can still come.
+ */
+final class EquitySpot {
+    static final int BOARD_SIZE = 5;
+
+    final long[] holeMasks;
+    final long boardMask;
+    final int missingBoardCards;
+    final int[] undealt;
+
+    EquitySpot(List<List<Card>> holeCards, List<Card> board, List<Card> deadCards) {
+        if (holeCards == null || holeCards.size() < 2) {
+            throw new IllegalArgumentException("Equity needs at least two players");
+        }
+        if (board.size() > BOARD_SIZE) {
+            throw new IllegalArgumentException("A board has at most 5 cards");
+        }
+
+        long used = 0L;
+        holeMasks = new long[holeCards.size()];
+        for (int i = 0; i < holeCards.size(); i++) {
+            List<Card> hand = holeCards.get(i);
+            if (hand.size() != 2) {
+                throw new IllegalArgumentException("Player " + i + " must hold 2 cards");
+            }
+            holeMasks[i] = CardCodec.mask(hand);
+            used = claim(used, holeMasks[i], hand.size());
+        }
+
+        boardMask = CardCodec.mask(board);
+        used = claim(used, boardMask, board.size());
+        used = claim(used, CardCodec.mask(deadCards), deadCards.size());
+        missingBoardCards = BOARD_SIZE - board.size();
+
+        long free = CardCodec.FULL_DECK & ~used;
+        undealt = new int[Long.bitCount(free)];
+        for (int i = 0; free != 0; i++) {
+            undealt[i] = Long.numberOfTrailingZeros(free);
+            free &= free - 1;
+        }
+    }
+
+    private static long claim(long used, long cards, int expected) {
+        if (Long.bitCount(cards) != expected || (used & cards) != 0) {
+            throw new IllegalArgumentException("The same card cannot be used twice");
+        }
+        return used | cards;
+    }
+
+    int players() {
+        return holeMasks.length;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pokerproject.analysis;
+
+import com.pokerproject.model.HandEvaluator;
+import com.pokerproject.model.LookupHandEvaluator;
+
+/**
+ * Mutable win/tie counters owned by a single task; tallies of different
+ * tasks are merged once they finish.
+ */
+final class EquityTally {
+    private static final HandEvaluator handEvaluator = LookupHandEvaluator.getInstance();
+
+    private final long[] wins;
+    private final long[] ties;
+    private final double[] equity;
+    private final int[] strengths;
+    private long runouts;
+
+    EquityTally(int players) {
+        this.wins = new long[players];
+        this.ties = new long[players];
+        this.equity = new double[players];
+        this.strengths = new int[players];
+    }
+
+    /**
+     * Ranks every player on {@code boardMask} and credits the winners,
+     * counting the runout {@code weight} times.
+     */
+    void showdown(long[] holeMasks, long boardMask, long weight) {
+        int best = 0;
+        int winners = 0;
+        for (int i = 0; i < holeMasks.length; i++) {
+            int strength = handEvaluator.evaluate7(holeMasks[i] | boardMask);
+            strengths[i] = strength;
+            if (strength > best) {
+                best = strength;
+                winners = 1;
+            } else if (strength == best) {
+                winners++;
+            }
+        }
+
+        double share = (double) weight / winners;
+        for (int i = 0; i < holeMasks.length; i++) {
+            if (strengths[i] == best) {
+                if (winners == 1) {
+                    wins[i] += weight;
+                } else {
+                    ties[i] += weight;
+                }
+                equity[i] += share;
+            }
+        }
+        runouts += weight;
+    }
+
+    void merge(EquityTally other) {
+        for (int i = 0; i < wins.length; i++) {
+            wins[i] += other.wins[i];
+            ties[i] += other.ties[i];
+            equity[i] += other.equity[i];
+        }
+        runouts += other.runouts;
+    }
+
+    EquityResult toResult() {
+        return new EquityResult(runouts, wins.clone(), ties.clone(), equity.clone());
+    }
+}
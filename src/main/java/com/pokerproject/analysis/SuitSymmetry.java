@@ -0,0 +1,95 @@
+package com.pokerproject.analysis;
+
+import java.util.Arrays;
+
+import com.pokerproject.model.CardCodec;
+
+/**
+ * Suit isomorphism for exact enumeration.
+ *
+ * A suit is free when none of the known cards (hole, board or dead) has it.
+ * Permuting free suits in a runout never changes a showdown, so a runout is
+ * only ranked when the rank lanes of the free suits, in suit order, are
+ * non-increasing. It then stands for every distinct permutation of those
+ * lanes.
+ */
+final class SuitSymmetry {
+    private static final int SUITS = 4;
+    private static final int[] FACTORIAL = {1, 1, 2, 6, 24};
+
+    final EquitySpot spot;
+
+    private final int[] freeSuits;
+    // previous free suit of each free suit, -1 for the first one and for used suits
+    private final int[] previousFree = new int[SUITS];
+    private final int[] lastPosition = new int[SUITS];
+
+    SuitSymmetry(EquitySpot spot) {
+        this.spot = spot;
+
+        long known = CardCodec.FULL_DECK;
+        for (int card : spot.undealt) {
+            known &= ~(1L << card);
+        }
+
+        int[] free = new int[SUITS];
+        int count = 0;
+        for (int suit = 0; suit < SUITS; suit++) {
+            previousFree[suit] = -1;
+            long lane = ((1L << CardCodec.RANKS) - 1) << (suit * CardCodec.RANKS);
+            if ((known & lane) == 0) {
+                if (count > 0) {
+                    previousFree[suit] = free[count - 1];
+                }
+                free[count++] = suit;
+            }
+        }
+        freeSuits = Arrays.copyOf(free, count);
+
+        for (int p = 0; p < spot.undealt.length; p++) {
+            lastPosition[CardCodec.suitOrdinal(spot.undealt[p])] = p;
+        }
+    }
+
+    /**
+     * Adds the card to the lanes, or leaves them untouched and returns false
+     * when no canonical runout contains the cards placed so far plus this one.
+     * Cards must be placed in increasing index order.
+     */
+    boolean place(int[] lanes, int card) {
+        int suit = CardCodec.suitOrdinal(card);
+        int lane = lanes[suit] | 1 << CardCodec.rankOrdinal(card);
+        int previous = previousFree[suit];
+        // the previous free suit is complete, later cards only raise this lane
+        if (previous >= 0 && lane > lanes[previous]) {
+            return false;
+        }
+        lanes[suit] = lane;
+        return true;
+    }
+
+    void remove(int[] lanes, int card) {
+        lanes[CardCodec.suitOrdinal(card)] &= ~(1 << CardCodec.rankOrdinal(card));
+    }
+
+    int lastPositionOfSuit(int card) {
+        return lastPosition[CardCodec.suitOrdinal(card)];
+    }
+
+    /**
+     * Number of runouts the canonical lanes stand for.
+     */
+    long weight(int[] lanes) {
+        long weight = FACTORIAL[freeSuits.length];
+        int run = 1;
+        for (int i = 1; i < freeSuits.length; i++) {
+            if (lanes[freeSuits[i]] == lanes[freeSuits[i - 1]]) {
+                run++;
+            } else {
+                weight /= FACTORIAL[run];
+                run = 1;
+            }
+        }
+        return weight / FACTORIAL[run];
+    }
+}
@@ -5,9 +5,10 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.Image;
 import java.awt.Window;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -21,28 +22,36 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
-import com.google.gson.Gson;
 import com.pokerproject.model.Card;
 import com.pokerproject.model.Game;
-import com.pokerproject.model.Player;
+import com.pokerproject.model.GameDelta;
+import com.pokerproject.model.GameSnapshot;
+import com.pokerproject.model.PlayerSnapshot;
 import com.pokerproject.server.ClientSocket;
+import com.pokerproject.server.ServerMessage;
 
 public class AppGUI {
 
     private CardLayout cardLayout;
     private JPanel mainPanel;
-    private static final Gson gson = new Gson();
-    private Game currentGame;
+    // local copy of the table, kept up to date by the server's deltas
+    private volatile GameSnapshot currentGame;
+    private boolean resyncRequested;
     private ClientSocket client;
     private String currentPlayerName;
     private Thread listeningThread;
+    // "gameId:name" to the token that takes the seat back after a server restart
+    private final Map<String, String> reconnectTokens = new ConcurrentHashMap<>();
     private final int MIN_PLAYERS = 2;
+    // -Dpoker.protocol=binary talks to the server in binary frames
+    private static final boolean BINARY_PROTOCOL = "binary".equalsIgnoreCase(System.getProperty("poker.protocol"));
 
     public static void main(String[] args) {
+        CardImages.preload();
         new AppGUI().createAndShowGUI();
     }
 
-    public static String getPlayerRole(Player player) {
+    public static String getPlayerRole(PlayerSnapshot player) {
         if (player.isDealer()) {
             return "Dealer";
         } else if (player.isSmallBlind()) {
@@ -59,13 +68,42 @@ public class AppGUI {
 
         listeningThread = new Thread(() -> {
             try {
-                String message;
-                while ((message = client.readMessage()) != null && !Thread.currentThread().isInterrupted()) {
-                    // System.out.println("Received message: " + message);
+                ServerMessage message;
+                while ((message = client.read()) != null && !Thread.currentThread().isInterrupted()) {
+                    // System.out.println("Received message: " + message.getType());
+
+                    boolean changed = false;
+                    if (message.getType() == ServerMessage.Type.SNAPSHOT) {
+                        currentGame = message.getSnapshot();
+                        resyncRequested = false;
+                        changed = true;
+                    } else if (message.getType() == ServerMessage.Type.DELTA) {
+                        GameDelta delta = message.getDelta();
+                        GameSnapshot game = currentGame;
+                        if (game != null && delta.getBaseVersion() == game.getVersion()) {
+                            currentGame = delta.applyTo(game);
+                            changed = true;
+                        } else if (game != null && delta.getVersion() > game.getVersion() && !resyncRequested) {
+                            // missed an update, ask for the whole state once
+                            resyncRequested = true;
+                            client.sendMessage("RESYNC:" + game.getGameId());
+                        }
+                    } else if (message.isText("TOKEN:")) {
+                        GameSnapshot game = currentGame;
+                        if (game != null) {
+                            reconnectTokens.put(game.getGameId() + ":" + currentPlayerName,
+                                    message.getText().substring("TOKEN:".length()));
+                        }
+                    } else if (message.getType() == ServerMessage.Type.HOLE_CARDS) {
+                        // only this client's own cards, the deltas never carry them
+                        GameSnapshot game = currentGame;
+                        if (game != null) {
+                            currentGame = game.withHoleCards(currentPlayerName, message.getHoleCards());
+                            changed = true;
+                        }
+                    }
 
-                    if (message.startsWith("UPDATE_GAME:")) {
-                        String gameJson = message.substring("UPDATE_GAME:".length());
-                        currentGame = gson.fromJson(gameJson, Game.class);
+                    if (changed) {
                         SwingUtilities.invokeLater(() -> {
                             for (int i = 0; i < mainPanel.getComponentCount(); i++) {
                                 Component comp = mainPanel.getComponent(i);
@@ -85,7 +123,7 @@ public class AppGUI {
                             mainPanel.revalidate();
                             mainPanel.repaint();
                         });
-                    } else if (message.startsWith("END")) {
+                    } else if (message.isText("END")) {
 
                         Window window = SwingUtilities.getWindowAncestor(mainPanel);
                         if (window != null) {
@@ -197,17 +235,17 @@ public class AppGUI {
             }
             try {
                 if (client == null) {
-                    client = new ClientSocket("localhost", 12345);
+                    client = new ClientSocket("localhost", 12345, BINARY_PROTOCOL);
                 }
 
                 client.sendMessage("CREATE:" + playerName);
-                String response = client.readMessage();
-                String gameInfo = client.readMessage();
-                JOptionPane.showMessageDialog(null, response);
+                ServerMessage response = client.read();
+                ServerMessage gameInfo = client.read();
+                JOptionPane.showMessageDialog(null, response.getText());
 
-                if (response.startsWith("Game created successfully") && !"".equals(gameInfo)) {
+                if (response.isText("Game created successfully") && gameInfo.getType() == ServerMessage.Type.SNAPSHOT) {
                     currentPlayerName = playerName;
-                    currentGame = gson.fromJson(gameInfo, Game.class);
+                    currentGame = gameInfo.getSnapshot();
 
                     try {
                         mainPanel.remove(2);
@@ -258,18 +296,19 @@ public class AppGUI {
             if (roomId != null && !roomId.isEmpty()) {
                 try {
                     if (client == null) {
-                        client = new ClientSocket("localhost", 12345);
+                        client = new ClientSocket("localhost", 12345, BINARY_PROTOCOL);
                     }
 
-                    client.sendMessage("JOIN:" + playerName + ":" + roomId);
-                    String response = client.readMessage();
-                    String gameInfo = client.readMessage();
+                    String token = reconnectTokens.get(roomId + ":" + playerName);
+                    client.sendMessage("JOIN:" + playerName + ":" + roomId + (token == null ? "" : ":" + token));
+                    ServerMessage response = client.read();
+                    ServerMessage gameInfo = client.read();
 
-                    JOptionPane.showMessageDialog(null, response);
+                    JOptionPane.showMessageDialog(null, response.getText());
 
-                    if (response.startsWith("Joined game") && !"".equals(gameInfo)) {
+                    if (response.isText("Joined game") && gameInfo.getType() == ServerMessage.Type.SNAPSHOT) {
                         currentPlayerName = playerName;
-                        currentGame = gson.fromJson(gameInfo, Game.class);
+                        currentGame = gameInfo.getSnapshot();
 
                         try {
                             mainPanel.remove(2);
@@ -376,7 +415,7 @@ public class AppGUI {
         playersPanel.setBackground(new Color(34, 45, 65));
 
         if (currentGame != null) {
-            for (Player player : currentGame.getPlayers()) {
+            for (PlayerSnapshot player : currentGame.getPlayers()) {
                 JPanel playerRow = new JPanel();
                 playerRow.setBackground(new Color(44, 55, 75));
                 playerRow.setLayout(new BoxLayout(playerRow, BoxLayout.X_AXIS));
@@ -388,7 +427,7 @@ public class AppGUI {
                     labelMessage += " (You)";
                 }
 
-                if (currentGame.getWinner() != null && player.getName().equals(currentGame.getWinner().getName())) {
+                if (currentGame.getWinnerName() != null && player.getName().equals(currentGame.getWinnerName())) {
                     labelMessage += "🥇";
                 }
 
@@ -411,7 +450,7 @@ public class AppGUI {
                 JLabel card2 = null;
                 if (currentGame.getState() == Game.State.PLAYING) {
                     if (currentGame.getCurrentRound() == Game.Round.SHOWDOWN) {
-                        if (player.getName().equals(currentPlayerName) || player.getName().equals(currentGame.getWinner().getName())) {
+                        if (player.getName().equals(currentPlayerName) || player.getName().equals(currentGame.getWinnerName())) {
                             if (player.getHoleCards() != null && player.getHoleCards().size() >= 2) {
                                 card1 = new JLabel(loadCardImage(player.getHoleCards().get(0)));
                                 card2 = new JLabel(loadCardImage(player.getHoleCards().get(1)));
@@ -485,9 +524,10 @@ public class AppGUI {
         JButton betButton = new JButton("Bet");
         JButton nextGameButton = new JButton("Next game");
         JButton exitGameButton = new JButton("Exit game");
+        JButton addBotButton = new JButton("Add bot");
 
         JButton[] buttons = {foldButton, raiseButton, checkButton, betButton, nextGameButton, exitGameButton,
-            startButton};
+            startButton, addBotButton};
         for (JButton btn : buttons) {
             btn.setBackground(new Color(70, 130, 180));
             btn.setForeground(Color.WHITE);
@@ -498,7 +538,7 @@ public class AppGUI {
         // ======= Buttton Panel =======
         if (currentGame != null) {
 
-            int callAmount = currentGame.getCurrentBet() - currentGame.getPlayerBet(currentGame.getCurrentPlayer());
+            int callAmount = currentGame.getCurrentBet() - currentGame.getCurrentPlayer().getBet();
             callButton = new JButton("Call (" + callAmount + ")");
             callButton.setBackground(new Color(70, 130, 180));
             callButton.setForeground(Color.WHITE);
@@ -510,13 +550,16 @@ public class AppGUI {
 
             if (currentGame.getState() == Game.State.WAITING) {
                 buttonPanel.add(startButton);
+                if (currentGame.getCreaterPlayer().getName().equals(currentPlayerName)) {
+                    buttonPanel.add(addBotButton);
+                }
             } else {
                 if (isFirst && currentGame.getCurrentRound() != Game.Round.SHOWDOWN) {
                     buttonPanel.add(foldButton);
 
                     int currentBet = currentGame.getCurrentBet();
-                    Player currentPlayer = currentGame.getCurrentPlayer();
-                    if (currentGame.getPlayerBet(currentPlayer) < currentBet) {
+                    PlayerSnapshot currentPlayer = currentGame.getCurrentPlayer();
+                    if (currentPlayer.getBet() < currentBet) {
                         buttonPanel.add(callButton);
                     } else {
                         buttonPanel.add(checkButton);
@@ -545,7 +588,7 @@ public class AppGUI {
 
             callButton.addActionListener(e -> {
                 int callAmount = currentGame.getCurrentBet()
-                        - currentGame.getPlayerBet(currentGame.getPlayerByName(currentPlayerName));
+                        - currentGame.getPlayerByName(currentPlayerName).getBet();
                 if (callAmount <= 0) {
                     callAmount = 0;
                 }
@@ -598,6 +641,8 @@ public class AppGUI {
 
             nextGameButton.addActionListener(
                     e -> client.sendMessage("NEXTGAME:" + currentGame.getGameId() + ":" + currentPlayerName));
+            addBotButton.addActionListener(
+                    e -> client.sendMessage("ADD_BOT:" + currentGame.getGameId() + ":equity"));
         }
 
         // ======= Back Button Action =======
@@ -636,23 +681,7 @@ public class AppGUI {
 
     // ======= Load Card Image Helper =======
     private ImageIcon loadCardImage(Card card) {
-        String path;
-        if (card == null) {
-            path = "/images/cards/card_back.png"; // default card
-        } else {
-            String rank = card.getValue().toString().toLowerCase();
-            String suit = card.getSuit().toString().toLowerCase();
-            path = "/images/cards/" + rank + "_of_" + suit + ".png";
-        }
-
-        try {
-            Image img = new ImageIcon(getClass().getResource(path)).getImage().getScaledInstance(60, 90,
-                    Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + path);
-            return new ImageIcon(); // fallback เป็น icon เปล่า
-        }
+        return CardImages.icon(card);
     }
 
 }
@@ -0,0 +1,153 @@
+package com.pokerproject.app;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+import com.pokerproject.model.Card;
+import com.pokerproject.model.Rank;
+import com.pokerproject.model.Suit;
+
+/**
+ * The 52 card faces and the card back, decoded and scaled once and served
+ * as shared {@link ImageIcon}s.
+ *
+ * The first use, or {@link #preload()}, decodes every PNG (in parallel)
+ * and draws it scaled down into one sprite atlas per resolution: a row per
+ * suit, a column per rank and the back last. Each icon is a
+ * {@link BaseMultiResolutionImage} of its cells at 1x and at the screen's
+ * scale (2x when it cannot be told), so Swing paints the sharp one on HiDPI
+ * screens. After that, an icon is an array lookup.
+ */
+final class CardImages {
+
+    static final int WIDTH = 60;
+    static final int HEIGHT = 90;
+
+    private static final Rank[] RANKS = Rank.values();
+    private static final Suit[] SUITS = Suit.values();
+    private static final int BACK = RANKS.length * SUITS.length;
+    private static final int COLUMNS = RANKS.length;
+
+    private CardImages() {
+    }
+
+    // built by the first thread to touch it; the others wait for it
+    private static final class Atlas {
+
+        static final ImageIcon[] ICONS = build();
+    }
+
+    /**
+     * Starts loading the images in the background, so the first table drawn
+     * does not wait for them.
+     */
+    static void preload() {
+        Thread loader = new Thread(() -> icon(null), "card-images");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * The card's face, or the back for {@code null}.
+     */
+    static ImageIcon icon(Card card) {
+        return Atlas.ICONS[card == null ? BACK : card.getSuit().ordinal() * COLUMNS + card.getValue().ordinal()];
+    }
+
+    private static ImageIcon[] build() {
+        int scale = Math.max(2, (int) Math.ceil(screenScale()));
+        BufferedImage[] cards = new BufferedImage[BACK + 1];
+        IntStream.rangeClosed(0, BACK).parallel().forEach(i -> cards[i] = read(path(i)));
+
+        BufferedImage base = atlas(cards, 1);
+        BufferedImage sharp = atlas(cards, scale);
+        ImageIcon[] icons = new ImageIcon[BACK + 1];
+        for (int i = 0; i <= BACK; i++) {
+            int x = i % COLUMNS;
+            int y = i / COLUMNS;
+            icons[i] = new ImageIcon(new BaseMultiResolutionImage(
+                    base.getSubimage(x * WIDTH, y * HEIGHT, WIDTH, HEIGHT),
+                    sharp.getSubimage(x * WIDTH * scale, y * HEIGHT * scale, WIDTH * scale, HEIGHT * scale)));
+        }
+        return icons;
+    }
+
+    private static double screenScale() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return 1;
+        }
+        GraphicsConfiguration screen = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return screen.getDefaultTransform().getScaleX();
+    }
+
+    private static String path(int index) {
+        if (index == BACK) {
+            return "/images/cards/card_back.png";
+        }
+        return "/images/cards/" + RANKS[index % COLUMNS] + "_of_" + SUITS[index / COLUMNS].getSymbol() + ".png";
+    }
+
+    private static BufferedImage read(String path) {
+        try (InputStream in = CardImages.class.getResourceAsStream(path)) {
+            BufferedImage image = in == null ? null : ImageIO.read(in);
+            if (image == null) {
+                System.err.println("Error loading image: " + path);
+            }
+            return image;
+        } catch (IOException e) {
+            System.err.println("Error loading image: " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage atlas(BufferedImage[] cards, int scale) {
+        int width = WIDTH * scale;
+        int height = HEIGHT * scale;
+        int rows = BACK / COLUMNS + 1;
+        BufferedImage atlas = new BufferedImage(COLUMNS * width, rows * height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        for (int i = 0; i <= BACK; i++) {
+            if (cards[i] != null) {
+                g.drawImage(scaleDown(cards[i], width, height), i % COLUMNS * width, i / COLUMNS * height, null);
+            }
+        }
+        g.dispose();
+        return atlas;
+    }
+
+    /**
+     * Halves the image until the next step reaches the target, then draws
+     * it at the target size, bilinear each time, which looks as smooth as
+     * area averaging at a fraction of the cost.
+     */
+    private static BufferedImage scaleDown(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+}
@@ -0,0 +1,46 @@
+package com.pokerproject.bot;
+
+import com.pokerproject.model.Game;
+
+/**
+ * What a {@link BotStrategy} wants to do. The amount of a bet or raise is
+ * the bot's total bet for the round, as {@link Game#processPlayerAction}
+ * takes it, and is ignored for the other actions.
+ */
+public final class BotAction {
+
+    public static final BotAction FOLD = new BotAction(Game.Action.FOLD, 0);
+    public static final BotAction CHECK = new BotAction(Game.Action.CHECK, 0);
+    public static final BotAction CALL = new BotAction(Game.Action.CALL, 0);
+    // a bot dealing the next hand after a showdown; strategies are never asked for it
+    public static final BotAction NEXT = new BotAction(Game.Action.NEXT, 0);
+
+    private final Game.Action action;
+    private final int amount;
+
+    private BotAction(Game.Action action, int amount) {
+        this.action = action;
+        this.amount = amount;
+    }
+
+    public static BotAction bet(int amount) {
+        return new BotAction(Game.Action.BET, amount);
+    }
+
+    public static BotAction raiseTo(int amount) {
+        return new BotAction(Game.Action.RAISE, amount);
+    }
+
+    public Game.Action getAction() {
+        return action;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return amount == 0 ? action.toString() : action + " " + amount;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pokerproject.bot;
+
+import com.pokerproject.model.GameSnapshot;
+
+/**
+ * Decides for a bot seat. Bots sit at a table as players without a
+ * connection; when it is a bot's turn its strategy is asked on a shared
+ * scheduler thread, never on the table's own thread.
+ *
+ * Implementations must be thread-safe, since one instance may decide for
+ * several bots at once.
+ */
+public interface BotStrategy {
+
+    /**
+     * Picks the bot's action from the {@code view} its seat may see: the
+     * public state of the table plus its own hole cards. It should return
+     * before {@code deadline}, a {@link System#nanoTime()} value; an answer
+     * that comes later is dropped and the bot checks, or folds to a bet.
+     */
+    BotAction decide(GameSnapshot view, String botName, long deadline);
+
+    /**
+     * The name {@link #forName} returns this strategy for.
+     */
+    String getName();
+
+    /**
+     * The strategy for a name used in commands and server properties:
+     * {@code calling} or {@code equity}.
+     */
+    static BotStrategy forName(String name) {
+        switch (name.toLowerCase()) {
+            case "calling":
+                return CallingBot.INSTANCE;
+            case "equity":
+                return EquityBot.INSTANCE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.pokerproject.bot;
+
+import com.pokerproject.model.GameSnapshot;
+
+/**
+ * Checks when it can and calls every bet.
+ */
+final class CallingBot implements BotStrategy {
+
+    static final CallingBot INSTANCE = new CallingBot();
+
+    private CallingBot() {
+    }
+
+    @Override
+    public String getName() {
+        return "calling";
+    }
+
+    @Override
+    public BotAction decide(GameSnapshot view, String botName, long deadline) {
+        int owed = view.getCurrentBet() - view.getPlayerByName(botName).getBet();
+        return owed > 0 ? BotAction.CALL : BotAction.CHECK;
+    }
+}
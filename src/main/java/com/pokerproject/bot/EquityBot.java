@@ -0,0 +1,65 @@
+package com.pokerproject.bot;
+
+import java.util.SplittableRandom;
+
+import com.pokerproject.analysis.EquityCalculator;
+import com.pokerproject.model.CardCodec;
+import com.pokerproject.model.GameSnapshot;
+import com.pokerproject.model.PlayerSnapshot;
+
+/**
+ * Plays by its {@link EquityCalculator} estimate against the players still
+ * in: folds when the equity is below the pot odds, raises strong hands and
+ * otherwise checks or calls. It spends up to its time budget on trials.
+ */
+final class EquityBot implements BotStrategy {
+
+    static final EquityBot INSTANCE = new EquityBot();
+
+    private static final int MAX_TRIALS = 5000;
+    private static final int MIN_BET = 100;
+    private static final double RAISE_EQUITY = 0.7;
+    private static final double BET_EQUITY = 0.55;
+
+    private EquityBot() {
+    }
+
+    @Override
+    public String getName() {
+        return "equity";
+    }
+
+    @Override
+    public BotAction decide(GameSnapshot view, String botName, long deadline) {
+        PlayerSnapshot me = view.getPlayerByName(botName);
+        int opponents = -1;
+        for (PlayerSnapshot player : view.getPlayers()) {
+            if (player.getIsActive()) {
+                opponents++;
+            }
+        }
+        double equity = EquityCalculator.versusRandom(CardCodec.mask(me.getHoleCards()),
+                CardCodec.mask(view.getCommunityCards()), opponents, MAX_TRIALS, deadline, new SplittableRandom());
+
+        int currentBet = view.getCurrentBet();
+        int owed = currentBet - me.getBet();
+        int allIn = me.getBet() + me.getChips();
+        if (owed > 0) {
+            double potOdds = (double) owed / (view.getPot() + owed);
+            if (equity < potOdds) {
+                return BotAction.FOLD;
+            }
+            if (equity >= RAISE_EQUITY && allIn > currentBet) {
+                return BotAction.raiseTo(Math.min(currentBet * 2 + view.getPot() / 2, allIn));
+            }
+            return BotAction.CALL;
+        }
+        if (equity >= BET_EQUITY && me.getChips() > 0) {
+            int size = Math.max(view.getPot() / 2, MIN_BET);
+            return currentBet == 0
+                    ? BotAction.bet(Math.min(size, allIn))
+                    : BotAction.raiseTo(Math.min(currentBet + size, allIn));
+        }
+        return BotAction.CHECK;
+    }
+}
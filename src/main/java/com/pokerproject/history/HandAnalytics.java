@@ -0,0 +1,106 @@
+package com.pokerproject.history;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line queries over a hand-history directory. Indexes missing for
+ * any segment are built first, then the query runs on every core.
+ *
+ * <pre>
+ * java -cp target/classes com.pokerproject.history.HandAnalytics history stats
+ * java -cp target/classes com.pokerproject.history.HandAnalytics history count lost=FLUSH:FULL_HOUSE
+ * java -cp target/classes com.pokerproject.history.HandAnalytics history list player=alice action=PREFLOP:RAISE minpot=2000
+ * </pre>
+ *
+ * {@code stats} prints VPIP, PFR, how often each player went to showdown
+ * and won there, and the net chips, for the 25 players with the most hands
+ * matched; {@code list} prints the first matches in full. See
+ * {@link HandQuery#parse} for the terms.
+ */
+public class HandAnalytics {
+
+    private static final int TOP_PLAYERS = 25;
+    private static final int LISTED_HANDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: HandAnalytics <directory> <count|list|stats> [term...]");
+            return;
+        }
+        Path directory = Paths.get(args[0]);
+        String command = args[1];
+        HandQuery query = HandQuery.parse(Arrays.asList(args).subList(2, args.length));
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<HandIndex> indexes = HandIndex.openAll(directory, pool);
+            long hands = 0;
+            for (HandIndex index : indexes) {
+                hands += index.getHandCount();
+            }
+            long indexed = System.nanoTime();
+            System.out.printf("%,d hands in %d segments, indexes ready in %.2f s%n",
+                    hands, indexes.size(), (indexed - start) / 1e9);
+
+            long matched;
+            switch (command) {
+                case "count":
+                    matched = query.count(indexes, pool);
+                    break;
+                case "list":
+                    matched = list(query, indexes, pool);
+                    break;
+                case "stats":
+                    Map<String, PlayerStats> stats = query.playerStats(indexes, pool);
+                    matched = -1;
+                    printStats(stats);
+                    break;
+                default:
+                    System.err.println("Unknown command " + command);
+                    return;
+            }
+            double seconds = (System.nanoTime() - indexed) / 1e9;
+            System.out.printf("%s in %.3f s on %d threads (%,.0f hands/s scanned)%n",
+                    matched < 0 ? "Done" : String.format("%,d hands matched", matched),
+                    seconds, threads, hands / seconds);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long list(HandQuery query, List<HandIndex> indexes, ExecutorService pool) throws IOException {
+        AtomicLong listed = new AtomicLong();
+        return query.forEach(indexes, pool, (index, hand) -> {
+            if (listed.incrementAndGet() <= LISTED_HANDS) {
+                HandRecord record = new HandRecord();
+                index.readRecord(hand, record);
+                synchronized (System.out) {
+                    System.out.println(record);
+                }
+            }
+        });
+    }
+
+    private static void printStats(Map<String, PlayerStats> stats) {
+        List<PlayerStats> players = new ArrayList<>(stats.values());
+        players.sort(Comparator.comparingLong(PlayerStats::getHands).reversed());
+        System.out.printf("%-16s %10s %6s %6s %6s %6s %14s%n", "Player", "Hands", "VPIP", "PFR", "WTSD", "W$SD", "Net");
+        for (PlayerStats player : players.subList(0, Math.min(TOP_PLAYERS, players.size()))) {
+            System.out.println(player);
+        }
+        if (players.size() > TOP_PLAYERS) {
+            System.out.println("... " + (players.size() - TOP_PLAYERS) + " more players");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.pokerproject.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Replays the segments a {@link HandHistoryWriter} wrote. Each segment is
+ * memory-mapped and its records are decoded in place into one reused
+ * {@link HandRecord}, so going through millions of hands needs neither a
+ * copy of the file nor an object per hand.
+ *
+ * <pre>
+ * java -cp target/classes com.pokerproject.history.HandHistoryReader history              # count and time
+ * java -cp target/classes com.pokerproject.history.HandHistoryReader history alice        # alice's hands
+ * java -cp target/classes com.pokerproject.history.HandHistoryReader history 4f2a9c1e 17  # one hand of a table
+ * </pre>
+ */
+public final class HandHistoryReader {
+
+    // records start after the segment's magic number
+    static final int FIRST_RECORD = 4;
+
+    private HandHistoryReader() {
+    }
+
+    /**
+     * The segments in a directory in the order they were written; empty if
+     * there is no such directory.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                HandHistoryWriter.PREFIX + "*" + HandHistoryWriter.SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingInt(HandHistoryWriter::segmentNumberOf));
+        return segments;
+    }
+
+    /**
+     * Calls {@code visitor} with every hand in the directory, oldest first,
+     * and returns how many there were. The record passed in is reused for
+     * the next hand; {@link HandRecord#copy} it to keep it.
+     */
+    public static long forEach(Path directory, Consumer<HandRecord> visitor) throws IOException {
+        HandRecord record = new HandRecord();
+        long hands = 0;
+        for (Path segment : segments(directory)) {
+            hands += forEach(segment, record, visitor);
+        }
+        return hands;
+    }
+
+    /**
+     * Decodes every whole record of one segment into {@code record} and
+     * calls {@code visitor} after each. A record cut short at the end, as
+     * a crash leaves it, ends the segment.
+     */
+    public static long forEach(Path segment, HandRecord record, Consumer<HandRecord> visitor) throws IOException {
+        ByteBuffer map = map(segment);
+        long hands = 0;
+        int offset = FIRST_RECORD;
+        while (true) {
+            try {
+                offset = readAt(map, offset, record);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(segment + ": bad record at " + record.getOffset() + ": " + e.getMessage());
+            }
+            if (offset < 0) {
+                return hands;
+            }
+            visitor.accept(record);
+            hands++;
+        }
+    }
+
+    /**
+     * Maps a whole segment read-only, checking its header. The mapping stays
+     * valid after the file is closed.
+     */
+    public static ByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() < FIRST_RECORD) {
+                return ByteBuffer.allocate(0);
+            }
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt(0) != HandHistoryWriter.MAGIC) {
+                throw new IOException(segment + " is not a hand history segment");
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Decodes the record at {@code offset} of a mapped segment and returns
+     * where the next one starts, or -1 if there is no whole record there.
+     * Throws {@link IllegalArgumentException} if the record is corrupt.
+     */
+    public static int readAt(ByteBuffer map, int offset, HandRecord record) {
+        if (offset < FIRST_RECORD || map.limit() - offset < 4) {
+            return -1;
+        }
+        int length = map.getInt(offset);
+        int start = offset + 4;
+        if (length <= 0 || length > map.limit() - start) {
+            return -1;
+        }
+        record.setOffset(offset);
+        record.readFrom(map.slice(start, length));
+        return start + length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: HandHistoryReader <directory> [player | gameId [hand number]]");
+            return;
+        }
+        Path directory = Paths.get(args[0]);
+        String filter = args.length > 1 ? args[1] : null;
+        long handNumber = args.length > 2 ? Long.parseLong(args[2]) : -1;
+
+        long start = System.nanoTime();
+        long[] matched = new long[1];
+        long hands = forEach(directory, record -> {
+            if (filter == null) {
+                return;
+            }
+            boolean match = filter.equals(record.getGameId())
+                    ? handNumber < 0 || record.getHandNumber() == handNumber
+                    : record.seatOf(filter) >= 0;
+            if (match) {
+                matched[0]++;
+                System.out.println(record);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d hands in %d segments read in %.2f s (%,.0f hands/s)%s%n",
+                hands, segments(directory).size(), seconds, hands / seconds,
+                filter == null ? "" : ", " + matched[0] + " matched " + filter);
+    }
+}
@@ -0,0 +1,194 @@
+package com.pokerproject.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * Appends hand records to segment files from one background thread.
+ *
+ * Tables hand over encoded records with {@link #append}, which only offers
+ * them to a bounded queue: when the disk falls that far behind, records are
+ * dropped and counted rather than stalling the game. The writer thread takes
+ * whatever has queued up, copies the batch into one buffer and writes it
+ * with a single call, then lingers a few milliseconds unless the batch was
+ * full, so a busy server writes large batches instead of waking per hand.
+ *
+ * A segment is a file named {@code hands-<n>.log} that starts with
+ * {@link #MAGIC} and holds records, each a 4-byte big-endian length followed
+ * by a {@link HandRecord}. A new segment is started when the current one
+ * would grow past the segment size, and on every start, so a segment torn by
+ * a crash is never appended to; readers stop at its last whole record.
+ */
+public final class HandHistoryWriter implements AutoCloseable {
+
+    private static final Logger LOG = Logger.get(HandHistoryWriter.class);
+    public static final int MAGIC = 0x50484831; // "PHH1"
+    static final String PREFIX = "hands-";
+    static final String SUFFIX = ".log";
+
+    private static final int MAX_BATCH = 4096;
+    // pause after a partial batch so the next write carries more hands
+    private static final long LINGER_MILLIS = 10;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread thread;
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private volatile boolean closed;
+    private FileChannel channel;
+    private int segmentNumber;
+    private long segmentSize;
+    private volatile long written;
+
+    /**
+     * @param segmentBytes size a segment is rolled at, at most 2 GiB so
+     *                     readers can map a whole segment
+     * @param queueCapacity finished hands waiting for the disk before new
+     *                      ones are dropped
+     */
+    public HandHistoryWriter(Path directory, long segmentBytes, int queueCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(directory);
+        for (Path segment : HandHistoryReader.segments(directory)) {
+            segmentNumber = Math.max(segmentNumber, segmentNumberOf(segment));
+        }
+        thread = new Thread(this::run, "hand-history-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static int segmentNumberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Queues one encoded {@link HandRecord} without blocking; returns false
+     * if it was dropped because the queue is full or the writer is closed.
+     */
+    public boolean append(byte[] record) {
+        if (closed || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Records written to disk so far.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    private void run() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                byte[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch();
+                boolean partial = batch.size() < MAX_BATCH;
+                batch.clear();
+                if (partial && !closed) {
+                    Thread.sleep(LINGER_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOG.error("Hand history writer stopped", e);
+            closed = true;
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        for (byte[] record : batch) {
+            int size = 4 + record.length;
+            if (channel == null || segmentSize + buffer.position() + size > segmentBytes) {
+                flush();
+                openSegment();
+            }
+            if (buffer.remaining() < size) {
+                flush();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocateDirect(size);
+                }
+            }
+            buffer.putInt(record.length).put(record);
+        }
+        flush();
+        written += batch.size();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        segmentNumber++;
+        Path segment = directory.resolve(String.format("%s%08d%s", PREFIX, segmentNumber, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(MAGIC).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        segmentSize = 4;
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Could not close hand history segment", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Writes what is queued, syncs the segment to disk and stops the thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        thread.join();
+        if (dropped.get() > 0) {
+            LOG.warn("Hand history dropped {} hands", dropped.get());
+        }
+    }
+}
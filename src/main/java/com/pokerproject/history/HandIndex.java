@@ -0,0 +1,489 @@
+package com.pokerproject.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.PokerHand;
+
+/**
+ * Columnar index of one hand-history segment, kept in a {@code .idx} file
+ * next to it and memory-mapped, so queries read only the columns they need
+ * and nothing is loaded onto the heap.
+ *
+ * Hands are numbered from 0 in the order of the segment. Per hand there is
+ * the record's offset, the pot, the last {@link Game.Round} and where its
+ * seats start in the seat columns; per seat the player (an id into the
+ * segment's dictionary of names), the {@link PokerHand.HandType} shown, the
+ * {@link #VPIP}, {@link #PFR}, {@link #SHOWDOWN} and {@link #WON} flags and
+ * the net result. Bitmaps with one bit per hand mark the last round, every
+ * hand type shown and every action taken in each round, and a posting list
+ * per player holds the hands the player sat in.
+ *
+ * An index is rebuilt when its segment has changed size since, e.g. while
+ * the writer is still appending to it.
+ */
+public final class HandIndex {
+
+    public static final int MAGIC = 0x50484932; // "PHI2"
+    static final String SUFFIX = ".idx";
+
+    // seat flags: put chips in voluntarily preflop, bet or raised preflop,
+    // showed down, and ended the hand ahead
+    public static final int VPIP = 1;
+    public static final int PFR = 1 << 1;
+    public static final int SHOWDOWN = 1 << 2;
+    public static final int WON = 1 << 3;
+
+    private static final Game.Round[] ROUND_VALUES = Game.Round.values();
+    private static final int ROUNDS = ROUND_VALUES.length;
+    private static final int ACTIONS = Game.Action.values().length;
+    private static final int HAND_TYPES = PokerHand.HandType.values().length;
+    // bitmap numbers: last round, hand type shown, action taken per round
+    private static final int REACHED = 0;
+    private static final int SHOWN = REACHED + ROUNDS;
+    private static final int ACTED = SHOWN + HAND_TYPES;
+    private static final int BITMAPS = ACTED + ROUNDS * ACTIONS;
+
+    // header: magic, segment size, hands, seats, players, then the column offsets
+    private static final int HEADER = 4 + 8 + 4 * 3 + 4 * 11;
+
+    private final Path segment;
+    private final ByteBuffer map;
+    private final int hands;
+    private final int seats;
+    private final int players;
+    private final int recordOffsets;
+    private final int pots;
+    private final int rounds;
+    private final int seatStarts;
+    private final int seatPlayers;
+    private final int seatTypes;
+    private final int seatFlags;
+    private final int seatNets;
+    private final int bitmaps;
+    private final int postings;
+    private final String[] names;
+    private Map<String, Integer> playerIds;
+    private ByteBuffer segmentMap;
+
+    private HandIndex(Path segment, ByteBuffer map) throws IOException {
+        this.segment = segment;
+        this.map = map;
+        if (map.limit() < HEADER || map.getInt(0) != MAGIC) {
+            throw new IOException(indexPathOf(segment) + " is not a hand index");
+        }
+        hands = map.getInt(12);
+        seats = map.getInt(16);
+        players = map.getInt(20);
+        recordOffsets = map.getInt(24);
+        pots = map.getInt(28);
+        rounds = map.getInt(32);
+        seatStarts = map.getInt(36);
+        seatPlayers = map.getInt(40);
+        seatTypes = map.getInt(44);
+        seatFlags = map.getInt(48);
+        seatNets = map.getInt(52);
+        bitmaps = map.getInt(56);
+        postings = map.getInt(60);
+        int dictionary = map.getInt(HEADER - 4);
+
+        names = new String[players];
+        ByteBuffer in = map.duplicate().position(dictionary);
+        for (int i = 0; i < players; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    static Path indexPathOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - HandHistoryWriter.SUFFIX.length()) + SUFFIX);
+    }
+
+    /**
+     * Opens the index of a segment, building it first if it is missing or
+     * older than the segment.
+     */
+    public static HandIndex open(Path segment) throws IOException {
+        Path indexPath = indexPathOf(segment);
+        long segmentSize = Files.size(segment);
+        if (Files.exists(indexPath)) {
+            ByteBuffer map = map(indexPath);
+            if (map.limit() >= HEADER && map.getInt(0) == MAGIC && map.getLong(4) == segmentSize) {
+                return new HandIndex(segment, map);
+            }
+        }
+        build(segment, segmentSize, indexPath);
+        return new HandIndex(segment, map(indexPath));
+    }
+
+    /**
+     * Opens the indexes of every segment in a directory, building the
+     * missing ones in parallel on {@code pool}.
+     */
+    public static List<HandIndex> openAll(Path directory, ExecutorService pool) throws IOException {
+        List<Future<HandIndex>> opening = new ArrayList<>();
+        for (Path segment : HandHistoryReader.segments(directory)) {
+            opening.add(pool.submit(() -> open(segment)));
+        }
+        List<HandIndex> indexes = new ArrayList<>(opening.size());
+        for (Future<HandIndex> index : opening) {
+            indexes.add(HandQuery.await(index));
+        }
+        return indexes;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void build(Path segment, long segmentSize, Path indexPath) throws IOException {
+        Builder builder = new Builder();
+        HandHistoryReader.forEach(segment, new HandRecord(), builder::add);
+        ByteBuffer out = builder.encode(segmentSize);
+        // written aside and moved, so a reader never maps half an index
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getSegment() {
+        return segment;
+    }
+
+    public int getHandCount() {
+        return hands;
+    }
+
+    public int getPlayerCount() {
+        return players;
+    }
+
+    public int recordOffset(int hand) {
+        return map.getInt(recordOffsets + 4 * hand);
+    }
+
+    public int pot(int hand) {
+        return map.getInt(pots + 4 * hand);
+    }
+
+    public Game.Round roundReached(int hand) {
+        return ROUND_VALUES[map.get(rounds + hand)];
+    }
+
+    /**
+     * First entry of the hand in the seat columns; its seats run up to
+     * {@code seatStart(hand + 1)}.
+     */
+    public int seatStart(int hand) {
+        return map.getInt(seatStarts + 4 * hand);
+    }
+
+    public int seatPlayer(int seatEntry) {
+        return map.getInt(seatPlayers + 4 * seatEntry);
+    }
+
+    /**
+     * Hand type ordinal plus one, or 0 if the seat did not show down.
+     */
+    public int seatHandType(int seatEntry) {
+        return map.get(seatTypes + seatEntry);
+    }
+
+    public int seatFlags(int seatEntry) {
+        return map.get(seatFlags + seatEntry);
+    }
+
+    public int seatNet(int seatEntry) {
+        return map.getInt(seatNets + 4 * seatEntry);
+    }
+
+    public String playerName(int player) {
+        return names[player];
+    }
+
+    /**
+     * Id of a player in this segment's dictionary, or -1 if the player has
+     * no hands here.
+     */
+    public synchronized int playerId(String name) {
+        if (playerIds == null) {
+            playerIds = new HashMap<>(players * 2);
+            for (int i = 0; i < players; i++) {
+                playerIds.put(names[i], i);
+            }
+        }
+        return playerIds.getOrDefault(name, -1);
+    }
+
+    static int reachedBitmap(Game.Round round) {
+        return REACHED + round.ordinal();
+    }
+
+    static int shownBitmap(PokerHand.HandType type) {
+        return SHOWN + type.ordinal();
+    }
+
+    static int actedBitmap(Game.Round round, Game.Action action) {
+        return ACTED + round.ordinal() * ACTIONS + action.ordinal();
+    }
+
+    /**
+     * Word {@code word} of a bitmap, bit {@code i} standing for hand
+     * {@code 64 * word + i}.
+     */
+    long bitmapWord(int bitmap, int word) {
+        return map.getLong(bitmaps + 8 * (bitmap * words(hands) + word));
+    }
+
+    /**
+     * The hands a player sat in, ascending: entries {@code postingStart(p)}
+     * up to {@code postingStart(p + 1)} of {@link #posting}.
+     */
+    int postingStart(int player) {
+        return map.getInt(postings + 4 * player);
+    }
+
+    int posting(int entry) {
+        return map.getInt(postings + 4 * (players + 1) + 4 * entry);
+    }
+
+    /**
+     * Decodes the full record of a hand from the segment.
+     */
+    public void readRecord(int hand, HandRecord record) throws IOException {
+        ByteBuffer segmentMap;
+        synchronized (this) {
+            if (this.segmentMap == null) {
+                this.segmentMap = HandHistoryReader.map(segment);
+            }
+            segmentMap = this.segmentMap;
+        }
+        HandHistoryReader.readAt(segmentMap, recordOffset(hand), record);
+    }
+
+    static int words(int hands) {
+        return (hands + 63) >>> 6;
+    }
+
+    /**
+     * Collects the columns of a segment's hands on the heap, then lays them
+     * out as an index file.
+     */
+    private static final class Builder {
+
+        private final Map<String, Integer> playerIds = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<int[]> postingLists = new ArrayList<>();
+        private int[] postingCounts = new int[16];
+        private int hands;
+        private int seats;
+        private int[] recordOffsets = new int[1024];
+        private int[] pots = new int[1024];
+        private byte[] rounds = new byte[1024];
+        private int[] seatStarts = new int[1025];
+        private int[] seatPlayers = new int[8192];
+        private byte[] seatTypes = new byte[8192];
+        private byte[] seatFlags = new byte[8192];
+        private int[] seatNets = new int[8192];
+        private long[][] bitmaps = new long[BITMAPS][16];
+
+        void add(HandRecord record) {
+            if (hands == recordOffsets.length) {
+                int capacity = hands * 2;
+                recordOffsets = Arrays.copyOf(recordOffsets, capacity);
+                pots = Arrays.copyOf(pots, capacity);
+                rounds = Arrays.copyOf(rounds, capacity);
+                seatStarts = Arrays.copyOf(seatStarts, capacity + 1);
+            }
+            if (words(hands + 1) > bitmaps[0].length) {
+                for (int i = 0; i < BITMAPS; i++) {
+                    bitmaps[i] = Arrays.copyOf(bitmaps[i], bitmaps[i].length * 2);
+                }
+            }
+            if (seats + record.getSeatCount() > seatPlayers.length) {
+                int capacity = seatPlayers.length * 2;
+                seatPlayers = Arrays.copyOf(seatPlayers, capacity);
+                seatTypes = Arrays.copyOf(seatTypes, capacity);
+                seatFlags = Arrays.copyOf(seatFlags, capacity);
+                seatNets = Arrays.copyOf(seatNets, capacity);
+            }
+
+            int hand = hands++;
+            long bit = 1L << hand;
+            int word = hand >>> 6;
+            Game.Round reached = record.getRoundReached();
+            recordOffsets[hand] = record.getOffset();
+            rounds[hand] = (byte) reached.ordinal();
+            seatStarts[hand] = seats;
+            bitmaps[reachedBitmap(reached)][word] |= bit;
+
+            int pot = 0;
+            int vpip = 0;
+            int pfr = 0;
+            for (int i = 0; i < record.getActionCount(); i++) {
+                int seat = record.getActionSeat(i);
+                Game.Round round = record.getActionRound(i);
+                Game.Action action = record.getAction(i);
+                pot += record.getActionPaid(i);
+                bitmaps[actedBitmap(round, action)][word] |= bit;
+                if (round == Game.Round.PREFLOP) {
+                    if (record.getActionPaid(i) > 0) {
+                        vpip |= 1 << seat;
+                    }
+                    if (action == Game.Action.BET || action == Game.Action.RAISE) {
+                        pfr |= 1 << seat;
+                    }
+                }
+            }
+
+            for (int seat = 0; seat < record.getSeatCount(); seat++) {
+                pot += record.getBlind(seat) + record.getCarried(seat);
+                int player = playerId(record.getName(seat));
+                addPosting(player, hand);
+                PokerHand.HandType type = record.getHandType(seat);
+                int net = record.getNet(seat);
+                int entry = seats++;
+                seatPlayers[entry] = player;
+                seatTypes[entry] = (byte) (type == null ? 0 : type.ordinal() + 1);
+                seatFlags[entry] = (byte) (((vpip >>> seat) & 1) * VPIP
+                        | ((pfr >>> seat) & 1) * PFR
+                        | (type != null ? SHOWDOWN : 0)
+                        | (net > 0 ? WON : 0));
+                seatNets[entry] = net;
+                if (type != null) {
+                    bitmaps[shownBitmap(type)][word] |= bit;
+                }
+            }
+            pots[hand] = pot;
+            seatStarts[hand + 1] = seats;
+        }
+
+        private int playerId(String name) {
+            Integer id = playerIds.get(name);
+            if (id == null) {
+                id = names.size();
+                playerIds.put(name, id);
+                names.add(name);
+                postingLists.add(new int[4]);
+                if (id == postingCounts.length) {
+                    postingCounts = Arrays.copyOf(postingCounts, id * 2);
+                }
+            }
+            return id;
+        }
+
+        private void addPosting(int player, int hand) {
+            int[] list = postingLists.get(player);
+            int count = postingCounts[player];
+            // a player sits once per hand, but names are not unique across tables
+            if (count > 0 && list[count - 1] == hand) {
+                return;
+            }
+            if (count == list.length) {
+                list = Arrays.copyOf(list, count * 2);
+                postingLists.set(player, list);
+            }
+            list[count] = hand;
+            postingCounts[player] = count + 1;
+        }
+
+        ByteBuffer encode(long segmentSize) {
+            int players = names.size();
+            int words = words(hands);
+            int postingTotal = 0;
+            for (int i = 0; i < players; i++) {
+                postingTotal += postingCounts[i];
+            }
+            List<byte[]> nameBytes = new ArrayList<>(players);
+            int dictionarySize = 0;
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                nameBytes.add(bytes);
+                dictionarySize += 2 + bytes.length;
+            }
+
+            // longs first so the bitmaps stay aligned
+            int bitmapsAt = HEADER + (8 - HEADER % 8) % 8;
+            int recordOffsetsAt = bitmapsAt + 8 * BITMAPS * words;
+            int potsAt = recordOffsetsAt + 4 * hands;
+            int seatStartsAt = potsAt + 4 * hands;
+            int seatPlayersAt = seatStartsAt + 4 * (hands + 1);
+            int seatNetsAt = seatPlayersAt + 4 * seats;
+            int postingsAt = seatNetsAt + 4 * seats;
+            int roundsAt = postingsAt + 4 * (players + 1 + postingTotal);
+            int seatTypesAt = roundsAt + hands;
+            int seatFlagsAt = seatTypesAt + seats;
+            int dictionaryAt = seatFlagsAt + seats;
+
+            ByteBuffer out = ByteBuffer.allocate(dictionaryAt + dictionarySize);
+            out.putInt(MAGIC).putLong(segmentSize).putInt(hands).putInt(seats).putInt(players)
+                    .putInt(recordOffsetsAt).putInt(potsAt).putInt(roundsAt).putInt(seatStartsAt)
+                    .putInt(seatPlayersAt).putInt(seatTypesAt).putInt(seatFlagsAt).putInt(seatNetsAt)
+                    .putInt(bitmapsAt).putInt(postingsAt).putInt(dictionaryAt);
+
+            out.position(bitmapsAt);
+            for (int i = 0; i < BITMAPS; i++) {
+                for (int w = 0; w < words; w++) {
+                    out.putLong(bitmaps[i][w]);
+                }
+            }
+            for (int h = 0; h < hands; h++) {
+                out.putInt(recordOffsets[h]);
+            }
+            for (int h = 0; h < hands; h++) {
+                out.putInt(pots[h]);
+            }
+            for (int h = 0; h <= hands; h++) {
+                out.putInt(seatStarts[h]);
+            }
+            for (int s = 0; s < seats; s++) {
+                out.putInt(seatPlayers[s]);
+            }
+            for (int s = 0; s < seats; s++) {
+                out.putInt(seatNets[s]);
+            }
+            int start = 0;
+            for (int p = 0; p < players; p++) {
+                out.putInt(start);
+                start += postingCounts[p];
+            }
+            out.putInt(start);
+            for (int p = 0; p < players; p++) {
+                int[] list = postingLists.get(p);
+                for (int i = 0; i < postingCounts[p]; i++) {
+                    out.putInt(list[i]);
+                }
+            }
+            out.put(rounds, 0, hands);
+            out.put(seatTypes, 0, seats);
+            out.put(seatFlags, 0, seats);
+            for (byte[] bytes : nameBytes) {
+                out.putShort((short) bytes.length).put(bytes);
+            }
+            return out.flip();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.pokerproject.history;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.PokerHand;
+
+/**
+ * A filter over indexed hand histories, run in parallel over chunks of
+ * {@link HandIndex} columns.
+ *
+ * Conditions on the last round, the hand types shown and the actions taken
+ * are answered a word of 64 hands at a time from the bitmaps, players from
+ * their posting lists; only hands left after that are checked against the
+ * pot and any per-seat condition, and only matches are handed on. Every
+ * condition must hold.
+ *
+ * <pre>
+ * new HandQuery().shown(FLUSH).lostTo(FLUSH, FULL_HOUSE).count(indexes, pool)
+ * new HandQuery().player("alice").reachedAtLeast(Game.Round.RIVER).playerStats(indexes, pool)
+ * </pre>
+ */
+public final class HandQuery {
+
+    // hands per parallel task, 1024 bitmap words
+    private static final int CHUNK_WORDS = 1024;
+
+    /**
+     * Receives matching hands, from several threads at once.
+     */
+    public interface HandVisitor {
+        void accept(HandIndex index, int hand) throws IOException;
+    }
+
+    /**
+     * A condition checked hand by hand on whatever the bitmaps let through.
+     */
+    public interface HandFilter {
+        boolean test(HandIndex index, int hand);
+    }
+
+    private interface ChunkTask {
+        long run(HandIndex index, int fromWord, int toWord) throws IOException;
+    }
+
+    // each entry is a set of bitmaps of which a hand must be in at least one
+    private final List<int[]> bitmapGroups = new ArrayList<>();
+    private final List<String> players = new ArrayList<>();
+    private final List<HandFilter> filters = new ArrayList<>();
+    private int minPot = Integer.MIN_VALUE;
+    private int maxPot = Integer.MAX_VALUE;
+
+    /**
+     * Hands that got to {@code round} or further.
+     */
+    public HandQuery reachedAtLeast(Game.Round round) {
+        Game.Round[] rounds = Game.Round.values();
+        int[] group = new int[rounds.length - round.ordinal()];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = HandIndex.reachedBitmap(rounds[round.ordinal() + i]);
+        }
+        bitmapGroups.add(group);
+        return this;
+    }
+
+    /**
+     * Hands where somebody showed down {@code type}.
+     */
+    public HandQuery shown(PokerHand.HandType type) {
+        bitmapGroups.add(new int[] {HandIndex.shownBitmap(type)});
+        return this;
+    }
+
+    /**
+     * Hands where somebody made {@code action} in {@code round}.
+     */
+    public HandQuery acted(Game.Round round, Game.Action action) {
+        bitmapGroups.add(new int[] {HandIndex.actedBitmap(round, action)});
+        return this;
+    }
+
+    public HandQuery player(String name) {
+        players.add(name);
+        return this;
+    }
+
+    public HandQuery potBetween(int min, int max) {
+        minPot = Math.max(minPot, min);
+        maxPot = Math.min(maxPot, max);
+        return this;
+    }
+
+    /**
+     * Hands where a player showed {@code loser} and came out behind while
+     * another showed {@code winner} and came out ahead.
+     */
+    public HandQuery lostTo(PokerHand.HandType loser, PokerHand.HandType winner) {
+        shown(loser);
+        shown(winner);
+        int loserType = loser.ordinal() + 1;
+        int winnerType = winner.ordinal() + 1;
+        return where((index, hand) -> {
+            boolean lost = false;
+            boolean won = false;
+            for (int s = index.seatStart(hand), end = index.seatStart(hand + 1); s < end; s++) {
+                int type = index.seatHandType(s);
+                boolean ahead = (index.seatFlags(s) & HandIndex.WON) != 0;
+                lost |= type == loserType && !ahead;
+                won |= type == winnerType && ahead;
+            }
+            return lost && won;
+        });
+    }
+
+    public HandQuery where(HandFilter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    /**
+     * Builds a query from terms like {@code player=alice},
+     * {@code reached=RIVER}, {@code shown=FLUSH}, {@code action=PREFLOP:RAISE},
+     * {@code minpot=1000}, {@code maxpot=5000} or {@code lost=FLUSH:FULL_HOUSE}.
+     */
+    public static HandQuery parse(List<String> terms) {
+        HandQuery query = new HandQuery();
+        for (String term : terms) {
+            int equals = term.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Not a query term: " + term);
+            }
+            String key = term.substring(0, equals);
+            String value = term.substring(equals + 1);
+            String[] pair = value.toUpperCase(Locale.ROOT).split(":");
+            switch (key) {
+                case "player":
+                    query.player(value);
+                    break;
+                case "reached":
+                    query.reachedAtLeast(Game.Round.valueOf(pair[0]));
+                    break;
+                case "shown":
+                    query.shown(PokerHand.HandType.valueOf(pair[0]));
+                    break;
+                case "action":
+                    query.acted(Game.Round.valueOf(pair[0]), Game.Action.valueOf(pair[1]));
+                    break;
+                case "minpot":
+                    query.potBetween(Integer.parseInt(value), Integer.MAX_VALUE);
+                    break;
+                case "maxpot":
+                    query.potBetween(Integer.MIN_VALUE, Integer.parseInt(value));
+                    break;
+                case "lost":
+                    query.lostTo(PokerHand.HandType.valueOf(pair[0]), PokerHand.HandType.valueOf(pair[1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a query term: " + term);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Hands every matching hand to {@code visitor}, calling it from the
+     * pool's threads as chunks are scanned, and returns how many matched.
+     */
+    public long forEach(List<HandIndex> indexes, ExecutorService pool, HandVisitor visitor) throws IOException {
+        return inParallel(indexes, pool, (index, from, to) -> scan(index, from, to, visitor));
+    }
+
+    public long count(List<HandIndex> indexes, ExecutorService pool) throws IOException {
+        return forEach(indexes, pool, (index, hand) -> { });
+    }
+
+    /**
+     * Totals per player over the matching hands. Each chunk adds up into
+     * arrays indexed by its segment's player ids and is merged by name
+     * once at the end.
+     */
+    public Map<String, PlayerStats> playerStats(List<HandIndex> indexes, ExecutorService pool) throws IOException {
+        Map<String, PlayerStats> stats = new ConcurrentHashMap<>();
+        inParallel(indexes, pool, (index, from, to) -> {
+            PlayerStats[] chunk = new PlayerStats[index.getPlayerCount()];
+            long matched = scan(index, from, to, (ix, hand) -> {
+                for (int s = ix.seatStart(hand), end = ix.seatStart(hand + 1); s < end; s++) {
+                    int player = ix.seatPlayer(s);
+                    if (chunk[player] == null) {
+                        chunk[player] = new PlayerStats(ix.playerName(player));
+                    }
+                    chunk[player].add(ix.seatFlags(s), ix.seatNet(s));
+                }
+            });
+            for (PlayerStats player : chunk) {
+                if (player != null) {
+                    stats.computeIfAbsent(player.getName(), PlayerStats::new).add(player);
+                }
+            }
+            return matched;
+        });
+        return stats;
+    }
+
+    private long inParallel(List<HandIndex> indexes, ExecutorService pool, ChunkTask task) throws IOException {
+        List<Future<Long>> chunks = new ArrayList<>();
+        for (HandIndex index : indexes) {
+            int words = HandIndex.words(index.getHandCount());
+            for (int from = 0; from < words; from += CHUNK_WORDS) {
+                int start = from;
+                int end = Math.min(words, from + CHUNK_WORDS);
+                chunks.add(pool.submit(() -> task.run(index, start, end)));
+            }
+        }
+        long matched = 0;
+        for (Future<Long> chunk : chunks) {
+            matched += await(chunk);
+        }
+        return matched;
+    }
+
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private long scan(HandIndex index, int fromWord, int toWord, HandVisitor visitor) throws IOException {
+        long[] playerWords = null;
+        if (!players.isEmpty()) {
+            playerWords = new long[toWord - fromWord];
+            for (int i = 0; i < players.size(); i++) {
+                int player = index.playerId(players.get(i));
+                if (player < 0) {
+                    return 0;
+                }
+                long[] hands = postingWords(index, player, fromWord, toWord);
+                for (int w = 0; w < hands.length; w++) {
+                    playerWords[w] = i == 0 ? hands[w] : playerWords[w] & hands[w];
+                }
+            }
+        }
+
+        int handCount = index.getHandCount();
+        long matched = 0;
+        for (int word = fromWord; word < toWord; word++) {
+            int remaining = handCount - 64 * word;
+            long bits = remaining >= 64 ? -1L : (1L << remaining) - 1;
+            if (playerWords != null) {
+                bits &= playerWords[word - fromWord];
+            }
+            for (int g = 0; g < bitmapGroups.size() && bits != 0; g++) {
+                long any = 0;
+                for (int bitmap : bitmapGroups.get(g)) {
+                    any |= index.bitmapWord(bitmap, word);
+                }
+                bits &= any;
+            }
+            for (; bits != 0; bits &= bits - 1) {
+                int hand = 64 * word + Long.numberOfTrailingZeros(bits);
+                if (matches(index, hand)) {
+                    visitor.accept(index, hand);
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * The hands in {@code [64 * fromWord, 64 * toWord)} a player sat in, as
+     * bitmap words.
+     */
+    private static long[] postingWords(HandIndex index, int player, int fromWord, int toWord) {
+        long[] words = new long[toWord - fromWord];
+        int low = index.postingStart(player);
+        int high = index.postingStart(player + 1);
+        int first = 64 * fromWord;
+        // first posting at or after the chunk
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.posting(mid) < first) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low, end = index.postingStart(player + 1); i < end; i++) {
+            int hand = index.posting(i);
+            if (hand >= 64 * toWord) {
+                break;
+            }
+            words[(hand >>> 6) - fromWord] |= 1L << hand;
+        }
+        return words;
+    }
+
+    private boolean matches(HandIndex index, int hand) {
+        if (minPot != Integer.MIN_VALUE || maxPot != Integer.MAX_VALUE) {
+            int pot = index.pot(hand);
+            if (pot < minPot || pot > maxPot) {
+                return false;
+            }
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            if (!filters.get(i).test(index, hand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
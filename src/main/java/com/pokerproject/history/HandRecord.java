@@ -0,0 +1,417 @@
+package com.pokerproject.history;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.pokerproject.model.CardCodec;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.HandEvaluator;
+import com.pokerproject.model.PokerHand;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * One hand as stored in a hand-history segment, decoded into reusable
+ * arrays so a reader can go through millions of hands with one instance.
+ * Seats are numbered as they were when the hand was dealt.
+ *
+ * Layout of a record, after its length (see {@link HandHistoryWriter}),
+ * with numbers as {@link WireCodec} varints and cards as
+ * {@link CardCodec} indexes:
+ * <ul>
+ * <li>the type byte {@link #HAND}</li>
+ * <li>hand number, start time in epoch milliseconds, game id, small and big
+ * blind</li>
+ * <li>seat count byte, then for each seat: name, stack before the blinds,
+ * blind posted, role bits ({@link #DEALER}, {@link #SMALL_BLIND},
+ * {@link #BIG_BLIND}, {@link #RESUMED}), with {@link #RESUMED} the chips it
+ * had put in beyond the blind before the recorded actions, and its hole
+ * cards as a card count and cards</li>
+ * <li>the board as a card count and cards, in the order they were dealt</li>
+ * <li>action count, then for each action: seat byte, a byte of round
+ * ordinal times 16 plus {@link Game.Action} ordinal, and chips paid</li>
+ * <li>for each seat: chips won and the {@link HandEvaluator} strength it
+ * showed down with, 0 if it did not</li>
+ * </ul>
+ */
+public final class HandRecord {
+
+    public static final int HAND = 1;
+
+    public static final int DEALER = 1;
+    public static final int SMALL_BLIND = 1 << 1;
+    public static final int BIG_BLIND = 1 << 2;
+    // the hand was picked up after a restart, see getCarried
+    public static final int RESUMED = 1 << 3;
+
+    static final int MAX_SEATS = 8;
+    private static final Game.Round[] ROUNDS = Game.Round.values();
+    private static final Game.Action[] ACTIONS = Game.Action.values();
+
+    private int offset;
+    private long handNumber;
+    private long startedAt;
+    private String gameId;
+    private int smallBlind;
+    private int bigBlind;
+    private int seatCount;
+    private final String[] names = new String[MAX_SEATS];
+    private final int[] startingChips = new int[MAX_SEATS];
+    private final int[] blinds = new int[MAX_SEATS];
+    private final int[] roles = new int[MAX_SEATS];
+    private final int[] carried = new int[MAX_SEATS];
+    private final long[] holeCards = new long[MAX_SEATS];
+    private final int[] won = new int[MAX_SEATS];
+    private final int[] strengths = new int[MAX_SEATS];
+    private final int[] board = new int[5];
+    private int boardCount;
+    private int actionCount;
+    private byte[] actionSeats = new byte[32];
+    private byte[] actionKinds = new byte[32];
+    private int[] actionPaid = new int[32];
+
+    /**
+     * Decodes the body of one record, everything after its length. Throws
+     * {@link IllegalArgumentException} if it is not a well formed hand.
+     */
+    public void readFrom(ByteBuffer in) {
+        int type = WireCodec.readByte(in);
+        if (type != HAND) {
+            throw new IllegalArgumentException("Unknown record type " + type);
+        }
+        handNumber = WireCodec.readVarLong(in);
+        startedAt = WireCodec.readVarLong(in);
+        gameId = WireCodec.readString(in);
+        smallBlind = WireCodec.readInt(in);
+        bigBlind = WireCodec.readInt(in);
+
+        seatCount = WireCodec.readByte(in);
+        if (seatCount > MAX_SEATS) {
+            throw new IllegalArgumentException("Too many seats " + seatCount);
+        }
+        for (int seat = 0; seat < seatCount; seat++) {
+            names[seat] = WireCodec.readString(in);
+            startingChips[seat] = WireCodec.readInt(in);
+            blinds[seat] = WireCodec.readInt(in);
+            roles[seat] = WireCodec.readByte(in);
+            carried[seat] = (roles[seat] & RESUMED) != 0 ? WireCodec.readInt(in) : 0;
+            holeCards[seat] = readCardMask(in);
+        }
+
+        boardCount = WireCodec.readByte(in);
+        if (boardCount > board.length) {
+            throw new IllegalArgumentException("Board of " + boardCount + " cards");
+        }
+        for (int i = 0; i < boardCount; i++) {
+            board[i] = readCard(in);
+        }
+
+        actionCount = WireCodec.readInt(in);
+        if (actionCount < 0 || actionCount > in.remaining()) {
+            throw new IllegalArgumentException("Bad action count " + actionCount);
+        }
+        if (actionCount > actionSeats.length) {
+            int capacity = Math.max(actionCount, actionSeats.length * 2);
+            actionSeats = Arrays.copyOf(actionSeats, capacity);
+            actionKinds = Arrays.copyOf(actionKinds, capacity);
+            actionPaid = Arrays.copyOf(actionPaid, capacity);
+        }
+        for (int i = 0; i < actionCount; i++) {
+            int seat = WireCodec.readByte(in);
+            int kind = WireCodec.readByte(in);
+            if (seat >= seatCount || kind >>> 4 >= ROUNDS.length || (kind & 0xF) >= ACTIONS.length) {
+                throw new IllegalArgumentException("Bad action " + seat + "/" + kind);
+            }
+            actionSeats[i] = (byte) seat;
+            actionKinds[i] = (byte) kind;
+            actionPaid[i] = WireCodec.readInt(in);
+        }
+
+        for (int seat = 0; seat < seatCount; seat++) {
+            won[seat] = WireCodec.readInt(in);
+            strengths[seat] = WireCodec.readInt(in);
+        }
+    }
+
+    private static long readCardMask(ByteBuffer in) {
+        int count = WireCodec.readByte(in);
+        long mask = 0L;
+        for (int i = 0; i < count; i++) {
+            mask |= CardCodec.bit(readCard(in));
+        }
+        return mask;
+    }
+
+    private static int readCard(ByteBuffer in) {
+        int index = WireCodec.readByte(in);
+        if (index >= CardCodec.DECK_SIZE) {
+            throw new IllegalArgumentException("Bad card " + index);
+        }
+        return index;
+    }
+
+    /**
+     * An independent copy, for keeping a hand after the reader moved on.
+     */
+    public HandRecord copy() {
+        HandRecord copy = new HandRecord();
+        copy.offset = offset;
+        copy.handNumber = handNumber;
+        copy.startedAt = startedAt;
+        copy.gameId = gameId;
+        copy.smallBlind = smallBlind;
+        copy.bigBlind = bigBlind;
+        copy.seatCount = seatCount;
+        System.arraycopy(names, 0, copy.names, 0, MAX_SEATS);
+        System.arraycopy(startingChips, 0, copy.startingChips, 0, MAX_SEATS);
+        System.arraycopy(blinds, 0, copy.blinds, 0, MAX_SEATS);
+        System.arraycopy(roles, 0, copy.roles, 0, MAX_SEATS);
+        System.arraycopy(carried, 0, copy.carried, 0, MAX_SEATS);
+        System.arraycopy(holeCards, 0, copy.holeCards, 0, MAX_SEATS);
+        System.arraycopy(won, 0, copy.won, 0, MAX_SEATS);
+        System.arraycopy(strengths, 0, copy.strengths, 0, MAX_SEATS);
+        System.arraycopy(board, 0, copy.board, 0, board.length);
+        copy.boardCount = boardCount;
+        copy.actionCount = actionCount;
+        copy.actionSeats = Arrays.copyOf(actionSeats, actionCount);
+        copy.actionKinds = Arrays.copyOf(actionKinds, actionCount);
+        copy.actionPaid = Arrays.copyOf(actionPaid, actionCount);
+        return copy;
+    }
+
+    /**
+     * Where the record starts in its segment, see
+     * {@link HandHistoryReader#readAt}.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public long getHandNumber() {
+        return handNumber;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public int getSmallBlind() {
+        return smallBlind;
+    }
+
+    public int getBigBlind() {
+        return bigBlind;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    /**
+     * Seat of the player with this name, or -1.
+     */
+    public int seatOf(String name) {
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (names[seat].equals(name)) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    public String getName(int seat) {
+        return names[seat];
+    }
+
+    public int getStartingChips(int seat) {
+        return startingChips[seat];
+    }
+
+    public int getBlind(int seat) {
+        return blinds[seat];
+    }
+
+    /**
+     * Chips the seat had put in beyond its blind before the first recorded
+     * action. Only a hand resumed after a restart has any: its actions
+     * before the restart are not known.
+     */
+    public int getCarried(int seat) {
+        return carried[seat];
+    }
+
+    /**
+     * Everything the seat put into the pot: blind, carried and actions.
+     */
+    public int getPaid(int seat) {
+        int paid = blinds[seat] + carried[seat];
+        for (int i = 0; i < actionCount; i++) {
+            if (actionSeats[i] == seat) {
+                paid += actionPaid[i];
+            }
+        }
+        return paid;
+    }
+
+    public boolean hasRole(int seat, int role) {
+        return (roles[seat] & role) != 0;
+    }
+
+    public long getHoleCardMask(int seat) {
+        return holeCards[seat];
+    }
+
+    /**
+     * Chips the seat took from the pot, including its own share back.
+     */
+    public int getWon(int seat) {
+        return won[seat];
+    }
+
+    /**
+     * Net result of the hand for the seat: what it won less what it put in.
+     */
+    public int getNet(int seat) {
+        return won[seat] - getPaid(seat);
+    }
+
+    /**
+     * The seat's showdown strength, or 0 if it folded or nobody showed down.
+     */
+    public int getStrength(int seat) {
+        return strengths[seat];
+    }
+
+    /**
+     * What the seat showed down with, or null.
+     */
+    public PokerHand.HandType getHandType(int seat) {
+        return strengths[seat] == 0 ? null : HandEvaluator.handTypeOf(strengths[seat]);
+    }
+
+    public int getBoardCount() {
+        return boardCount;
+    }
+
+    public int getBoardCard(int i) {
+        return board[i];
+    }
+
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    public int getActionSeat(int i) {
+        return actionSeats[i];
+    }
+
+    public Game.Round getActionRound(int i) {
+        return ROUNDS[(actionKinds[i] & 0xFF) >>> 4];
+    }
+
+    public Game.Action getAction(int i) {
+        return ACTIONS[actionKinds[i] & 0xF];
+    }
+
+    public int getActionPaid(int i) {
+        return actionPaid[i];
+    }
+
+    /**
+     * The last round of the hand: {@link Game.Round#SHOWDOWN} if hands were
+     * shown, otherwise the street the last player standing won on.
+     */
+    public Game.Round getRoundReached() {
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (strengths[seat] != 0) {
+                return Game.Round.SHOWDOWN;
+            }
+        }
+        switch (boardCount) {
+            case 0:
+                return Game.Round.PREFLOP;
+            case 3:
+                return Game.Round.FLOP;
+            case 4:
+                return Game.Round.TURN;
+            default:
+                return Game.Round.RIVER;
+        }
+    }
+
+    /**
+     * The hand as a readable history, e.g. for settling a dispute.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Hand #").append(handNumber).append(" at table ").append(gameId)
+                .append(", ").append(Instant.ofEpochMilli(startedAt))
+                .append(", blinds ").append(smallBlind).append('/').append(bigBlind).append('\n');
+        for (int seat = 0; seat < seatCount; seat++) {
+            sb.append("Seat ").append(seat).append(": ").append(names[seat])
+                    .append(" (").append(startingChips[seat]).append(')');
+            if (hasRole(seat, DEALER)) sb.append(" [D]");
+            if (hasRole(seat, SMALL_BLIND)) sb.append(" [SB ").append(blinds[seat]).append(']');
+            if (hasRole(seat, BIG_BLIND)) sb.append(" [BB ").append(blinds[seat]).append(']');
+            if (hasRole(seat, RESUMED)) sb.append(" [in ").append(blinds[seat] + carried[seat]).append(" before restart]");
+            appendCards(sb.append(' '), holeCards[seat]);
+            sb.append('\n');
+        }
+        Game.Round round = null;
+        for (int i = 0; i < actionCount; i++) {
+            if (getActionRound(i) != round) {
+                round = getActionRound(i);
+                sb.append("*** ").append(round).append(" ***");
+                int shown = round == Game.Round.FLOP ? 3 : round == Game.Round.TURN ? 4 : round == Game.Round.RIVER ? 5 : 0;
+                for (int c = 0; c < Math.min(shown, boardCount); c++) {
+                    appendCard(sb.append(' '), board[c]);
+                }
+                sb.append('\n');
+            }
+            sb.append(names[actionSeats[i]]).append(' ').append(getAction(i));
+            if (actionPaid[i] > 0) {
+                sb.append(' ').append(actionPaid[i]);
+            }
+            sb.append('\n');
+        }
+        sb.append("*** ").append(getRoundReached()).append(" ***");
+        for (int c = 0; c < boardCount; c++) {
+            appendCard(sb.append(' '), board[c]);
+        }
+        sb.append('\n');
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (won[seat] > 0 || strengths[seat] != 0) {
+                sb.append(names[seat]);
+                if (strengths[seat] != 0) {
+                    sb.append(" shows ").append(getHandType(seat).getName());
+                }
+                sb.append(won[seat] > 0 ? " and wins " + won[seat] : " and loses").append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendCards(StringBuilder sb, long mask) {
+        sb.append('[');
+        for (long m = mask; m != 0; m &= m - 1) {
+            appendCard(sb, Long.numberOfTrailingZeros(m));
+            if ((m & (m - 1)) != 0) {
+                sb.append(' ');
+            }
+        }
+        sb.append(']');
+    }
+
+    private static void appendCard(StringBuilder sb, int index) {
+        sb.append(CardCodec.toCard(index).getValue()).append(CardCodec.toCard(index).getSuit().getSymbol().charAt(0));
+    }
+}
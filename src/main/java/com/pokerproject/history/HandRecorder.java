@@ -0,0 +1,231 @@
+package com.pokerproject.history;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.pokerproject.model.Card;
+import com.pokerproject.model.CardCodec;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.HandEvaluator;
+import com.pokerproject.model.HandObserver;
+import com.pokerproject.model.LookupHandEvaluator;
+import com.pokerproject.model.Player;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * Records the hands of one {@link Game} and hands each finished one to a
+ * {@link HandHistoryWriter} as an encoded {@link HandRecord}. Actions are
+ * kept in primitive arrays while the hand runs; the record is encoded once,
+ * when it ends, and the table never waits for the disk.
+ *
+ * Runs on the game's thread, like the game itself.
+ */
+public final class HandRecorder implements HandObserver {
+
+    private static final HandEvaluator handEvaluator = LookupHandEvaluator.getInstance();
+
+    private final HandHistoryWriter writer;
+    private final Player[] players = new Player[HandRecord.MAX_SEATS];
+    private final int[] startingChips = new int[HandRecord.MAX_SEATS];
+    private final int[] blinds = new int[HandRecord.MAX_SEATS];
+    private final int[] roles = new int[HandRecord.MAX_SEATS];
+    // chips put in beyond the blind before a resumed hand's snapshot
+    private final int[] carried = new int[HandRecord.MAX_SEATS];
+    // chips put in during the hand, blinds included
+    private final int[] paid = new int[HandRecord.MAX_SEATS];
+    private ByteBuffer out = ByteBuffer.allocate(1024);
+    private int seatCount;
+    private long startedAt;
+    private boolean recording;
+    private int actionCount;
+    private byte[] actionSeats = new byte[32];
+    private byte[] actionKinds = new byte[32];
+    private int[] actionPaid = new int[32];
+    // hands up to this number are in the history already
+    private long recordedThrough;
+
+    public HandRecorder(HandHistoryWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Leaves out the hands up to {@code handNumber}: the history has them
+     * from before a restart, and replaying the table log plays them again.
+     */
+    public void skipThrough(long handNumber) {
+        recordedThrough = handNumber;
+    }
+
+    @Override
+    public void handStarted(Game game) {
+        if (game.getHandNumber() <= recordedThrough) {
+            recording = false;
+            return;
+        }
+        List<Player> seated = game.getPlayers();
+        seatCount = Math.min(seated.size(), HandRecord.MAX_SEATS);
+        for (int seat = 0; seat < seatCount; seat++) {
+            Player player = seated.get(seat);
+            players[seat] = player;
+            blinds[seat] = game.getPlayerBet(player);
+            paid[seat] = blinds[seat];
+            startingChips[seat] = player.getChips() + blinds[seat];
+            roles[seat] = roleOf(player);
+            carried[seat] = 0;
+        }
+        startedAt = System.currentTimeMillis();
+        actionCount = 0;
+        recording = true;
+    }
+
+    /**
+     * Picks up a hand restored from the table log. Stacks and blinds are
+     * worked out from what each seat has put in so far; the actions before
+     * the snapshot it was restored from are not known, so the record only
+     * has the ones after it, and each seat is marked
+     * {@link HandRecord#RESUMED} with the rest of what it had put in. A game
+     * between hands is left alone.
+     */
+    @Override
+    public void handResumed(Game game) {
+        if (game.getState() != Game.State.PLAYING || game.getCurrentRound() == Game.Round.SHOWDOWN
+                || game.getHandNumber() <= recordedThrough) {
+            return;
+        }
+        List<Player> seated = game.getPlayers();
+        seatCount = Math.min(seated.size(), HandRecord.MAX_SEATS);
+        for (int seat = 0; seat < seatCount; seat++) {
+            Player player = seated.get(seat);
+            int contributed = game.getPlayerContribution(player);
+            players[seat] = player;
+            roles[seat] = roleOf(player) | HandRecord.RESUMED;
+            blinds[seat] = (roles[seat] & HandRecord.BIG_BLIND) != 0
+                    ? Math.min(contributed, game.getBigBlindAmount())
+                    : (roles[seat] & HandRecord.SMALL_BLIND) != 0
+                            ? Math.min(contributed, game.getSmallBlindAmount())
+                            : 0;
+            carried[seat] = contributed - blinds[seat];
+            paid[seat] = contributed;
+            startingChips[seat] = player.getChips() + contributed;
+        }
+        startedAt = System.currentTimeMillis();
+        actionCount = 0;
+        recording = true;
+    }
+
+    private static int roleOf(Player player) {
+        return (player.isDealer() ? HandRecord.DEALER : 0)
+                | (player.isSmallBlind() ? HandRecord.SMALL_BLIND : 0)
+                | (player.isBigBlind() ? HandRecord.BIG_BLIND : 0);
+    }
+
+    @Override
+    public void playerActed(Game game, Player player, Game.Action action, int chips) {
+        int seat = seatOf(player);
+        if (!recording || seat < 0) {
+            return;
+        }
+        if (actionCount == actionSeats.length) {
+            actionSeats = Arrays.copyOf(actionSeats, actionCount * 2);
+            actionKinds = Arrays.copyOf(actionKinds, actionCount * 2);
+            actionPaid = Arrays.copyOf(actionPaid, actionCount * 2);
+        }
+        actionSeats[actionCount] = (byte) seat;
+        actionKinds[actionCount] = (byte) (game.getCurrentRound().ordinal() << 4 | action.ordinal());
+        actionPaid[actionCount] = chips;
+        actionCount++;
+        paid[seat] += chips;
+    }
+
+    @Override
+    public void handFinished(Game game) {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+
+        byte[] record;
+        while (true) {
+            try {
+                record = encode(game);
+                break;
+            } catch (BufferOverflowException e) {
+                out = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+        writer.append(record);
+        for (int seat = 0; seat < seatCount; seat++) {
+            players[seat] = null;
+        }
+    }
+
+    private byte[] encode(Game game) {
+        // still seated and in the hand; more than one of them means a showdown
+        int shownDown = 0;
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (players[seat].getSeat() >= 0 && players[seat].getIsActive()) {
+                shownDown |= 1 << seat;
+            }
+        }
+        if (Integer.bitCount(shownDown) < 2) {
+            shownDown = 0;
+        }
+
+        out.clear();
+        out.put((byte) HandRecord.HAND);
+        WireCodec.writeVarLong(out, game.getHandNumber());
+        WireCodec.writeVarLong(out, startedAt);
+        WireCodec.writeString(out, game.getGameId());
+        WireCodec.writeInt(out, game.getSmallBlindAmount());
+        WireCodec.writeInt(out, game.getBigBlindAmount());
+        out.put((byte) seatCount);
+        for (int seat = 0; seat < seatCount; seat++) {
+            WireCodec.writeString(out, players[seat].getName());
+            WireCodec.writeInt(out, startingChips[seat]);
+            WireCodec.writeInt(out, blinds[seat]);
+            out.put((byte) roles[seat]);
+            if ((roles[seat] & HandRecord.RESUMED) != 0) {
+                WireCodec.writeInt(out, carried[seat]);
+            }
+            writeCardMask(players[seat].getHoleCardMask());
+        }
+        List<Card> board = game.getCommunityCards();
+        out.put((byte) board.size());
+        for (int i = 0; i < board.size(); i++) {
+            out.put((byte) CardCodec.index(board.get(i)));
+        }
+        WireCodec.writeInt(out, actionCount);
+        for (int i = 0; i < actionCount; i++) {
+            out.put(actionSeats[i]);
+            out.put(actionKinds[i]);
+            WireCodec.writeInt(out, actionPaid[i]);
+        }
+        long boardMask = game.getCommunityCardMask();
+        for (int seat = 0; seat < seatCount; seat++) {
+            Player player = players[seat];
+            // what the stack grew by over what was left after paying in
+            WireCodec.writeInt(out, Math.max(0, player.getChips() - (startingChips[seat] - paid[seat])));
+            boolean shown = (shownDown & (1 << seat)) != 0;
+            WireCodec.writeInt(out, shown ? handEvaluator.evaluate7(player.getHoleCardMask() | boardMask) : 0);
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private void writeCardMask(long mask) {
+        out.put((byte) Long.bitCount(mask));
+        for (long m = mask; m != 0; m &= m - 1) {
+            out.put((byte) Long.numberOfTrailingZeros(m));
+        }
+    }
+
+    private int seatOf(Player player) {
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (players[seat] == player) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+}
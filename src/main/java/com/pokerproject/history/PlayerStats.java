@@ -0,0 +1,96 @@
+package com.pokerproject.history;
+
+/**
+ * Totals for one player over the hands a {@link HandQuery} matched.
+ */
+public final class PlayerStats {
+
+    private final String name;
+    private long hands;
+    private long vpip;
+    private long pfr;
+    private long showdowns;
+    private long showdownsWon;
+    private long net;
+
+    public PlayerStats(String name) {
+        this.name = name;
+    }
+
+    void add(int flags, int net) {
+        hands++;
+        if ((flags & HandIndex.VPIP) != 0) {
+            vpip++;
+        }
+        if ((flags & HandIndex.PFR) != 0) {
+            pfr++;
+        }
+        if ((flags & HandIndex.SHOWDOWN) != 0) {
+            showdowns++;
+            if ((flags & HandIndex.WON) != 0) {
+                showdownsWon++;
+            }
+        }
+        this.net += net;
+    }
+
+    synchronized void add(PlayerStats other) {
+        hands += other.hands;
+        vpip += other.vpip;
+        pfr += other.pfr;
+        showdowns += other.showdowns;
+        showdownsWon += other.showdownsWon;
+        net += other.net;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHands() {
+        return hands;
+    }
+
+    /**
+     * Percentage of hands the player put chips in preflop without being
+     * forced to.
+     */
+    public double getVpip() {
+        return percent(vpip, hands);
+    }
+
+    /**
+     * Percentage of hands the player bet or raised preflop.
+     */
+    public double getPfr() {
+        return percent(pfr, hands);
+    }
+
+    /**
+     * Percentage of hands that went to showdown with the player in.
+     */
+    public double getShowdownRate() {
+        return percent(showdowns, hands);
+    }
+
+    /**
+     * Percentage of showdowns the player came out ahead of.
+     */
+    public double getShowdownWinRate() {
+        return percent(showdownsWon, showdowns);
+    }
+
+    public long getNet() {
+        return net;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-16s %,10d %6.1f %6.1f %6.1f %6.1f %,14d",
+                name, hands, getVpip(), getPfr(), getShowdownRate(), getShowdownWinRate(), net);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pokerproject.log;
+
+/**
+ * How much a log line matters, least first. A logger set to a level writes
+ * that level and the ones after it; {@link #OFF} writes nothing.
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR, OFF
+}
@@ -0,0 +1,249 @@
+package com.pokerproject.log;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The one thread that formats and writes every {@link Logger}'s lines.
+ *
+ * Loggers claim a slot in a fixed ring with one compare-and-set, fill it
+ * in and publish it, so logging never takes a lock, allocates or waits for
+ * the console; when the writer falls a whole ring behind, lines are dropped
+ * and counted instead. The writer takes the slots in order, formats each
+ * as a logfmt line
+ * ({@code time=... level=INFO logger=GameTable thread=... table=... msg="..."})
+ * and flushes whenever it has caught up.
+ *
+ * Lines go to standard output, or to {@code -Dpoker.logFile} (appended);
+ * {@code -Dpoker.logBuffer} (default 8192) is the ring size. What is
+ * still queued is written when the JVM exits.
+ */
+final class LogWriter {
+
+    static final LogWriter INSTANCE = new LogWriter(
+            Integer.getInteger("poker.logBuffer", 8192), System.getProperty("poker.logFile"));
+
+    private static final class Slot {
+        // the sequence this slot was last published for
+        volatile long published = -1;
+        long time;
+        Level level;
+        Logger logger;
+        String thread;
+        String table;
+        String template;
+        Object arg1;
+        Object arg2;
+        Object arg3;
+        int args;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    // the next sequence to hand out
+    private final AtomicLong claimed = new AtomicLong();
+    // the next sequence to write; everything before it is free
+    private volatile long written;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private volatile boolean waiting;
+    private volatile boolean stopping;
+
+    private LogWriter(int capacity, String file) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        mask = size - 1;
+        out = new BufferedWriter(new OutputStreamWriter(open(file), StandardCharsets.UTF_8), 1 << 16);
+        thread = new Thread(this::run, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "log-writer-stop"));
+    }
+
+    private static OutputStream open(String file) {
+        if (file != null) {
+            try {
+                return new FileOutputStream(file, true);
+            } catch (IOException e) {
+                System.err.println("Logging to standard output, cannot write to " + file + ": " + e);
+            }
+        }
+        return System.out;
+    }
+
+    void append(Level level, Logger logger, String table, String template,
+            Object arg1, Object arg2, Object arg3, int args) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - written >= ring.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = ring[(int) sequence & mask];
+        slot.time = System.currentTimeMillis();
+        slot.level = level;
+        slot.logger = logger;
+        slot.thread = Thread.currentThread().getName();
+        slot.table = table;
+        slot.template = template;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        slot.arg3 = arg3;
+        slot.args = args;
+        slot.published = sequence;
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            long next = written;
+            Slot slot = ring[(int) next & mask];
+            if (slot.published == next) {
+                write(slot);
+                slot.logger = null;
+                slot.template = null;
+                slot.arg1 = slot.arg2 = slot.arg3 = null;
+                written = next + 1;
+                continue;
+            }
+            flush();
+            if (stopping && claimed.get() == next) {
+                return;
+            }
+            waiting = true;
+            if (ring[(int) written & mask].published != written) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            waiting = false;
+        }
+    }
+
+    private void write(Slot slot) {
+        StringBuilder text = line;
+        text.setLength(0);
+        text.append("time=");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(slot.time), text);
+        text.append(" level=").append(slot.level);
+        text.append(" logger=").append(slot.logger.getName());
+        text.append(" thread=");
+        quoteIfNeeded(text, slot.thread);
+        if (slot.table != null) {
+            text.append(" table=").append(slot.table);
+        }
+        text.append(" msg=\"");
+        Throwable thrown = format(text, slot);
+        text.append("\"\n");
+        if (thrown != null) {
+            StringWriter trace = new StringWriter();
+            thrown.printStackTrace(new PrintWriter(trace));
+            text.append(trace);
+        }
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            // nowhere left to report it
+        }
+    }
+
+    /**
+     * Appends the template with its placeholders filled in, escaped for a
+     * quoted value; returns a throwable left over as the last argument.
+     */
+    private static Throwable format(StringBuilder text, Slot slot) {
+        String template = slot.template;
+        int used = 0;
+        int from = 0;
+        int at;
+        while (used < slot.args && (at = template.indexOf("{}", from)) >= 0) {
+            escape(text, template, from, at);
+            Object arg = used == 0 ? slot.arg1 : used == 1 ? slot.arg2 : slot.arg3;
+            String value = String.valueOf(arg);
+            escape(text, value, 0, value.length());
+            used++;
+            from = at + 2;
+        }
+        escape(text, template, from, template.length());
+        if (used < slot.args) {
+            Object last = slot.args == 1 ? slot.arg1 : slot.args == 2 ? slot.arg2 : slot.arg3;
+            if (last instanceof Throwable) {
+                text.append(": ");
+                String value = last.toString();
+                escape(text, value, 0, value.length());
+                return (Throwable) last;
+            }
+        }
+        return null;
+    }
+
+    private static void escape(StringBuilder text, String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c == '\n') {
+                text.append("\\n");
+            } else if (c != '\r') {
+                text.append(c);
+            }
+        }
+    }
+
+    private static void quoteIfNeeded(StringBuilder text, String value) {
+        if (value.indexOf(' ') < 0 && value.indexOf('"') < 0) {
+            text.append(value);
+        } else {
+            text.append('"');
+            escape(text, value, 0, value.length());
+            text.append('"');
+        }
+    }
+
+    private void flush() {
+        long lost = dropped.getAndSet(0);
+        try {
+            if (lost > 0) {
+                out.append("time=").append(Instant.ofEpochMilli(System.currentTimeMillis()).toString())
+                        .append(" level=WARN logger=log msg=\"dropped ").append(Long.toString(lost))
+                        .append(" lines, the writer fell behind\"\n");
+            }
+            out.flush();
+        } catch (IOException e) {
+            // nowhere left to report it
+        }
+    }
+
+    /**
+     * Writes what is queued and stops, waiting at most a second.
+     */
+    private void stop() {
+        stopping = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
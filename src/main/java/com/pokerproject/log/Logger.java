@@ -0,0 +1,140 @@
+package com.pokerproject.log;
+
+import java.util.Locale;
+
+/**
+ * A named source of log lines, written by {@link LogWriter} on its own
+ * thread.
+ *
+ * A line is a template with {@code {}} placeholders and up to three
+ * arguments, kept as they are and only turned into text by the writer, so
+ * a level that is off costs one comparison and nothing is formatted on the
+ * caller's thread. Arguments must therefore not change after the call:
+ * pass strings, numbers and enums, not the game. A {@link Throwable} as the
+ * last argument, with no placeholder left for it, is written with its stack
+ * trace.
+ *
+ * The level is {@code -Dpoker.logLevel} (default INFO), or
+ * {@code -Dpoker.logLevel.<name>} for one logger. Lines carry the table set
+ * with {@link #setTable} on the logging thread.
+ */
+public final class Logger {
+
+    private static final Level DEFAULT_LEVEL = level(System.getProperty("poker.logLevel"), Level.INFO);
+    // the table the current thread is running a command for
+    private static final ThreadLocal<String> TABLE = new ThreadLocal<>();
+
+    private final String name;
+    private final int threshold;
+
+    private Logger(String name, Level level) {
+        this.name = name;
+        this.threshold = level.ordinal();
+    }
+
+    public static Logger get(String name) {
+        return new Logger(name, level(System.getProperty("poker.logLevel." + name), DEFAULT_LEVEL));
+    }
+
+    public static Logger get(Class<?> type) {
+        return get(type.getSimpleName());
+    }
+
+    private static Level level(String value, Level fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Tags the lines this thread logs from now on with a table, or with none
+     * when {@code gameId} is null.
+     */
+    public static void setTable(String gameId) {
+        TABLE.set(gameId);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null, null, null, 0);
+    }
+
+    public void debug(String template, Object arg) {
+        log(Level.DEBUG, template, arg, null, null, 1);
+    }
+
+    public void debug(String template, Object arg1, Object arg2) {
+        log(Level.DEBUG, template, arg1, arg2, null, 2);
+    }
+
+    public void debug(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.DEBUG, template, arg1, arg2, arg3, 3);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null, null, null, 0);
+    }
+
+    public void info(String template, Object arg) {
+        log(Level.INFO, template, arg, null, null, 1);
+    }
+
+    public void info(String template, Object arg1, Object arg2) {
+        log(Level.INFO, template, arg1, arg2, null, 2);
+    }
+
+    public void info(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.INFO, template, arg1, arg2, arg3, 3);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null, null, null, 0);
+    }
+
+    public void warn(String template, Object arg) {
+        log(Level.WARN, template, arg, null, null, 1);
+    }
+
+    public void warn(String template, Object arg1, Object arg2) {
+        log(Level.WARN, template, arg1, arg2, null, 2);
+    }
+
+    public void warn(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.WARN, template, arg1, arg2, arg3, 3);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null, null, null, 0);
+    }
+
+    public void error(String template, Object arg) {
+        log(Level.ERROR, template, arg, null, null, 1);
+    }
+
+    public void error(String template, Object arg1, Object arg2) {
+        log(Level.ERROR, template, arg1, arg2, null, 2);
+    }
+
+    public void error(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.ERROR, template, arg1, arg2, arg3, 3);
+    }
+
+    private void log(Level level, String template, Object arg1, Object arg2, Object arg3, int args) {
+        if (level.ordinal() < threshold) {
+            return;
+        }
+        LogWriter.INSTANCE.append(level, this, TABLE.get(), template, arg1, arg2, arg3, args);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pokerproject.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Histogram} that any number of threads record into at once.
+ *
+ * Each thread records into one of a few stripes, picked by thread id, each
+ * an array of atomic counters with the same buckets as a histogram, so
+ * recording is an atomic increment that rarely meets another thread and
+ * never allocates. {@link #snapshot()} adds the stripes up only when
+ * somebody asks; one taken while values are being recorded may miss a few
+ * of them.
+ */
+public final class ConcurrentHistogram {
+
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+    // after the buckets: the sum and the largest value
+    private static final int SUM = Histogram.BUCKETS;
+    private static final int MAX = Histogram.BUCKETS + 1;
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    public ConcurrentHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(Histogram.BUCKETS + 2);
+        }
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        stripe.getAndIncrement(Histogram.bucketOf(value));
+        stripe.getAndAdd(SUM, value);
+        long max;
+        while (value > (max = stripe.get(MAX)) && !stripe.compareAndSet(MAX, max, value)) {
+            // another thread raised it first, look again
+        }
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a {@link System#nanoTime()}
+     * value.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Everything recorded so far, as a histogram of its own.
+     */
+    public Histogram snapshot() {
+        Histogram histogram = new Histogram();
+        for (AtomicLongArray stripe : stripes) {
+            for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++) {
+                long n = stripe.get(bucket);
+                if (n != 0) {
+                    histogram.add(bucket, n);
+                }
+            }
+            histogram.addTotals(stripe.get(SUM), stripe.get(MAX));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,127 @@
+package com.pokerproject.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non-negative longs, e.g. latencies in nanoseconds.
+ *
+ * Values below 64 get a bucket each; above that every power of two is split
+ * into 32 buckets, so a percentile is reported within about 3% of the value
+ * that was recorded. Recording is an array increment and never allocates.
+ *
+ * Not thread-safe: give each thread its own histogram and {@link #add} them
+ * together when reporting, or record into a {@link ConcurrentHistogram}.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    static final int BUCKETS = SUB_BUCKETS * (63 - SUB_BUCKET_BITS) + SUB_BUCKETS * 2;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds every value recorded by {@code other} to this histogram.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Adds {@code n} values that fell into {@code bucket}; their sum and
+     * largest value go in through {@link #addTotals}.
+     */
+    void add(int bucket, long n) {
+        counts[bucket] += n;
+        count += n;
+    }
+
+    /**
+     * Adds values, already counted by {@link #add}, that came to
+     * {@code sum}, the largest being {@code max}.
+     */
+    void addTotals(long sum, long max) {
+        this.sum += sum;
+        this.max = Math.max(this.max, max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Smallest recorded value that {@code percentile} percent of the values
+     * are at or below, rounded up to the top of its bucket; 0 when empty.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * shift + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.pokerproject.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Percentiles of a latency {@link Histogram} in microseconds, as JMX
+ * clients see them.
+ */
+public final class LatencySummary {
+
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public LatencySummary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Summarizes a histogram of nanoseconds.
+     */
+    public static LatencySummary of(Histogram nanos) {
+        return new LatencySummary(nanos.getCount(), nanos.getMean() / 1000,
+                nanos.getValueAtPercentile(50) / 1000, nanos.getValueAtPercentile(90) / 1000,
+                nanos.getValueAtPercentile(99) / 1000, nanos.getValueAtPercentile(99.9) / 1000,
+                nanos.getMax() / 1000);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
@@ -17,6 +17,14 @@ public class Card implements Comparable<Card>{
         return suit;
     }
 
+    public int toIndex() {
+        return CardCodec.index(this);
+    }
+
+    public static Card fromIndex(int index) {
+        return CardCodec.toCard(index);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
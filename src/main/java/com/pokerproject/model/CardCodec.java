@@ -0,0 +1,97 @@
+package com.pokerproject.model;
+
+import java.util.List;
+
+/**
+ * Primitive encodings of {@link Card}.
+ *
+ * <ul>
+ * <li>index: {@code suit.ordinal() * 13 + rank.ordinal()}, 0-51, in the same
+ * order a fresh {@link Deck} is built</li>
+ * <li>mask: a {@code long} with bit {@code index} set for every card in a
+ * set, the layout {@link HandEvaluator} expects</li>
+ * <li>packed: {@code xxxbbbbb bbbbbbbb cdhsrrrr xxpppppp} with one bit for the
+ * rank (b), one bit for the suit (cdhs), the rank ordinal (r) and the rank's
+ * prime (p)</li>
+ * </ul>
+ */
+public final class CardCodec {
+
+    public static final int DECK_SIZE = 52;
+    public static final int RANKS = 13;
+    public static final long FULL_DECK = (1L << DECK_SIZE) - 1;
+
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41};
+
+    // cards are immutable so every index maps to one shared instance
+    private static final Card[] CARDS = new Card[DECK_SIZE];
+    private static final int[] PACKED = new int[DECK_SIZE];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                int index = index(rank, suit);
+                CARDS[index] = new Card(rank, suit);
+                PACKED[index] = (1 << (16 + rank.ordinal()))
+                        | (1 << (12 + suit.ordinal()))
+                        | (rank.ordinal() << 8)
+                        | PRIMES[rank.ordinal()];
+            }
+        }
+    }
+
+    private CardCodec() {
+    }
+
+    public static int index(Rank rank, Suit suit) {
+        return suit.ordinal() * RANKS + rank.ordinal();
+    }
+
+    public static int index(Card card) {
+        return index(card.getValue(), card.getSuit());
+    }
+
+    public static Card toCard(int index) {
+        return CARDS[index];
+    }
+
+    public static int rankOrdinal(int index) {
+        return index % RANKS;
+    }
+
+    public static int suitOrdinal(int index) {
+        return index / RANKS;
+    }
+
+    public static int packed(int index) {
+        return PACKED[index];
+    }
+
+    public static long bit(int index) {
+        return 1L << index;
+    }
+
+    public static long mask(Card card) {
+        return bit(index(card));
+    }
+
+    public static long mask(List<Card> cards) {
+        long mask = 0L;
+        for (int i = 0; i < cards.size(); i++) {
+            mask |= mask(cards.get(i));
+        }
+        return mask;
+    }
+
+    public static long mask(int[] indexes, int count) {
+        long mask = 0L;
+        for (int i = 0; i < count; i++) {
+            mask |= bit(indexes[i]);
+        }
+        return mask;
+    }
+
+    public static int count(long mask) {
+        return Long.bitCount(mask);
+    }
+}
@@ -1,57 +1,101 @@
 package com.pokerproject.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
+/**
+ * 52 card indexes (see {@link CardCodec}) in a fixed array. Cards before
+ * {@code position} have been dealt; dealing only moves the cursor and
+ * shuffling is an in-place Fisher-Yates over the undealt cards.
+ *
+ * A deck belongs to a single {@link Game} and is not thread-safe.
+ */
 public class Deck {
-    private final List<Card> cards;
-    private transient final Random random;
+    private final byte[] cards;
+    private int position;
+    private transient long remainingMask;
+    private transient final RandomGenerator random;
 
     public Deck() {
-        this.cards = new ArrayList<>(52);
-        this.random = new Random();
+        this(new Random());
+    }
+
+    /**
+     * @param random source for {@link #shuffle()}, e.g. a SplittableRandom or
+     *               Xoshiro generator for simulations, a SecureRandom for
+     *               real-money tables
+     */
+    public Deck(RandomGenerator random) {
+        this.cards = new byte[CardCodec.DECK_SIZE];
+        this.random = random;
         initializeDeck();
     }
 
     private void initializeDeck() {
-        cards.clear();
-        for (Suit suit : Suit.values()) {
-            for (Rank rank : Rank.values()) {
-                cards.add(new Card(rank, suit));
-            }
+        for (int index = 0; index < CardCodec.DECK_SIZE; index++) {
+            cards[index] = (byte) index;
+        }
+        position = 0;
+        remainingMask = CardCodec.FULL_DECK;
+    }
+
+    public void shuffle() {
+        for (int i = cards.length - 1; i > position; i--) {
+            int j = position + random.nextInt(i - position + 1);
+            byte card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
         }
     }
 
-    public synchronized void shuffle() {
-        Collections.shuffle(cards, random);
+    /**
+     * Deals the next card as a {@link CardCodec} index, or -1 when the deck
+     * is empty.
+     */
+    public int dealCardIndex() {
+        if (position == cards.length) {
+            return -1;
+        }
+        int index = cards[position++];
+        remainingMask &= ~CardCodec.bit(index);
+        return index;
     }
 
-    public synchronized Card dealCard() {
-        if (cards.isEmpty()) {
+    public Card dealCard() {
+        int index = dealCardIndex();
+        if (index < 0) {
             return null;
         }
-        return cards.remove(0);
+        return CardCodec.toCard(index);
+    }
+
+    public int getRemainingCount() {
+        return cards.length - position;
     }
 
-    public synchronized void dealCardsFromPosition(List<Player> players, int startingPlayerIndex, int cardsPerPlayer) {
+    public long getRemainingMask() {
+        return remainingMask;
+    }
+
+    public void dealCardsFromPosition(List<Player> players, int startingPlayerIndex, int cardsPerPlayer) {
         if (players == null || players.isEmpty()) {
             return;
         }
-        
+
         int playerCount = players.size();
         startingPlayerIndex = startingPlayerIndex % playerCount;
 
         for (Player player : players) {
             player.clearCards();
         }
-        
+
         for (int round = 0; round < cardsPerPlayer; round++) {
             for (int i = 0; i < playerCount; i++) {
                 int playerIndex = (startingPlayerIndex + i) % playerCount;
                 Player player = players.get(playerIndex);
-                
+
                 Card card = dealCard();
                 if (card != null) {
                     player.addCard(card);
@@ -60,7 +104,38 @@ public class Deck {
         }
     }
 
-    public synchronized void reset() {
+    public void reset() {
         initializeDeck();
     }
+
+    /**
+     * The position and all 52 cards in order, dealt ones included.
+     */
+    void writeTo(ByteBuffer out) {
+        out.put((byte) position);
+        out.put(cards);
+    }
+
+    void readFrom(ByteBuffer in) {
+        int dealt = WireCodec.readByte(in);
+        if (dealt > cards.length || in.remaining() < cards.length) {
+            throw new IllegalArgumentException("Truncated deck");
+        }
+        in.get(cards);
+        long seen = 0;
+        for (byte card : cards) {
+            if (card < 0 || card >= CardCodec.DECK_SIZE) {
+                throw new IllegalArgumentException("Bad card " + card);
+            }
+            seen |= CardCodec.bit(card);
+        }
+        if (seen != CardCodec.FULL_DECK) {
+            throw new IllegalArgumentException("Deck is not a permutation");
+        }
+        position = dealt;
+        remainingMask = CardCodec.FULL_DECK;
+        for (int i = 0; i < position; i++) {
+            remainingMask &= ~CardCodec.bit(cards[i]);
+        }
+    }
 }
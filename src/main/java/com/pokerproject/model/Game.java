@@ -1,13 +1,34 @@
 package com.pokerproject.model;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
-
+import java.util.RandomAccess;
+import java.util.random.RandomGenerator;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * One table. Players sit in a fixed array of {@link #MAX_PLAYERS} seats,
+ * packed from seat 0 in join order so that seat numbers are the indexes of
+ * {@link #getPlayers()}. Chips, bets and roles are kept per seat in
+ * primitive arrays and the players still in the hand in a bitmask, so an
+ * action finds players and the next seat to act without scanning or
+ * allocating.
+ *
+ * Every chip a seat puts in during a hand is also added to its
+ * contribution. At showdown the pot is cut into a main pot and side pots at
+ * each all-in level, and each pot goes to the best hand among the players
+ * still in who paid into it.
+ */
 public class Game {
 
+    private static final Logger LOG = Logger.get(Game.class);
+
     public enum Round {
         PREFLOP, FLOP, TURN, RIVER, SHOWDOWN
     }
@@ -20,29 +41,58 @@ public class Game {
         WAITING, PLAYING
     }
 
+    static final int MAX_PLAYERS = 8;
+    // seatRoles bits
+    static final int DEALER = 1;
+    static final int SMALL_BLIND = 1 << 1;
+    static final int BIG_BLIND = 1 << 2;
+
     private final String gameId;
-    private final List<Player> players;
-    private final Deck deck;
+    private final Player[] seats = new Player[MAX_PLAYERS];
+    private int seatCount;
+    // read by the seated Players
+    final int[] seatChips = new int[MAX_PLAYERS];
+    final byte[] seatRoles = new byte[MAX_PLAYERS];
+    private final int[] seatBets = new int[MAX_PLAYERS];
+    // chips each seat put in this hand, across all rounds
+    private final int[] seatContributed = new int[MAX_PLAYERS];
+    // hand strengths at showdown, each evaluated once for every pot
+    private transient final int[] seatStrength = new int[MAX_PLAYERS];
+    // bit i is set while seat i is still in the hand
+    private int activeSeats;
+    // seats in the hand with no chips left to bet
+    private int allInSeats;
+    private transient final List<Player> players = new SeatList();
+    // never serialized: the undealt cards are the one thing no client may see
+    private transient final Deck deck;
+    private transient final RandomGenerator random;
     private int dealerPosition;
     private int currentPlayerIndex;
     private final int smallBlindAmount;
     private final int bigBlindAmount;
     private Round currentRound;
     private List<Card> communityCards;
+    private transient long communityMask;
     private int pot;
     private int currentBet;
-    private Player lastRaiser;
-    private final Map<String, Integer> playerBets = new HashMap<>();
+    private int lastRaiserSeat = -1;
     private State state;
     private boolean isAllFolded;
     private Player winner;
+    // hands dealt at this table so far
+    private long handNumber;
+    private transient HandObserver handObserver;
 
-    private static final int MAX_PLAYERS = 8;
+    private static final HandEvaluator handEvaluator = LookupHandEvaluator.getInstance();
 
     public Game(String gameId, int smallBlindAmount, int bigBlindAmount) {
+        this(gameId, smallBlindAmount, bigBlindAmount, new Random());
+    }
+
+    public Game(String gameId, int smallBlindAmount, int bigBlindAmount, RandomGenerator random) {
         this.gameId = gameId;
-        this.players = new ArrayList<>();
-        this.deck = new Deck();
+        this.random = random;
+        this.deck = new Deck(random);
         this.smallBlindAmount = smallBlindAmount;
         this.bigBlindAmount = bigBlindAmount;
         this.communityCards = new ArrayList<>();
@@ -56,6 +106,7 @@ public class Game {
 
     public void setCommunityCards(List<Card> communityCards) {
         this.communityCards = communityCards;
+        this.communityMask = CardCodec.mask(communityCards);
     }
 
     public int getCurrentPlayerIndex() {
@@ -67,15 +118,27 @@ public class Game {
     }
 
     public boolean addPlayer(Player player) {
-        if (players.size() < MAX_PLAYERS ) {
-            players.add(player);
+        if (seatCount < MAX_PLAYERS) {
+            seats[seatCount] = player;
+            player.sitAt(this, seatCount);
+            seatCount++;
             return true;
         }
         return false;
     }
 
     public void removePlayer(Player player) {
-        players.remove(player);
+        if (player.game == this) {
+            removeSeat(player.seat);
+        }
+    }
+
+    /**
+     * Sets the observer told about every hand from the next one on, or
+     * removes it with null.
+     */
+    public void setHandObserver(HandObserver handObserver) {
+        this.handObserver = handObserver;
     }
 
     public Deck getDeck(){
@@ -83,7 +146,99 @@ public class Game {
     }
 
     public boolean removePlayerByName(String name) {
-        return players.removeIf(p -> p.getName().equals(name));
+        int seat = seatOf(name);
+        if (seat < 0) {
+            return false;
+        }
+        removeSeat(seat);
+        return true;
+    }
+
+    /**
+     * Frees a seat and moves the seats after it down by one, keeping them
+     * packed the way the player list always was.
+     */
+    private void removeSeat(int seat) {
+        seats[seat].standUp();
+        int moved = seatCount - seat - 1;
+        System.arraycopy(seats, seat + 1, seats, seat, moved);
+        System.arraycopy(seatChips, seat + 1, seatChips, seat, moved);
+        System.arraycopy(seatBets, seat + 1, seatBets, seat, moved);
+        System.arraycopy(seatRoles, seat + 1, seatRoles, seat, moved);
+        System.arraycopy(seatContributed, seat + 1, seatContributed, seat, moved);
+        seatCount--;
+        seats[seatCount] = null;
+        seatChips[seatCount] = 0;
+        seatBets[seatCount] = 0;
+        seatRoles[seatCount] = 0;
+        seatContributed[seatCount] = 0;
+        activeSeats = removeBit(activeSeats, seat);
+        allInSeats = removeBit(allInSeats, seat);
+        for (int i = seat; i < seatCount; i++) {
+            seats[i].seat = i;
+        }
+        if (lastRaiserSeat == seat) {
+            lastRaiserSeat = -1;
+        } else if (lastRaiserSeat > seat) {
+            lastRaiserSeat--;
+        }
+    }
+
+    private static int removeBit(int mask, int bit) {
+        return (mask & ((1 << bit) - 1)) | ((mask >>> (bit + 1)) << bit);
+    }
+
+    private int seatOf(String name) {
+        for (int i = 0; i < seatCount; i++) {
+            if (seats[i].getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    boolean isSeatActive(int seat) {
+        return (activeSeats & (1 << seat)) != 0;
+    }
+
+    void setSeatActive(int seat, boolean active) {
+        if (active) {
+            activeSeats |= 1 << seat;
+        } else {
+            activeSeats &= ~(1 << seat);
+        }
+    }
+
+    boolean hasRole(int seat, int role) {
+        return (seatRoles[seat] & role) != 0;
+    }
+
+    void setRole(int seat, int role, boolean on) {
+        seatRoles[seat] = (byte) (on ? seatRoles[seat] | role : seatRoles[seat] & ~role);
+    }
+
+    /**
+     * Moves {@code amount} chips from a seat into the pot, or its whole stack
+     * if it has less, and returns what it paid. A seat left without chips is
+     * all-in for the rest of the hand.
+     */
+    int putInPot(int seat, int amount) {
+        int paid = Math.min(Math.max(amount, 0), seatChips[seat]);
+        seatChips[seat] -= paid;
+        seatBets[seat] += paid;
+        seatContributed[seat] += paid;
+        pot += paid;
+        if (seatChips[seat] == 0) {
+            allInSeats |= 1 << seat;
+        }
+        return paid;
+    }
+
+    /**
+     * Seats still in the hand that can bet.
+     */
+    private int actingSeats() {
+        return activeSeats & ~allInSeats;
     }
 
     public List<Player> getPlayers() {
@@ -91,7 +246,12 @@ public class Game {
     }
 
     public Player getCreaterPlayer() {
-        return players.stream().filter(p -> p.isCreater).findFirst().orElse(null);
+        for (int i = 0; i < seatCount; i++) {
+            if (seats[i].isCreater) {
+                return seats[i];
+            }
+        }
+        return null;
     }
 
     public String getGameId() {
@@ -99,11 +259,17 @@ public class Game {
     }
 
     public boolean isPlayerNameExists(String name) {
-        return players.stream().anyMatch(player -> player.getName().equalsIgnoreCase(name));
+        for (int i = 0; i < seatCount; i++) {
+            if (seats[i].getName().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public Player getPlayerByName(String name) {
-        return players.stream().filter(p -> p.getName().equals(name)).findFirst().orElse(null);
+        int seat = seatOf(name);
+        return seat < 0 ? null : seats[seat];
     }
 
     public void setState(State state){
@@ -115,12 +281,11 @@ public class Game {
     }
 
     public void initializeFirstDealer() {
-        if (players.isEmpty()) {
+        if (seatCount == 0) {
             return;
         }
 
-        Random random = new Random();
-        dealerPosition = random.nextInt(players.size());
+        dealerPosition = random.nextInt(seatCount);
 
         assignPositions();
 
@@ -129,24 +294,22 @@ public class Game {
     }
 
     private void assignPositions() {
-        for (Player player : players) {
-            player.resetRoles();
-        }
+        Arrays.fill(seatRoles, (byte) 0);
 
-        int playerCount = players.size();
+        int playerCount = seatCount;
 
-        players.get(dealerPosition).setDealer(true);
+        setRole(dealerPosition, DEALER, true);
 
         int smallBlindPosition = (dealerPosition + 1) % playerCount;
-        players.get(smallBlindPosition).setSmallBlind(true);
+        setRole(smallBlindPosition, SMALL_BLIND, true);
 
         int bigBlindPosition = (smallBlindPosition + 1) % playerCount;
-        players.get(bigBlindPosition).setBigBlind(true);
-        setCurrentPlayerIndex((bigBlindPosition + 1) % players.size());
+        setRole(bigBlindPosition, BIG_BLIND, true);
+        setCurrentPlayerIndex((bigBlindPosition + 1) % playerCount);
     }
 
     public void rotateDealer() {
-        dealerPosition = (dealerPosition + 1) % players.size();
+        dealerPosition = (dealerPosition + 1) % seatCount;
         assignPositions();
     }
 
@@ -157,48 +320,56 @@ public class Game {
 
         pot = 0;
         currentBet = 0;
-        lastRaiser = null;
+        lastRaiserSeat = -1;
         isAllFolded = false;
         communityCards.clear();
-        playerBets.clear(); 
+        communityMask = 0L;
+        Arrays.fill(seatBets, 0);
+        Arrays.fill(seatContributed, 0);
+        allInSeats = 0;
 
+        handNumber++;
         deck.reset();
         deck.shuffle();
 
-        for (Player player : players) {
-            player.clearCards();
-            player.setIsActive(true);
+        for (int i = 0; i < seatCount; i++) {
+            seats[i].clearCards();
+            // busted players are dealt in but cannot bet or win anything
+            if (seatChips[i] == 0) {
+                allInSeats |= 1 << i;
+            }
         }
+        activeSeats = (1 << seatCount) - 1;
 
         collectBlinds();
 
         currentRound = Round.PREFLOP;
 
-        int smallBlindPosition = (dealerPosition + 1) % players.size();
+        int smallBlindPosition = (dealerPosition + 1) % seatCount;
         deck.dealCardsFromPosition(players, smallBlindPosition, 2);
 
-        int bigBlindPosition = (smallBlindPosition + 1) % players.size();
+        int bigBlindPosition = (smallBlindPosition + 1) % seatCount;
         // currentPlayerIndex = (bigBlindPosition + 1) % players.size();
-        setCurrentPlayerIndex((bigBlindPosition + 1) % players.size());
+        // skipping anyone the blinds put all-in
+        int firstToAct = (bigBlindPosition + 1) % seatCount;
+        setCurrentPlayerIndex(firstActiveSeat(firstToAct, firstToAct));
+
+        if (handObserver != null) {
+            handObserver.handStarted(this);
+        }
     }
 
     private void collectBlinds() {
-        for (Player player : players) {
-            if (player.isSmallBlind()) {
-                int amount = Math.min(smallBlindAmount, player.getChips());
-                player.removeChips(amount);
-                pot += amount;
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (hasRole(seat, SMALL_BLIND)) {
+                putInPot(seat, smallBlindAmount);
                 // currentBet = smallBlindAmount;
-                playerBets.put(player.getName(), amount);
             }
 
-            if (player.isBigBlind()) {
-                int amount = Math.min(bigBlindAmount, player.getChips());
-                player.removeChips(amount);
-                pot += amount;
+            if (hasRole(seat, BIG_BLIND)) {
+                putInPot(seat, bigBlindAmount);
                 // currentBet = bigBlindAmount;
-                lastRaiser = player;
-                playerBets.put(player.getName(), amount);
+                lastRaiserSeat = seat;
             }
         }
         currentBet = bigBlindAmount;
@@ -209,72 +380,75 @@ public class Game {
             return false;
         }
 
+        int seat = player.seat;
+        int paid = 0;
         switch (action) {
             case FOLD:
-                player.setIsActive(false);
+                setSeatActive(seat, false);
                 break;
 
             case CHECK:
                 break;
 
             case CALL:
-                int callAmount = currentBet - getPlayerBet(player);
+                // short stacks call all-in for what they have
+                int callAmount = currentBet - seatBets[seat];
                 if (callAmount > 0) {
-                    callAmount = Math.min(callAmount, player.getChips());
-                    player.removeChips(callAmount);
-                    pot += callAmount;
-                    playerBets.put(player.getName(), getPlayerBet(player) + callAmount);
+                    paid = putInPot(seat, callAmount);
                 }
                 break;
             
             case BET:
-                player.removeChips(amount);
-                pot += amount;
-                currentBet = amount;
-                lastRaiser = player;
-                playerBets.put(player.getName(), amount);
+                paid = putInPot(seat, amount);
+                raiseToSeatBet(seat);
                 break;
 
             case RAISE:
-                int playerCurrentBet = getPlayerBet(player);
+                int playerCurrentBet = seatBets[seat];
                 int raiseAmount = amount - playerCurrentBet;
-                player.removeChips(raiseAmount);
-                pot += raiseAmount;
-                playerBets.put(player.getName(), amount);
-                currentBet = amount;
-                lastRaiser = player;
+                paid = putInPot(seat, raiseAmount);
+                raiseToSeatBet(seat);
                 break;
             case NEXT:
                 break;
         }
 
+        if (handObserver != null && action != Action.NEXT) {
+            handObserver.playerActed(this, player, action, paid);
+        }
+
         if(action != Action.NEXT) {
-            System.out.println("MOVE TO NEXT PLAYER");
+            LOG.debug("Moving to the next player after {}", action);
             moveToNextPlayer();
         }
 
         if (isRoundComplete() || action == Action.NEXT) {
-            System.out.println("IN ADVANCE TO NEXT ROUND");
+            LOG.debug("Round complete after {}", action);
             advanceToNextRound();
         }
 
         return true;
     }
 
+    /**
+     * After a bet or raise, which is capped at the seat's stack: only one
+     * that goes over the current bet reopens the betting.
+     */
+    private void raiseToSeatBet(int seat) {
+        if (seatBets[seat] > currentBet) {
+            currentBet = seatBets[seat];
+            lastRaiserSeat = seat;
+        }
+    }
+
     private void moveToNextPlayer() {
 
-        if (getUnfoldPlayer().size() <= 1) {
+        if (Integer.bitCount(activeSeats) <= 1) {
             isAllFolded = true;
             return;
         }
 
-        int totalPlayers = players.size();
-        int count = 0;
-
-        do {
-            this.setCurrentPlayerIndex((getCurrentPlayerIndex() + 1) % totalPlayers);
-            count++;
-        } while (!players.get(getCurrentPlayerIndex()).getIsActive() && count < totalPlayers);
+        setCurrentPlayerIndex(getNextActivePlayerIndex(getCurrentPlayerIndex()));
     }
 
     private boolean isRoundComplete() {
@@ -290,13 +464,17 @@ public class Game {
             return false;
         }
 
-        if (lastRaiser == null || !lastRaiser.getIsActive()) {
+        // everybody else is all-in or folded, there is nobody to bet against
+        if (Integer.bitCount(actingSeats()) <= 1) {
+            return true;
+        }
+
+        if (lastRaiserSeat < 0 || !isSeatActive(lastRaiserSeat)) {
             int startingPlayerIndex = getNextActivePlayerIndex(dealerPosition);
             boolean positionMatch = getCurrentPlayerIndex() == startingPlayerIndex;
             return positionMatch;
         } else {
-            int lastRaiserIndex = players.indexOf(lastRaiser);
-            int nextActivePlayerIndex = getNextActivePlayerIndex(lastRaiserIndex);
+            int nextActivePlayerIndex = getNextActivePlayerIndex(lastRaiserSeat);
             boolean positionMatch = getCurrentPlayerIndex() == nextActivePlayerIndex;
             return positionMatch;
         }
@@ -304,140 +482,171 @@ public class Game {
 
     private boolean hasEveryoneMaturedCurrentBet() {
         
-        for (Player player : players) {
-            if (player.getIsActive()) {
-                int playerBetAmount = getPlayerBet(player);
-                
-                if (playerBetAmount < currentBet && player.getChips() > 0) {
-                    return false;
-                }
+        for (int active = activeSeats; active != 0; active &= active - 1) {
+            int seat = Integer.numberOfTrailingZeros(active);
+            if (seatBets[seat] < currentBet && seatChips[seat] > 0) {
+                return false;
             }
         }
         return true;
     }
 
     private int getNextActivePlayerIndex(int fromIndex) {
-        int index = fromIndex;
-        int totalPlayers = players.size();
-        int count = 0;
-
-        do {
-            index = (index + 1) % totalPlayers;
-            count++;
-        } while (!players.get(index).getIsActive() && count < totalPlayers);
-
-        return index;
-    }
-
-
-    private PokerHand findBestHand(List<Card> cards) {
-        PokerHand bestHand = null;
-        for (int a = 0; a < cards.size() - 4; a++) {
-            for (int b = a + 1; b < cards.size() - 3; b++) {
-                for (int c = b + 1; c < cards.size() - 2; c++) {
-                    for (int d = c + 1; d < cards.size() - 1; d++) {
-                        for (int e = d + 1; e < cards.size(); e++) {
-                            List<Card> combination = new ArrayList<>();
-                            combination.add(cards.get(a));
-                            combination.add(cards.get(b));
-                            combination.add(cards.get(c));
-                            combination.add(cards.get(d));
-                            combination.add(cards.get(e));
-
-                            PokerHand hand = new PokerHand(combination);
-
-                            if (bestHand == null || hand.compareTo(bestHand) > 0) {
-                                bestHand = hand;
-                            }
-                        }
-                    }
-                }
-            }
+        return firstActiveSeat((fromIndex + 1) % seatCount, fromIndex % seatCount);
+    }
+
+    /**
+     * First seat at or after {@code start}, wrapping around, that is still
+     * in the hand and not all-in, or {@code none} if there is no such seat.
+     */
+    private int firstActiveSeat(int start, int none) {
+        int acting = actingSeats();
+        int atOrAfter = acting & (-1 << start);
+        if (atOrAfter != 0) {
+            return Integer.numberOfTrailingZeros(atOrAfter);
         }
-        return bestHand;
+        return acting != 0 ? Integer.numberOfTrailingZeros(acting) : none;
     }
 
-    private List<Player> getUnfoldPlayer(){
-        List<Player> unFoldPlayers = new ArrayList<>();
-        for (Player player : players) {
-            if (player.getIsActive() == true) {
-                unFoldPlayers.add(player);
-            }
-        }
-        return unFoldPlayers;
+
+    private int findBestHand(Player player) {
+        return handEvaluator.evaluate7(player.getHoleCardMask() | communityMask);
     }
 
-    private void determineWinner() {
+    // package-private so the showdown can be benchmarked on its own
+    void determineWinner() {
         this.winner = null;
         
         if (isAllFolded) {
-            List<Player> winners = getUnfoldPlayer();
-            if(winners.size() == 1){
-                winners.get(0).addChips(pot);
+            if (Integer.bitCount(activeSeats) == 1) {
+                int seat = Integer.numberOfTrailingZeros(activeSeats);
+                seatChips[seat] += pot;
                 pot = 0;
-                this.winner = winners.get(0);
+                this.winner = seats[seat];
                 isAllFolded = false;
+                Arrays.fill(seatContributed, 0);
                 return;
             }
         }
 
-
-        Map<Player, PokerHand> playerHands = new HashMap<>();
-
-        for (Player player : players) {
-            if (!player.getIsActive()) continue;
-
-            List<Card> allCards = new ArrayList<>(player.getHoleCards());
-            allCards.addAll(communityCards);
-            PokerHand bestHand = findBestHand(allCards);
-            playerHands.put(player, bestHand);
+        for (int active = activeSeats; active != 0; active &= active - 1) {
+            int seat = Integer.numberOfTrailingZeros(active);
+            seatStrength[seat] = findBestHand(seats[seat]);
         }
 
-        Player winnerLocal = null;
-        PokerHand bestHand = null;
+        int mainPotWinners = settlePots();
+        if (mainPotWinners == 0) {
+            mainPotWinners = bestHands(activeSeats);
+        }
+        if (mainPotWinners != 0) {
+            this.winner = seats[Integer.numberOfTrailingZeros(mainPotWinners)];
+        }
+    }
 
-        for (Map.Entry<Player, PokerHand> entry : playerHands.entrySet()) {
-            if (bestHand == null || entry.getValue().compareTo(bestHand) > 0) {
-                winnerLocal = entry.getKey();
-                bestHand = entry.getValue();
+    /**
+     * Cuts the pot at every distinct contribution, lowest first: each layer
+     * is what the seats that put in at least that much paid between the
+     * previous level and this one, and goes to the best hands still in among
+     * them. A layer nobody still in paid into goes to the winners of the
+     * layer below. Returns the seats that won the main pot.
+     */
+    private int settlePots() {
+        int contributors = 0;
+        int contributed = 0;
+        for (int seat = 0; seat < seatCount; seat++) {
+            if (seatContributed[seat] > 0) {
+                contributors |= 1 << seat;
+                contributed += seatContributed[seat];
             }
         }
+        // chips of players who left during the hand go to the main pot
+        int deadMoney = pot - contributed;
+
+        int mainPotWinners = 0;
+        int previousWinners = 0;
+        int level = 0;
+        while (contributors != 0) {
+            int nextLevel = Integer.MAX_VALUE;
+            for (int c = contributors; c != 0; c &= c - 1) {
+                nextLevel = Math.min(nextLevel, seatContributed[Integer.numberOfTrailingZeros(c)]);
+            }
+            int amount = (nextLevel - level) * Integer.bitCount(contributors);
+            if (level == 0) {
+                amount += deadMoney;
+            }
 
-        List<Player> tiedWinners = new ArrayList<>();
-        if (winnerLocal != null) {
-            tiedWinners.add(winnerLocal);
+            int winners = bestHands(contributors & activeSeats);
+            if (winners == 0) {
+                winners = previousWinners != 0 ? previousWinners : bestHands(activeSeats);
+            }
+            if (winners != 0) {
+                award(winners, amount);
+                pot -= amount;
+            }
+            if (mainPotWinners == 0) {
+                mainPotWinners = winners;
+            }
+            previousWinners = winners;
 
-            for (Map.Entry<Player, PokerHand> entry : playerHands.entrySet()) {
-                if (entry.getKey() != winnerLocal && entry.getValue().compareTo(bestHand) == 0) {
-                    tiedWinners.add(entry.getKey());
+            for (int c = contributors; c != 0; c &= c - 1) {
+                int seat = Integer.numberOfTrailingZeros(c);
+                if (seatContributed[seat] == nextLevel) {
+                    contributors &= ~(1 << seat);
                 }
             }
-
-            int splitAmount = pot / tiedWinners.size();
-            int remainder = pot % tiedWinners.size();
-
-            for (int i = 0; i < tiedWinners.size(); i++) {
-                int extra = (i < remainder) ? 1 : 0;
-                tiedWinners.get(i).addChips(splitAmount + extra);
+            level = nextLevel;
+        }
+        Arrays.fill(seatContributed, 0);
+        return mainPotWinners;
+    }
+
+    /**
+     * The seats of {@code candidates} sharing the best {@link #seatStrength}.
+     */
+    private int bestHands(int candidates) {
+        int bestStrength = 0;
+        int best = 0;
+        for (int c = candidates; c != 0; c &= c - 1) {
+            int seat = Integer.numberOfTrailingZeros(c);
+            int strength = seatStrength[seat];
+            if (best == 0 || strength > bestStrength) {
+                bestStrength = strength;
+                best = 1 << seat;
+            } else if (strength == bestStrength) {
+                best |= 1 << seat;
             }
-
-            tiedWinners.add(winnerLocal);
-            this.winner = winnerLocal;
-            
-        pot = 0;
-
+        }
+        return best;
+    }
+
+    /**
+     * Splits chips evenly between the winners, the odd chips going one each
+     * to the lowest seats.
+     */
+    private void award(int winners, int amount) {
+        int winnerCount = Integer.bitCount(winners);
+        int splitAmount = amount / winnerCount;
+        int remainder = amount % winnerCount;
+
+        int i = 0;
+        for (int w = winners; w != 0; w &= w - 1, i++) {
+            int extra = (i < remainder) ? 1 : 0;
+            seatChips[Integer.numberOfTrailingZeros(w)] += splitAmount + extra;
         }
     }
 
     private void advanceToNextRound() {
-        System.out.println("Advancing to next round: " + currentRound);
+        LOG.debug("Advancing from {}", currentRound);
         currentBet = 0;
-        lastRaiser = null;
-        playerBets.clear();
+        lastRaiserSeat = -1;
+        Arrays.fill(seatBets, 0);
 
         if(isAllFolded){
             currentRound = Round.RIVER;
-            System.out.println("Advancing AllFolded: " + currentRound);
+            LOG.debug("All but one folded, skipping to {}", currentRound);
+        } else if (currentRound != Round.SHOWDOWN && Integer.bitCount(actingSeats()) <= 1) {
+            // the rest are all-in, no more betting: deal out the board
+            runOutBoard();
         }
 
         switch (currentRound) {
@@ -459,6 +668,9 @@ public class Game {
             case RIVER:
                 currentRound = Round.SHOWDOWN;
                 determineWinner();
+                if (handObserver != null) {
+                    handObserver.handFinished(this);
+                }
                 break;
 
             case SHOWDOWN:
@@ -467,35 +679,56 @@ public class Game {
         }
 
         if (currentRound != Round.SHOWDOWN) {
-            setCurrentPlayerIndex((dealerPosition + 1) % players.size());
-            int totalPlayers = players.size();
-            int count = 0;
+            int start = (dealerPosition + 1) % seatCount;
 
             // หา player ที่ active คนถัดไป
-            while (!players.get(getCurrentPlayerIndex()).getIsActive() && count < totalPlayers) {;
-                setCurrentPlayerIndex((getCurrentPlayerIndex() + 1) % totalPlayers);
-                count++;
-            }
+            setCurrentPlayerIndex(firstActiveSeat(start, start));
         }
     }
 
 
+    private void runOutBoard() {
+        switch (currentRound) {
+            case PREFLOP:
+                dealFlop();
+                // fall through
+            case FLOP:
+                dealTurn();
+                // fall through
+            case TURN:
+                dealRiver();
+                break;
+            default:
+                break;
+        }
+        currentRound = Round.RIVER;
+    }
+
     private void dealFlop() {
         deck.dealCard();
         for (int i = 0; i < 3; i++) {
-            communityCards.add(deck.dealCard());
+            addCommunityCard(deck.dealCard());
         }
     }
 
     private void dealTurn() {
         deck.dealCard();
-        communityCards.add(deck.dealCard());
+        addCommunityCard(deck.dealCard());
     }
 
     private void dealRiver() {
         deck.dealCard();
 
-        communityCards.add(deck.dealCard());
+        addCommunityCard(deck.dealCard());
+    }
+
+    private void addCommunityCard(Card card) {
+        communityCards.add(card);
+        communityMask |= CardCodec.mask(card);
+    }
+
+    public long getCommunityCardMask() {
+        return communityMask;
     }
 
     public Player getCurrentPlayer() {
@@ -511,9 +744,24 @@ public class Game {
     }
 
     public int getPlayerBet(Player player) {
-        return playerBets.getOrDefault(player.getName(), 0);
+        return player.game == this ? seatBets[player.seat] : 0;
     }
 
+    /**
+     * Chips the player has put in during this hand, blinds included.
+     */
+    public int getPlayerContribution(Player player) {
+        return player.game == this ? seatContributed[player.seat] : 0;
+    }
+
+
+    public int getSmallBlindAmount() {
+        return smallBlindAmount;
+    }
+
+    public int getBigBlindAmount() {
+        return bigBlindAmount;
+    }
 
     public int getCurrentBet() {
         return currentBet;
@@ -532,17 +780,151 @@ public class Game {
     }
 
     public Player getSmallBlind() {
-        int smallBlindPosition = (dealerPosition + 1) % players.size();
+        int smallBlindPosition = (dealerPosition + 1) % seatCount;
         return players.get(smallBlindPosition);
     }
 
     public Player getBigBlind() {
-        int smallBlindPosition = (dealerPosition + 1) % players.size();
-        int bigBlindPosition = (smallBlindPosition + 1) % players.size();
+        int smallBlindPosition = (dealerPosition + 1) % seatCount;
+        int bigBlindPosition = (smallBlindPosition + 1) % seatCount;
         return players.get(bigBlindPosition);
     }
 
     public Player getWinner() {
         return winner;
     }
+
+    /**
+     * How many hands have been dealt; goes up by one as each hand starts.
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+
+    /**
+     * Immutable copy of the current state for readers on other threads.
+     * Must be called by the thread that mutates this game.
+     */
+    public GameSnapshot snapshot(long version) {
+        return new GameSnapshot(this, version);
+    }
+
+    /**
+     * Writes everything needed to carry on the game elsewhere, the undealt
+     * cards in their order included, so only ever to trusted storage. Must
+     * be called by the thread that mutates this game. Throws
+     * {@link java.nio.BufferOverflowException} when {@code out} is full.
+     */
+    public void writeState(ByteBuffer out) {
+        WireCodec.writeString(out, gameId);
+        WireCodec.writeInt(out, smallBlindAmount);
+        WireCodec.writeInt(out, bigBlindAmount);
+        out.put((byte) state.ordinal());
+        out.put((byte) currentRound.ordinal());
+        WireCodec.writeVarLong(out, handNumber);
+        WireCodec.writeInt(out, dealerPosition);
+        WireCodec.writeInt(out, currentPlayerIndex);
+        WireCodec.writeInt(out, pot);
+        WireCodec.writeInt(out, currentBet);
+        WireCodec.writeInt(out, lastRaiserSeat);
+        out.put((byte) (isAllFolded ? 1 : 0));
+        WireCodec.writeInt(out, winner == null || winner.game != this ? -1 : winner.seat);
+        WireCodec.writeCards(out, communityCards);
+        out.put((byte) seatCount);
+        out.put((byte) activeSeats);
+        out.put((byte) allInSeats);
+        for (int seat = 0; seat < seatCount; seat++) {
+            Player player = seats[seat];
+            WireCodec.writeString(out, player.getName());
+            WireCodec.writeString(out, player.getReconnectToken());
+            out.put((byte) (player.isCreater ? 1 : 0));
+            WireCodec.writeInt(out, seatChips[seat]);
+            WireCodec.writeInt(out, seatBets[seat]);
+            WireCodec.writeInt(out, seatContributed[seat]);
+            out.put(seatRoles[seat]);
+            WireCodec.writeCards(out, player.getHoleCards());
+        }
+        deck.writeTo(out);
+    }
+
+    /**
+     * Rebuilds a game from {@link #writeState}, its players seated without
+     * a connection. Throws {@link IllegalArgumentException} on malformed
+     * input.
+     */
+    public static Game readState(ByteBuffer in, RandomGenerator random) {
+        Game game = new Game(WireCodec.readString(in), WireCodec.readInt(in), WireCodec.readInt(in), random);
+        game.state = WireCodec.readEnum(in, State.values());
+        game.currentRound = WireCodec.readEnum(in, Round.values());
+        game.handNumber = WireCodec.readVarLong(in);
+        game.dealerPosition = WireCodec.readInt(in);
+        game.currentPlayerIndex = WireCodec.readInt(in);
+        game.pot = WireCodec.readInt(in);
+        game.currentBet = WireCodec.readInt(in);
+        game.lastRaiserSeat = WireCodec.readInt(in);
+        game.isAllFolded = WireCodec.readBoolean(in);
+        int winnerSeat = WireCodec.readInt(in);
+        game.setCommunityCards(new ArrayList<>(WireCodec.readCards(in)));
+        int count = WireCodec.readByte(in);
+        if (count > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Too many seats " + count);
+        }
+        int active = WireCodec.readByte(in);
+        int allIn = WireCodec.readByte(in);
+        for (int seat = 0; seat < count; seat++) {
+            String name = WireCodec.readString(in);
+            String token = WireCodec.readString(in);
+            Player player = new Player(name, null, WireCodec.readBoolean(in));
+            player.setReconnectToken(token);
+            game.addPlayer(player);
+            game.seatChips[seat] = WireCodec.readInt(in);
+            game.seatBets[seat] = WireCodec.readInt(in);
+            game.seatContributed[seat] = WireCodec.readInt(in);
+            game.seatRoles[seat] = (byte) WireCodec.readByte(in);
+            for (Card card : WireCodec.readCards(in)) {
+                player.addCard(card);
+            }
+        }
+        checkSeat("Dealer", game.dealerPosition, count);
+        checkSeat("Current player", game.currentPlayerIndex, count);
+        checkSeat("Last raiser", game.lastRaiserSeat, count);
+        checkSeat("Winner", winnerSeat, count);
+        checkSeats("Active", active, count);
+        checkSeats("All-in", allIn, count);
+        game.activeSeats = active;
+        game.allInSeats = allIn;
+        game.winner = winnerSeat >= 0 ? game.seats[winnerSeat] : null;
+        game.deck.readFrom(in);
+        return game;
+    }
+
+    // -1 or a taken seat; a game nobody sits at yet keeps its initial 0
+    private static void checkSeat(String what, int seat, int count) {
+        if (seat < -1 || seat >= Math.max(count, 1)) {
+            throw new IllegalArgumentException(what + " seat " + seat + " of " + count);
+        }
+    }
+
+    private static void checkSeats(String what, int mask, int count) {
+        if ((mask & ~((1 << count) - 1)) != 0) {
+            throw new IllegalArgumentException(what + " seats " + Integer.toBinaryString(mask) + " of " + count);
+        }
+    }
+
+    /**
+     * The taken seats as a read-only list; no copy is made.
+     */
+    private final class SeatList extends AbstractList<Player> implements RandomAccess {
+
+        @Override
+        public Player get(int index) {
+            Objects.checkIndex(index, seatCount);
+            return seats[index];
+        }
+
+        @Override
+        public int size() {
+            return seatCount;
+        }
+    }
 }
@@ -0,0 +1,404 @@
+package com.pokerproject.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Changes between two {@link GameSnapshot} versions of the same game.
+ *
+ * Only fields that changed are set; everything else is null and left out of
+ * the JSON. A client applies a delta to the snapshot with
+ * {@code baseVersion}; any other version means it missed an update and must
+ * ask for a fresh snapshot.
+ */
+public final class GameDelta {
+    private final long baseVersion;
+    private final long version;
+    private Game.State state;
+    private Game.Round currentRound;
+    private Integer pot;
+    private Integer currentBet;
+    private Integer currentPlayerIndex;
+    private Integer dealerPosition;
+    // "" when the winner was cleared
+    private String winnerName;
+    // board cards from index boardFrom onwards; earlier cards are kept
+    private Integer boardFrom;
+    private List<Card> board;
+    // the whole seat list when players joined or left, otherwise per-seat changes
+    private List<PlayerSnapshot> seats;
+    private List<SeatDelta> seatChanges;
+
+    private GameDelta(long baseVersion, long version) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+    }
+
+    /**
+     * Changes of one seat whose player stayed the same.
+     */
+    public static final class SeatDelta {
+        private final int seat;
+        private Integer chips;
+        private Integer bet;
+        private Boolean isActive;
+        private Boolean isDealer;
+        private Boolean isSmallBlind;
+        private Boolean isBigBlind;
+        private List<Card> holeCards;
+
+        private SeatDelta(int seat) {
+            this.seat = seat;
+        }
+
+        private static SeatDelta diff(int seat, PlayerSnapshot before, PlayerSnapshot after) {
+            SeatDelta delta = new SeatDelta(seat);
+            boolean changed = false;
+            if (before.getChips() != after.getChips()) {
+                delta.chips = after.getChips();
+                changed = true;
+            }
+            if (before.getBet() != after.getBet()) {
+                delta.bet = after.getBet();
+                changed = true;
+            }
+            if (before.getIsActive() != after.getIsActive()) {
+                delta.isActive = after.getIsActive();
+                changed = true;
+            }
+            if (before.isDealer() != after.isDealer()) {
+                delta.isDealer = after.isDealer();
+                changed = true;
+            }
+            if (before.isSmallBlind() != after.isSmallBlind()) {
+                delta.isSmallBlind = after.isSmallBlind();
+                changed = true;
+            }
+            if (before.isBigBlind() != after.isBigBlind()) {
+                delta.isBigBlind = after.isBigBlind();
+                changed = true;
+            }
+            if (!before.getHoleCards().equals(after.getHoleCards())) {
+                delta.holeCards = after.getHoleCards();
+                changed = true;
+            }
+            return changed ? delta : null;
+        }
+
+        private void writeTo(ByteArrayOutputStream out) {
+            int present = (chips != null ? 1 : 0)
+                    | (bet != null ? 1 << 1 : 0)
+                    | (isActive != null ? 1 << 2 : 0)
+                    | (isDealer != null ? 1 << 3 : 0)
+                    | (isSmallBlind != null ? 1 << 4 : 0)
+                    | (isBigBlind != null ? 1 << 5 : 0)
+                    | (holeCards != null ? 1 << 6 : 0);
+            out.write(seat);
+            out.write(present);
+            if (chips != null) {
+                WireCodec.writeInt(out, chips);
+            }
+            if (bet != null) {
+                WireCodec.writeInt(out, bet);
+            }
+            if (isActive != null) {
+                WireCodec.writeBoolean(out, isActive);
+            }
+            if (isDealer != null) {
+                WireCodec.writeBoolean(out, isDealer);
+            }
+            if (isSmallBlind != null) {
+                WireCodec.writeBoolean(out, isSmallBlind);
+            }
+            if (isBigBlind != null) {
+                WireCodec.writeBoolean(out, isBigBlind);
+            }
+            if (holeCards != null) {
+                WireCodec.writeCards(out, holeCards);
+            }
+        }
+
+        private static SeatDelta readFrom(ByteBuffer in) {
+            SeatDelta delta = new SeatDelta(WireCodec.readByte(in));
+            int present = WireCodec.readByte(in);
+            if ((present & 1) != 0) {
+                delta.chips = WireCodec.readInt(in);
+            }
+            if ((present & 1 << 1) != 0) {
+                delta.bet = WireCodec.readInt(in);
+            }
+            if ((present & 1 << 2) != 0) {
+                delta.isActive = WireCodec.readBoolean(in);
+            }
+            if ((present & 1 << 3) != 0) {
+                delta.isDealer = WireCodec.readBoolean(in);
+            }
+            if ((present & 1 << 4) != 0) {
+                delta.isSmallBlind = WireCodec.readBoolean(in);
+            }
+            if ((present & 1 << 5) != 0) {
+                delta.isBigBlind = WireCodec.readBoolean(in);
+            }
+            if ((present & 1 << 6) != 0) {
+                delta.holeCards = WireCodec.readCards(in);
+            }
+            return delta;
+        }
+
+        private PlayerSnapshot applyTo(PlayerSnapshot player) {
+            return new PlayerSnapshot(
+                    player.getName(),
+                    chips != null ? chips : player.getChips(),
+                    bet != null ? bet : player.getBet(),
+                    isActive != null ? isActive : player.getIsActive(),
+                    isDealer != null ? isDealer : player.isDealer(),
+                    isSmallBlind != null ? isSmallBlind : player.isSmallBlind(),
+                    isBigBlind != null ? isBigBlind : player.isBigBlind(),
+                    player.isCreater(),
+                    holeCards != null ? holeCards : player.getHoleCards());
+        }
+    }
+
+    /**
+     * Returns the changes from {@code before} to {@code after}, or null if
+     * nothing a client can see changed.
+     */
+    public static GameDelta diff(GameSnapshot before, GameSnapshot after) {
+        GameDelta delta = new GameDelta(before.getVersion(), after.getVersion());
+        boolean changed = false;
+
+        if (before.getState() != after.getState()) {
+            delta.state = after.getState();
+            changed = true;
+        }
+        if (before.getCurrentRound() != after.getCurrentRound()) {
+            delta.currentRound = after.getCurrentRound();
+            changed = true;
+        }
+        if (before.getPot() != after.getPot()) {
+            delta.pot = after.getPot();
+            changed = true;
+        }
+        if (before.getCurrentBet() != after.getCurrentBet()) {
+            delta.currentBet = after.getCurrentBet();
+            changed = true;
+        }
+        if (before.getCurrentPlayerIndex() != after.getCurrentPlayerIndex()) {
+            delta.currentPlayerIndex = after.getCurrentPlayerIndex();
+            changed = true;
+        }
+        if (before.getDealerPosition() != after.getDealerPosition()) {
+            delta.dealerPosition = after.getDealerPosition();
+            changed = true;
+        }
+        if (!Objects.equals(before.getWinnerName(), after.getWinnerName())) {
+            delta.winnerName = after.getWinnerName() == null ? "" : after.getWinnerName();
+            changed = true;
+        }
+
+        List<Card> oldBoard = before.getCommunityCards();
+        List<Card> newBoard = after.getCommunityCards();
+        if (!oldBoard.equals(newBoard)) {
+            boolean extended = newBoard.size() > oldBoard.size()
+                    && newBoard.subList(0, oldBoard.size()).equals(oldBoard);
+            int from = extended ? oldBoard.size() : 0;
+            delta.boardFrom = from;
+            delta.board = new ArrayList<>(newBoard.subList(from, newBoard.size()));
+            changed = true;
+        }
+
+        List<PlayerSnapshot> oldSeats = before.getPlayers();
+        List<PlayerSnapshot> newSeats = after.getPlayers();
+        if (!sameSeating(oldSeats, newSeats)) {
+            delta.seats = newSeats;
+            changed = true;
+        } else {
+            for (int i = 0; i < newSeats.size(); i++) {
+                SeatDelta seatDelta = SeatDelta.diff(i, oldSeats.get(i), newSeats.get(i));
+                if (seatDelta != null) {
+                    if (delta.seatChanges == null) {
+                        delta.seatChanges = new ArrayList<>();
+                    }
+                    delta.seatChanges.add(seatDelta);
+                    changed = true;
+                }
+            }
+        }
+
+        return changed ? delta : null;
+    }
+
+    private static boolean sameSeating(List<PlayerSnapshot> before, List<PlayerSnapshot> after) {
+        if (before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            if (!before.get(i).getName().equals(after.get(i).getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // presence bits of the binary form
+    private static final int STATE = 1;
+    private static final int ROUND = 1 << 1;
+    private static final int POT = 1 << 2;
+    private static final int CURRENT_BET = 1 << 3;
+    private static final int CURRENT_PLAYER = 1 << 4;
+    private static final int DEALER = 1 << 5;
+    private static final int WINNER = 1 << 6;
+    private static final int BOARD = 1 << 7;
+    private static final int SEATS = 1 << 8;
+    private static final int SEAT_CHANGES = 1 << 9;
+
+    /**
+     * Binary form for {@code WireCodec}-based framing: both versions, a
+     * bitmask of the fields present, then those fields in bit order.
+     */
+    public void writeTo(ByteArrayOutputStream out) {
+        int present = (state != null ? STATE : 0)
+                | (currentRound != null ? ROUND : 0)
+                | (pot != null ? POT : 0)
+                | (currentBet != null ? CURRENT_BET : 0)
+                | (currentPlayerIndex != null ? CURRENT_PLAYER : 0)
+                | (dealerPosition != null ? DEALER : 0)
+                | (winnerName != null ? WINNER : 0)
+                | (boardFrom != null ? BOARD : 0)
+                | (seats != null ? SEATS : 0)
+                | (seatChanges != null ? SEAT_CHANGES : 0);
+        WireCodec.writeVarLong(out, baseVersion);
+        WireCodec.writeVarLong(out, version);
+        WireCodec.writeVarLong(out, present);
+        if (state != null) {
+            out.write(state.ordinal());
+        }
+        if (currentRound != null) {
+            out.write(currentRound.ordinal());
+        }
+        if (pot != null) {
+            WireCodec.writeInt(out, pot);
+        }
+        if (currentBet != null) {
+            WireCodec.writeInt(out, currentBet);
+        }
+        if (currentPlayerIndex != null) {
+            WireCodec.writeInt(out, currentPlayerIndex);
+        }
+        if (dealerPosition != null) {
+            WireCodec.writeInt(out, dealerPosition);
+        }
+        if (winnerName != null) {
+            WireCodec.writeString(out, winnerName);
+        }
+        if (boardFrom != null) {
+            out.write(boardFrom);
+            WireCodec.writeCards(out, board);
+        }
+        if (seats != null) {
+            WireCodec.writePlayers(out, seats);
+        }
+        if (seatChanges != null) {
+            out.write(seatChanges.size());
+            for (SeatDelta seatDelta : seatChanges) {
+                seatDelta.writeTo(out);
+            }
+        }
+    }
+
+    public static GameDelta readFrom(ByteBuffer in) {
+        GameDelta delta = new GameDelta(WireCodec.readVarLong(in), WireCodec.readVarLong(in));
+        long present = WireCodec.readVarLong(in);
+        if ((present & STATE) != 0) {
+            delta.state = WireCodec.readEnum(in, Game.State.values());
+        }
+        if ((present & ROUND) != 0) {
+            delta.currentRound = WireCodec.readEnum(in, Game.Round.values());
+        }
+        if ((present & POT) != 0) {
+            delta.pot = WireCodec.readInt(in);
+        }
+        if ((present & CURRENT_BET) != 0) {
+            delta.currentBet = WireCodec.readInt(in);
+        }
+        if ((present & CURRENT_PLAYER) != 0) {
+            delta.currentPlayerIndex = WireCodec.readInt(in);
+        }
+        if ((present & DEALER) != 0) {
+            delta.dealerPosition = WireCodec.readInt(in);
+        }
+        if ((present & WINNER) != 0) {
+            String winner = WireCodec.readString(in);
+            delta.winnerName = winner == null ? "" : winner;
+        }
+        if ((present & BOARD) != 0) {
+            delta.boardFrom = WireCodec.readByte(in);
+            delta.board = WireCodec.readCards(in);
+        }
+        if ((present & SEATS) != 0) {
+            delta.seats = WireCodec.readPlayers(in);
+        }
+        if ((present & SEAT_CHANGES) != 0) {
+            int count = WireCodec.readByte(in);
+            delta.seatChanges = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                delta.seatChanges.add(SeatDelta.readFrom(in));
+            }
+        }
+        return delta;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Builds the snapshot at {@link #getVersion()} from the one at
+     * {@link #getBaseVersion()}.
+     */
+    public GameSnapshot applyTo(GameSnapshot base) {
+        if (base.getVersion() != baseVersion) {
+            throw new IllegalArgumentException("Delta from version " + baseVersion
+                    + " cannot be applied to version " + base.getVersion());
+        }
+
+        List<Card> communityCards = base.getCommunityCards();
+        if (boardFrom != null) {
+            List<Card> merged = new ArrayList<>(communityCards.subList(0, boardFrom));
+            merged.addAll(board);
+            communityCards = Collections.unmodifiableList(merged);
+        }
+
+        List<PlayerSnapshot> players = base.getPlayers();
+        if (seats != null) {
+            players = Collections.unmodifiableList(new ArrayList<>(seats));
+        } else if (seatChanges != null) {
+            List<PlayerSnapshot> updated = new ArrayList<>(players);
+            for (SeatDelta seatDelta : seatChanges) {
+                updated.set(seatDelta.seat, seatDelta.applyTo(updated.get(seatDelta.seat)));
+            }
+            players = Collections.unmodifiableList(updated);
+        }
+
+        return new GameSnapshot(
+                version,
+                base.getGameId(),
+                state != null ? state : base.getState(),
+                currentRound != null ? currentRound : base.getCurrentRound(),
+                players,
+                communityCards,
+                pot != null ? pot : base.getPot(),
+                currentBet != null ? currentBet : base.getCurrentBet(),
+                currentPlayerIndex != null ? currentPlayerIndex : base.getCurrentPlayerIndex(),
+                dealerPosition != null ? dealerPosition : base.getDealerPosition(),
+                winnerName == null ? base.getWinnerName() : (winnerName.isEmpty() ? null : winnerName));
+    }
+}
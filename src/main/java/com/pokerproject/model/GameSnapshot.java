@@ -0,0 +1,186 @@
+package com.pokerproject.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link Game} at one version. Snapshots are taken by the
+ * thread that owns the game and can be read from any thread.
+ *
+ * A snapshot from {@link Game#snapshot(long)} holds every player's hole
+ * cards and stays on the server. Clients get a {@link #publicView()}, shared
+ * by the whole table, plus their own cards ({@link #viewFor(String)}).
+ */
+public final class GameSnapshot {
+    private final long version;
+    private final String gameId;
+    private final Game.State state;
+    private final Game.Round currentRound;
+    private final List<PlayerSnapshot> players;
+    private final List<Card> communityCards;
+    private final int pot;
+    private final int currentBet;
+    private final int currentPlayerIndex;
+    private final int dealerPosition;
+    private final String winnerName;
+
+    GameSnapshot(Game game, long version) {
+        this.version = version;
+        this.gameId = game.getGameId();
+        this.state = game.getState();
+        this.currentRound = game.getCurrentRound();
+        this.pot = game.getPot();
+        this.currentBet = game.getCurrentBet();
+        this.currentPlayerIndex = game.getCurrentPlayerIndex();
+        this.dealerPosition = game.getDealerPosition();
+        this.winnerName = game.getWinner() == null ? null : game.getWinner().getName();
+        this.communityCards = Collections.unmodifiableList(game.getCommunityCards());
+
+        List<PlayerSnapshot> seats = new ArrayList<>(game.getPlayers().size());
+        for (Player player : game.getPlayers()) {
+            seats.add(new PlayerSnapshot(player, game.getPlayerBet(player)));
+        }
+        this.players = Collections.unmodifiableList(seats);
+    }
+
+    GameSnapshot(long version, String gameId, Game.State state, Game.Round currentRound,
+            List<PlayerSnapshot> players, List<Card> communityCards, int pot, int currentBet,
+            int currentPlayerIndex, int dealerPosition, String winnerName) {
+        this.version = version;
+        this.gameId = gameId;
+        this.state = state;
+        this.currentRound = currentRound;
+        this.players = players;
+        this.communityCards = communityCards;
+        this.pot = pot;
+        this.currentBet = currentBet;
+        this.currentPlayerIndex = currentPlayerIndex;
+        this.dealerPosition = dealerPosition;
+        this.winnerName = winnerName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public Game.State getState() {
+        return state;
+    }
+
+    public Game.Round getCurrentRound() {
+        return currentRound;
+    }
+
+    public List<PlayerSnapshot> getPlayers() {
+        return players;
+    }
+
+    public List<Card> getCommunityCards() {
+        return communityCards;
+    }
+
+    public int getPot() {
+        return pot;
+    }
+
+    public int getCurrentBet() {
+        return currentBet;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    public int getDealerPosition() {
+        return dealerPosition;
+    }
+
+    public String getWinnerName() {
+        return winnerName;
+    }
+
+    /**
+     * Whether everyone may see the player's hole cards: only the winner's,
+     * once the hand is at showdown.
+     */
+    public boolean isRevealed(String playerName) {
+        return currentRound == Game.Round.SHOWDOWN && playerName.equals(winnerName);
+    }
+
+    /**
+     * This snapshot with every hole card hidden except revealed ones. The
+     * same view goes to every seat.
+     */
+    public GameSnapshot publicView() {
+        List<PlayerSnapshot> seats = new ArrayList<>(players.size());
+        for (PlayerSnapshot player : players) {
+            boolean hidden = !player.getHoleCards().isEmpty() && !isRevealed(player.getName());
+            seats.add(hidden ? player.withHoleCards(Collections.emptyList()) : player);
+        }
+        return withPlayers(seats);
+    }
+
+    /**
+     * What one seat may see: the {@link #publicView()} plus its own cards.
+     */
+    public GameSnapshot viewFor(String playerName) {
+        PlayerSnapshot viewer = playerName == null ? null : getPlayerByName(playerName);
+        GameSnapshot view = publicView();
+        return viewer == null ? view : view.withHoleCards(playerName, viewer.getHoleCards());
+    }
+
+    /**
+     * A copy with one player's hole cards replaced, e.g. by a client merging
+     * its private cards into the public state.
+     */
+    public GameSnapshot withHoleCards(String playerName, List<Card> cards) {
+        List<PlayerSnapshot> seats = new ArrayList<>(players);
+        for (int i = 0; i < seats.size(); i++) {
+            if (seats.get(i).getName().equals(playerName)) {
+                seats.set(i, seats.get(i).withHoleCards(Collections.unmodifiableList(new ArrayList<>(cards))));
+            }
+        }
+        return withPlayers(seats);
+    }
+
+    private GameSnapshot withPlayers(List<PlayerSnapshot> seats) {
+        return new GameSnapshot(version, gameId, state, currentRound, Collections.unmodifiableList(seats),
+                communityCards, pot, currentBet, currentPlayerIndex, dealerPosition, winnerName);
+    }
+
+    public PlayerSnapshot getCurrentPlayer() {
+        return currentPlayerIndex < players.size() ? players.get(currentPlayerIndex) : null;
+    }
+
+    public PlayerSnapshot getPlayerByName(String name) {
+        for (PlayerSnapshot player : players) {
+            if (player.getName().equals(name)) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    public PlayerSnapshot getCreaterPlayer() {
+        for (PlayerSnapshot player : players) {
+            if (player.isCreater()) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    public boolean isPlayerNameExists(String name) {
+        for (PlayerSnapshot player : players) {
+            if (player.getName().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.pokerproject.model;
+
+/**
+ * Ranks a set of cards given as a 64-bit card mask.
+ *
+ * Bit layout of the mask: card {@code suit.ordinal() * 13 + rank.ordinal()},
+ * so every suit occupies its own 13-bit lane (clubs in bits 0-12, diamonds
+ * 13-25, hearts 26-38, spades 39-51).
+ *
+ * The returned strength orders hands exactly like {@link PokerHand#compareTo}:
+ * a higher value is a better hand and equal values are a tie. The hand type is
+ * stored above {@link #TYPE_SHIFT}, the ranks that break ties below it as
+ * 4-bit rank values, most significant first.
+ */
+public interface HandEvaluator {
+
+    int TYPE_SHIFT = 20;
+
+    /**
+     * Returns the strength of the best five card hand that can be made from
+     * the seven cards in {@code cardMask}.
+     */
+    int evaluate7(long cardMask);
+
+    static PokerHand.HandType handTypeOf(int strength) {
+        return PokerHand.HandType.values()[(strength >>> TYPE_SHIFT) - 1];
+    }
+}
@@ -0,0 +1,33 @@
+package com.pokerproject.model;
+
+/**
+ * Told about every hand a {@link Game} plays, e.g. to record its history.
+ * Called on the thread that mutates the game, in the middle of an action, so
+ * implementations must be quick and must not change the game.
+ */
+public interface HandObserver {
+
+    /**
+     * A new hand was dealt: blinds are posted and hole cards are out.
+     */
+    void handStarted(Game game);
+
+    /**
+     * The game was restored as it was in the middle of a hand, possibly
+     * after some of its actions; the rest of the hand follows as usual.
+     */
+    default void handResumed(Game game) {
+    }
+
+    /**
+     * {@code player} acted in the current round and put {@code paid} chips
+     * in, which is less than asked for when the stack ran out. Not called for
+     * {@link Game.Action#NEXT}.
+     */
+    void playerActed(Game game, Player player, Game.Action action, int paid);
+
+    /**
+     * The pots were paid out, by a showdown or because everybody else folded.
+     */
+    void handFinished(Game game);
+}
@@ -0,0 +1,140 @@
+package com.pokerproject.model;
+
+/**
+ * Table driven {@link HandEvaluator}.
+ *
+ * The seven cards are split into four 13-bit suit lanes. Flushes are looked up
+ * on the lane that holds five or more cards, everything else is derived from
+ * the rank lanes with a few AND/OR operations and the precomputed
+ * {@code STRAIGHTS} and {@code TOP_RANKS} tables. Nothing is allocated per call.
+ *
+ * Like {@link PokerHand}, the wheel (A-2-3-4-5) does not count as a straight.
+ */
+public final class LookupHandEvaluator implements HandEvaluator {
+
+    private static final int RANK_MASKS = 1 << 13;
+    private static final int LANE = 0x1FFF;
+
+    private static final int HIGH_CARD = PokerHand.HandType.HIGH_CARD.getValue() << TYPE_SHIFT;
+    private static final int PAIR = PokerHand.HandType.PAIR.getValue() << TYPE_SHIFT;
+    private static final int TWO_PAIR = PokerHand.HandType.TWO_PAIR.getValue() << TYPE_SHIFT;
+    private static final int THREE_OF_A_KIND = PokerHand.HandType.THREE_OF_A_KIND.getValue() << TYPE_SHIFT;
+    private static final int STRAIGHT = PokerHand.HandType.STRAIGHT.getValue() << TYPE_SHIFT;
+    private static final int FLUSH = PokerHand.HandType.FLUSH.getValue() << TYPE_SHIFT;
+    private static final int FULL_HOUSE = PokerHand.HandType.FULL_HOUSE.getValue() << TYPE_SHIFT;
+    private static final int FOUR_OF_A_KIND = PokerHand.HandType.FOUR_OF_A_KIND.getValue() << TYPE_SHIFT;
+    private static final int STRAIGHT_FLUSH = PokerHand.HandType.STRAIGHT_FLUSH.getValue() << TYPE_SHIFT;
+    private static final int ROYAL_FLUSH = PokerHand.HandType.ROYAL_FLUSH.getValue() << TYPE_SHIFT;
+
+    // top five ranks of a lane as rank values, highest in bits 16-19
+    private static final int[] TOP_RANKS = new int[RANK_MASKS];
+    // tie-break bits of the highest straight in a lane, 0 if there is none
+    private static final int[] STRAIGHTS = new int[RANK_MASKS];
+
+    private static final LookupHandEvaluator instance = new LookupHandEvaluator();
+
+    static {
+        for (int ranks = 0; ranks < RANK_MASKS; ranks++) {
+            int top = 0;
+            int taken = 0;
+            for (int r = 12; r >= 0 && taken < 5; r--) {
+                if ((ranks & (1 << r)) != 0) {
+                    top |= rankValue(r) << (16 - 4 * taken);
+                    taken++;
+                }
+            }
+            TOP_RANKS[ranks] = top;
+
+            for (int low = 8; low >= 0; low--) {
+                int run = 0x1F << low;
+                if ((ranks & run) == run) {
+                    STRAIGHTS[ranks] = TOP_RANKS[run];
+                    break;
+                }
+            }
+        }
+    }
+
+    private LookupHandEvaluator() {
+    }
+
+    public static LookupHandEvaluator getInstance() {
+        return instance;
+    }
+
+    @Override
+    public int evaluate7(long cardMask) {
+        int clubs = (int) cardMask & LANE;
+        int diamonds = (int) (cardMask >>> 13) & LANE;
+        int hearts = (int) (cardMask >>> 26) & LANE;
+        int spades = (int) (cardMask >>> 39) & LANE;
+
+        // a flush rules out quads and full houses with seven cards
+        int flushLane = Integer.bitCount(clubs) >= 5 ? clubs
+                : Integer.bitCount(diamonds) >= 5 ? diamonds
+                : Integer.bitCount(hearts) >= 5 ? hearts
+                : Integer.bitCount(spades) >= 5 ? spades
+                : 0;
+        if (flushLane != 0) {
+            int straight = STRAIGHTS[flushLane];
+            if (straight != 0) {
+                return ((straight >>> 16) == 14 ? ROYAL_FLUSH : STRAIGHT_FLUSH) | straight;
+            }
+            return FLUSH | TOP_RANKS[flushLane];
+        }
+
+        int ranks = clubs | diamonds | hearts | spades;
+
+        int quads = clubs & diamonds & hearts & spades;
+        if (quads != 0) {
+            int quad = Integer.highestOneBit(quads);
+            return FOUR_OF_A_KIND | topRank(quad) << 16 | top(ranks & ~quad, 1) << 12;
+        }
+
+        int twos = (clubs & diamonds) | (clubs & hearts) | (clubs & spades)
+                | (diamonds & hearts) | (diamonds & spades) | (hearts & spades);
+        int threes = (clubs & diamonds & (hearts | spades)) | (hearts & spades & (clubs | diamonds));
+
+        int trips = Integer.highestOneBit(threes);
+        if (trips != 0) {
+            int pairs = twos & ~trips;
+            if (pairs != 0) {
+                return FULL_HOUSE | topRank(trips) << 16 | topRank(pairs) << 12;
+            }
+        }
+
+        int straight = STRAIGHTS[ranks];
+        if (straight != 0) {
+            return STRAIGHT | straight;
+        }
+
+        if (trips != 0) {
+            return THREE_OF_A_KIND | topRank(trips) << 16 | top(ranks & ~trips, 2) << 8;
+        }
+
+        if (twos != 0) {
+            int high = Integer.highestOneBit(twos);
+            int low = Integer.highestOneBit(twos & ~high);
+            if (low != 0) {
+                return TWO_PAIR | topRank(high) << 16 | topRank(low) << 12
+                        | top(ranks & ~(high | low), 1) << 8;
+            }
+            return PAIR | topRank(high) << 16 | top(ranks & ~high, 3) << 4;
+        }
+
+        return HIGH_CARD | TOP_RANKS[ranks];
+    }
+
+    // rank values of the n highest ranks in the lane, right aligned
+    private static int top(int ranks, int n) {
+        return TOP_RANKS[ranks] >>> (4 * (5 - n));
+    }
+
+    private static int topRank(int ranks) {
+        return rankValue(31 - Integer.numberOfLeadingZeros(ranks));
+    }
+
+    private static int rankValue(int rankOrdinal) {
+        return rankOrdinal + 2;
+    }
+}
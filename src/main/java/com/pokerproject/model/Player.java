@@ -1,5 +1,7 @@
 package com.pokerproject.model;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,12 +10,20 @@ import com.pokerproject.server.ClientHandler;
 public class Player {
     private final String name;
     private final List<Card> holeCards;
+    private transient long holeCardMask;
+    // chips, roles and the active flag live in the game's seat arrays while
+    // the player is seated; these fields hold them before and after
     private int chips;
     private boolean isDealer;
     private boolean isSmallBlind;
     private boolean isBigBlind;
     private boolean isActive; //current player
-    private final transient ClientHandler handler;
+    // only replaced on the game's thread, when a restored seat is reclaimed
+    private transient ClientHandler handler;
+    // proves a client joining again is this player; kept in the table log, null for bots
+    private transient String reconnectToken;
+    transient Game game;
+    transient int seat = -1;
 
     public boolean isCreater;
     
@@ -33,6 +43,30 @@ public class Player {
         return handler;
     }
 
+    /**
+     * Gives a seat restored after a restart, which has no connection, back
+     * to its player when they join again with the token they were given.
+     * Returns false, leaving the seat alone, if the seat is connected or
+     * the token does not match.
+     */
+    public boolean reconnect(ClientHandler handler, String token) {
+        if (this.handler != null || reconnectToken == null || token == null
+                || !MessageDigest.isEqual(reconnectToken.getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        this.handler = handler;
+        return true;
+    }
+
+    public String getReconnectToken() {
+        return reconnectToken;
+    }
+
+    public void setReconnectToken(String reconnectToken) {
+        this.reconnectToken = reconnectToken;
+    }
+
     public String getName() {
         return name;
     }
@@ -41,76 +75,136 @@ public class Player {
         return new ArrayList<>(holeCards);
     }
 
+    public long getHoleCardMask() {
+        return holeCardMask;
+    }
+
     public void addCard(Card card) {
         this.holeCards.add(card);
+        this.holeCardMask |= CardCodec.mask(card);
     }
     
     public void clearCards() {
         this.holeCards.clear();
+        this.holeCardMask = 0L;
     }
     
+    /**
+     * Moves the player's chips, roles and active flag into the seat.
+     */
+    void sitAt(Game game, int seat) {
+        game.seatChips[seat] = chips;
+        game.seatRoles[seat] = 0;
+        this.game = game;
+        this.seat = seat;
+        setDealer(isDealer);
+        setSmallBlind(isSmallBlind);
+        setBigBlind(isBigBlind);
+        setIsActive(isActive);
+    }
+
+    /**
+     * Takes the seat's state back into the player when leaving it.
+     */
+    void standUp() {
+        chips = getChips();
+        isDealer = isDealer();
+        isSmallBlind = isSmallBlind();
+        isBigBlind = isBigBlind();
+        isActive = getIsActive();
+        game = null;
+        seat = -1;
+    }
+
+    /**
+     * Seat index in the game the player sits at, or -1.
+     */
+    public int getSeat() {
+        return seat;
+    }
+
     public int getChips() {
-        return chips;
+        return game != null ? game.seatChips[seat] : chips;
     }
     
     public void addChips(int amount) {
-        this.chips += amount;
+        if (game != null) {
+            game.seatChips[seat] += amount;
+        } else {
+            this.chips += amount;
+        }
     }
     
     public boolean removeChips(int amount) {
-        if (amount > chips) {
+        if (amount > getChips()) {
             return false;
         }
-        this.chips -= amount;
+        addChips(-amount);
         return true;
     }
     
     public boolean isDealer() {
-        return isDealer;
+        return game != null ? game.hasRole(seat, Game.DEALER) : isDealer;
     }
 
     public void setDealer(boolean dealer) {
-        this.isDealer = dealer;
+        if (game != null) {
+            game.setRole(seat, Game.DEALER, dealer);
+        } else {
+            this.isDealer = dealer;
+        }
     }
     
     public boolean isSmallBlind() {
-        return isSmallBlind;
+        return game != null ? game.hasRole(seat, Game.SMALL_BLIND) : isSmallBlind;
     }
     
     public void setSmallBlind(boolean smallBlind) {
-        this.isSmallBlind = smallBlind;
+        if (game != null) {
+            game.setRole(seat, Game.SMALL_BLIND, smallBlind);
+        } else {
+            this.isSmallBlind = smallBlind;
+        }
     }
     
     public boolean isBigBlind() {
-        return isBigBlind;
+        return game != null ? game.hasRole(seat, Game.BIG_BLIND) : isBigBlind;
     }
     
     public void setBigBlind(boolean bigBlind) {
-        this.isBigBlind = bigBlind;
+        if (game != null) {
+            game.setRole(seat, Game.BIG_BLIND, bigBlind);
+        } else {
+            this.isBigBlind = bigBlind;
+        }
     }
     
     public boolean getIsActive() {
-        return isActive;
+        return game != null ? game.isSeatActive(seat) : isActive;
     }
     
     public void setIsActive(boolean active) {
-        this.isActive = active;
+        if (game != null) {
+            game.setSeatActive(seat, active);
+        } else {
+            this.isActive = active;
+        }
     }
 
     public void resetRoles() {
-        this.isDealer = false;
-        this.isSmallBlind = false;
-        this.isBigBlind = false;
+        setDealer(false);
+        setSmallBlind(false);
+        setBigBlind(false);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(name).append(" (").append(chips).append(" chips)");
+        sb.append(name).append(" (").append(getChips()).append(" chips)");
         
-        if (isDealer) sb.append(" [D]");
-        if (isSmallBlind) sb.append(" [SB]");
-        if (isBigBlind) sb.append(" [BB]");
+        if (isDealer()) sb.append(" [D]");
+        if (isSmallBlind()) sb.append(" [SB]");
+        if (isBigBlind()) sb.append(" [BB]");
         
         return sb.toString();
     }
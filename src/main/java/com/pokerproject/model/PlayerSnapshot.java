@@ -0,0 +1,85 @@
+package com.pokerproject.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of one seat, taken together with its {@link GameSnapshot}.
+ */
+public final class PlayerSnapshot {
+    private final String name;
+    private final int chips;
+    private final int bet;
+    private final boolean isActive;
+    private final boolean isDealer;
+    private final boolean isSmallBlind;
+    private final boolean isBigBlind;
+    private final boolean isCreater;
+    private final List<Card> holeCards;
+
+    PlayerSnapshot(Player player, int bet) {
+        this.name = player.getName();
+        this.chips = player.getChips();
+        this.bet = bet;
+        this.isActive = player.getIsActive();
+        this.isDealer = player.isDealer();
+        this.isSmallBlind = player.isSmallBlind();
+        this.isBigBlind = player.isBigBlind();
+        this.isCreater = player.isCreater;
+        this.holeCards = Collections.unmodifiableList(player.getHoleCards());
+    }
+
+    PlayerSnapshot(String name, int chips, int bet, boolean isActive, boolean isDealer,
+            boolean isSmallBlind, boolean isBigBlind, boolean isCreater, List<Card> holeCards) {
+        this.name = name;
+        this.chips = chips;
+        this.bet = bet;
+        this.isActive = isActive;
+        this.isDealer = isDealer;
+        this.isSmallBlind = isSmallBlind;
+        this.isBigBlind = isBigBlind;
+        this.isCreater = isCreater;
+        this.holeCards = holeCards;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getChips() {
+        return chips;
+    }
+
+    public int getBet() {
+        return bet;
+    }
+
+    public boolean getIsActive() {
+        return isActive;
+    }
+
+    public boolean isDealer() {
+        return isDealer;
+    }
+
+    public boolean isSmallBlind() {
+        return isSmallBlind;
+    }
+
+    public boolean isBigBlind() {
+        return isBigBlind;
+    }
+
+    public boolean isCreater() {
+        return isCreater;
+    }
+
+    public List<Card> getHoleCards() {
+        return holeCards;
+    }
+
+    PlayerSnapshot withHoleCards(List<Card> cards) {
+        return new PlayerSnapshot(name, chips, bet, isActive, isDealer, isSmallBlind, isBigBlind,
+                isCreater, cards);
+    }
+}
@@ -0,0 +1,243 @@
+package com.pokerproject.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary encoding of the values sent over the wire: varints, strings, cards
+ * and {@link GameSnapshot}s ({@link GameDelta} encodes itself with these).
+ *
+ * <ul>
+ * <li>ints are zigzag varints, so -1 still takes one byte</li>
+ * <li>versions are unsigned varints</li>
+ * <li>strings are a varint byte length and UTF-8, with length 0 for null</li>
+ * <li>a card is its {@link CardCodec} index in one byte, a card list is a
+ * count byte followed by the cards</li>
+ * <li>an enum is its ordinal in one byte</li>
+ * </ul>
+ *
+ * Readers throw {@link IllegalArgumentException} on malformed input.
+ */
+public final class WireCodec {
+
+    private WireCodec() {
+    }
+
+    public static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Writes into a buffer, which unlike a stream takes no lock per byte.
+     * Throws {@link java.nio.BufferOverflowException} when it is full.
+     */
+    public static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    public static void writeInt(ByteArrayOutputStream out, int value) {
+        writeVarLong(out, Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+    }
+
+    public static void writeInt(ByteBuffer out, int value) {
+        writeVarLong(out, Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+    }
+
+    public static int readInt(ByteBuffer in) {
+        int zigzag = (int) readVarLong(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    public static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.put((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Reads a string; the empty string comes back as null.
+     */
+    public static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String longer than the frame");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeBoolean(ByteArrayOutputStream out, boolean value) {
+        out.write(value ? 1 : 0);
+    }
+
+    public static boolean readBoolean(ByteBuffer in) {
+        return readByte(in) != 0;
+    }
+
+    public static int readByte(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        return in.get() & 0xFF;
+    }
+
+    public static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        int ordinal = readByte(in);
+        if (ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    public static void writeCards(ByteArrayOutputStream out, List<Card> cards) {
+        out.write(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            out.write(CardCodec.index(cards.get(i)));
+        }
+    }
+
+    public static void writeCards(ByteBuffer out, List<Card> cards) {
+        out.put((byte) cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            out.put((byte) CardCodec.index(cards.get(i)));
+        }
+    }
+
+    public static List<Card> readCards(ByteBuffer in) {
+        int count = readByte(in);
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = readByte(in);
+            if (index >= CardCodec.DECK_SIZE) {
+                throw new IllegalArgumentException("Bad card " + index);
+            }
+            cards.add(CardCodec.toCard(index));
+        }
+        return Collections.unmodifiableList(cards);
+    }
+
+    // seat flags
+    private static final int ACTIVE = 1;
+    private static final int DEALER = 1 << 1;
+    private static final int SMALL_BLIND = 1 << 2;
+    private static final int BIG_BLIND = 1 << 3;
+    private static final int CREATER = 1 << 4;
+
+    static void writePlayer(ByteArrayOutputStream out, PlayerSnapshot player) {
+        writeString(out, player.getName());
+        writeInt(out, player.getChips());
+        writeInt(out, player.getBet());
+        out.write((player.getIsActive() ? ACTIVE : 0)
+                | (player.isDealer() ? DEALER : 0)
+                | (player.isSmallBlind() ? SMALL_BLIND : 0)
+                | (player.isBigBlind() ? BIG_BLIND : 0)
+                | (player.isCreater() ? CREATER : 0));
+        writeCards(out, player.getHoleCards());
+    }
+
+    static PlayerSnapshot readPlayer(ByteBuffer in) {
+        String name = readString(in);
+        int chips = readInt(in);
+        int bet = readInt(in);
+        int flags = readByte(in);
+        List<Card> holeCards = readCards(in);
+        return new PlayerSnapshot(name, chips, bet,
+                (flags & ACTIVE) != 0,
+                (flags & DEALER) != 0,
+                (flags & SMALL_BLIND) != 0,
+                (flags & BIG_BLIND) != 0,
+                (flags & CREATER) != 0,
+                holeCards);
+    }
+
+    static void writePlayers(ByteArrayOutputStream out, List<PlayerSnapshot> players) {
+        out.write(players.size());
+        for (PlayerSnapshot player : players) {
+            writePlayer(out, player);
+        }
+    }
+
+    static List<PlayerSnapshot> readPlayers(ByteBuffer in) {
+        int count = readByte(in);
+        List<PlayerSnapshot> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(readPlayer(in));
+        }
+        return Collections.unmodifiableList(players);
+    }
+
+    public static void writeSnapshot(ByteArrayOutputStream out, GameSnapshot snapshot) {
+        writeVarLong(out, snapshot.getVersion());
+        writeString(out, snapshot.getGameId());
+        out.write(snapshot.getState().ordinal());
+        out.write(snapshot.getCurrentRound().ordinal());
+        writeInt(out, snapshot.getPot());
+        writeInt(out, snapshot.getCurrentBet());
+        writeInt(out, snapshot.getCurrentPlayerIndex());
+        writeInt(out, snapshot.getDealerPosition());
+        writeString(out, snapshot.getWinnerName());
+        writeCards(out, snapshot.getCommunityCards());
+        writePlayers(out, snapshot.getPlayers());
+    }
+
+    public static GameSnapshot readSnapshot(ByteBuffer in) {
+        long version = readVarLong(in);
+        String gameId = readString(in);
+        Game.State state = readEnum(in, Game.State.values());
+        Game.Round round = readEnum(in, Game.Round.values());
+        int pot = readInt(in);
+        int currentBet = readInt(in);
+        int currentPlayerIndex = readInt(in);
+        int dealerPosition = readInt(in);
+        String winnerName = readString(in);
+        List<Card> communityCards = readCards(in);
+        List<PlayerSnapshot> players = readPlayers(in);
+        return new GameSnapshot(version, gameId, state, round, players, communityCards, pot,
+                currentBet, currentPlayerIndex, dealerPosition, winnerName);
+    }
+}
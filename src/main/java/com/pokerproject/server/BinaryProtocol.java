@@ -0,0 +1,254 @@
+package com.pokerproject.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.pokerproject.model.Card;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.GameDelta;
+import com.pokerproject.model.GameSnapshot;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * Binary framing, negotiated by sending {@link #HELLO} as the first text
+ * line. The server answers with the same line and from then on both sides
+ * send frames: a varint length, one opcode byte and a payload encoded with
+ * {@link WireCodec}. The length counts the opcode and the payload.
+ *
+ * {@link ClientSocket} decodes server frames straight into
+ * {@link ServerMessage}s, the same objects it parses text lines into.
+ */
+public final class BinaryProtocol {
+
+    public static final String HELLO = "PROTO:BINARY";
+    // leaves room for the length prefix in a connection's partial-input buffer
+    public static final int MAX_FRAME_LENGTH = NioConnection.MAX_LINE_LENGTH - 5;
+
+    // client to server
+    public static final int CREATE = 0x01;      // name
+    public static final int JOIN = 0x02;        // name, gameId[, reconnect token]
+    public static final int LEAVE = 0x03;       // name, gameId
+    public static final int START = 0x04;       // gameId
+    public static final int RESYNC = 0x05;      // gameId
+    public static final int TEXT_COMMAND = 0x06; // any text command line
+    public static final int ADD_BOT = 0x07;     // gameId, strategy
+    // ACTION + Game.Action ordinal: gameId, name, amount
+    public static final int ACTION = 0x10;
+
+    // server to client
+    public static final int TEXT = 0x41;        // one text line
+    public static final int SNAPSHOT = 0x42;    // GameSnapshot
+    public static final int DELTA = 0x43;       // GameDelta
+    public static final int HOLE_CARDS = 0x44;  // cards
+
+    private static final Gson gson = new Gson();
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Starts a frame; write the payload, then {@link #finish}.
+     */
+    public static ByteArrayOutputStream begin(int opcode) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(opcode);
+        return out;
+    }
+
+    /**
+     * Prefixes the length and returns the frame, ready to be sent to any
+     * number of connections.
+     */
+    public static ByteBuffer finish(ByteArrayOutputStream body) {
+        byte[] bytes = body.toByteArray();
+        ByteBuffer frame = ByteBuffer.allocate(bytes.length + 5);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            frame.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        frame.put((byte) length).put(bytes).flip();
+        return frame;
+    }
+
+    public static ByteBuffer text(String line) {
+        ByteArrayOutputStream out = begin(TEXT);
+        WireCodec.writeString(out, line);
+        return finish(out);
+    }
+
+    public static ByteBuffer snapshot(GameSnapshot snapshot) {
+        ByteArrayOutputStream out = begin(SNAPSHOT);
+        WireCodec.writeSnapshot(out, snapshot);
+        return finish(out);
+    }
+
+    public static ByteBuffer delta(GameDelta delta) {
+        ByteArrayOutputStream out = begin(DELTA);
+        delta.writeTo(out);
+        return finish(out);
+    }
+
+    public static ByteBuffer holeCards(List<Card> cards) {
+        ByteArrayOutputStream out = begin(HOLE_CARDS);
+        WireCodec.writeCards(out, cards);
+        return finish(out);
+    }
+
+    /**
+     * Reads one frame from a blocking stream and returns its opcode and
+     * payload, or null at the end of the stream.
+     */
+    public static ByteBuffer readFrame(DataInputStream in) throws IOException {
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return null;
+                }
+                throw new EOFException("Truncated frame length");
+            }
+            length |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                break;
+            }
+            if (shift >= 28) {
+                throw new IOException("Frame length too long");
+            }
+        }
+        if (length == 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte[] frame = new byte[(int) length];
+        in.readFully(frame);
+        return ByteBuffer.wrap(frame);
+    }
+
+    /**
+     * Length of the frame at the buffer's position, including its varint
+     * prefix, or -1 if the buffer does not hold all of it yet.
+     */
+    static int completeFrameLength(ByteBuffer buffer) throws IOException {
+        int length = 0;
+        int position = buffer.position();
+        for (int i = 0; i < 4; i++) {
+            if (position + i >= buffer.limit()) {
+                return -1;
+            }
+            int b = buffer.get(position + i) & 0xFF;
+            length |= (b & 0x7F) << (7 * i);
+            if (b < 0x80) {
+                if (length == 0 || length > MAX_FRAME_LENGTH) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                int total = i + 1 + length;
+                return buffer.remaining() >= total ? total : -1;
+            }
+        }
+        throw new IOException("Frame length too long");
+    }
+
+    /**
+     * Encodes a text command as a frame. Lines that are not one of the
+     * known commands are sent as {@link #TEXT_COMMAND}.
+     */
+    public static ByteBuffer encodeCommand(String line) {
+        String[] parts = line.split(":");
+        String command = parts[0].toUpperCase();
+        ByteArrayOutputStream out;
+        try {
+            if (command.equals("CREATE") && parts.length == 2) {
+                out = begin(CREATE);
+                WireCodec.writeString(out, parts[1]);
+            } else if (command.equals("JOIN") && (parts.length == 3 || parts.length == 4)) {
+                out = begin(JOIN);
+                WireCodec.writeString(out, parts[1]);
+                WireCodec.writeString(out, parts[2]);
+                if (parts.length == 4) {
+                    WireCodec.writeString(out, parts[3]);
+                }
+            } else if (command.equals("LEAVE_GAME") && parts.length == 3) {
+                out = begin(LEAVE);
+                WireCodec.writeString(out, parts[1]);
+                WireCodec.writeString(out, parts[2]);
+            } else if (command.equals("START_GAME") && parts.length == 2) {
+                out = begin(START);
+                WireCodec.writeString(out, parts[1]);
+            } else if (command.equals("RESYNC") && parts.length == 2) {
+                out = begin(RESYNC);
+                WireCodec.writeString(out, parts[1]);
+            } else if (command.equals("ADD_BOT") && parts.length == 3) {
+                out = begin(ADD_BOT);
+                WireCodec.writeString(out, parts[1]);
+                WireCodec.writeString(out, parts[2]);
+            } else {
+                Game.Action action = actionOf(command);
+                if (action == null || parts.length < 3) {
+                    return textCommand(line);
+                }
+                out = begin(ACTION + action.ordinal());
+                WireCodec.writeString(out, parts[1]);
+                WireCodec.writeString(out, parts[2]);
+                WireCodec.writeInt(out, parts.length > 3 ? Integer.parseInt(parts[3]) : 0);
+            }
+        } catch (NumberFormatException e) {
+            return textCommand(line);
+        }
+        return finish(out);
+    }
+
+    private static ByteBuffer textCommand(String line) {
+        ByteArrayOutputStream out = begin(TEXT_COMMAND);
+        WireCodec.writeString(out, line);
+        return finish(out);
+    }
+
+    /**
+     * The action of a text command, {@code NEXTGAME} being {@code NEXT}.
+     */
+    static Game.Action actionOf(String command) {
+        switch (command) {
+            case "FOLD":
+                return Game.Action.FOLD;
+            case "CHECK":
+                return Game.Action.CHECK;
+            case "CALL":
+                return Game.Action.CALL;
+            case "BET":
+                return Game.Action.BET;
+            case "RAISE":
+                return Game.Action.RAISE;
+            case "NEXTGAME":
+                return Game.Action.NEXT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The text line a server frame stands for, e.g. {@code DELTA:<json>}.
+     * For debugging: it re-encodes the payload as JSON.
+     */
+    public static String toText(ByteBuffer frame) {
+        int opcode = WireCodec.readByte(frame);
+        switch (opcode) {
+            case TEXT:
+                String line = WireCodec.readString(frame);
+                return line == null ? "" : line;
+            case SNAPSHOT:
+                return "SNAPSHOT:" + gson.toJson(WireCodec.readSnapshot(frame));
+            case DELTA:
+                return "DELTA:" + gson.toJson(GameDelta.readFrom(frame));
+            case HOLE_CARDS:
+                return "HOLE_CARDS:" + gson.toJson(WireCodec.readCards(frame));
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pokerproject.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.pokerproject.bot.BotAction;
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.log.Logger;
+import com.pokerproject.model.GameSnapshot;
+
+/**
+ * Runs {@link BotStrategy} decisions for every table on a small fixed pool
+ * with a bounded queue, so thousands of bots need no thread of their own.
+ *
+ * Each decision gets a time budget that starts when it is asked for. If
+ * the strategy has not answered when the budget runs out, or the queue is
+ * full, the table is told to play the bot's fallback instead (see
+ * {@link GameTable}) and a late answer is dropped. The answer is posted
+ * back to the table as an ordinary command.
+ */
+final class BotScheduler {
+
+    private static final Logger LOG = Logger.get(BotScheduler.class);
+
+    private final ThreadPoolExecutor workers;
+    // budget timeouts and think delays
+    private final ScheduledThreadPoolExecutor timer;
+    private final long budgetNanos;
+    private final long delayMillis;
+
+    BotScheduler(int threads, int queueCapacity, long budgetMillis, long delayMillis) {
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "bot-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "bot-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Asks {@code strategy} for the move of {@code botName} at
+     * {@code version} of the table, after the think delay. The answer, or
+     * null when there is none in time, goes to
+     * {@link GameTable#playBotAction}.
+     */
+    void decide(GameTable table, long version, String botName, BotStrategy strategy, GameSnapshot view) {
+        if (delayMillis > 0) {
+            timer.schedule(() -> start(table, version, botName, strategy, view), delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            start(table, version, botName, strategy, view);
+        }
+    }
+
+    /**
+     * Plays an action that needs no thinking, such as dealing the next hand,
+     * after the think delay.
+     */
+    void play(GameTable table, long version, String botName, BotAction action) {
+        if (delayMillis > 0) {
+            timer.schedule(() -> table.submit(game -> table.playBotAction(version, botName, action)),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            table.submit(game -> table.playBotAction(version, botName, action));
+        }
+    }
+
+    /**
+     * One outstanding decision; answered by the strategy or the timeout,
+     * whichever comes first.
+     */
+    private static final class Pending {
+        final AtomicBoolean answered = new AtomicBoolean();
+        volatile Future<?> thinking;
+        volatile ScheduledFuture<?> timeout;
+    }
+
+    private void start(GameTable table, long version, String botName, BotStrategy strategy, GameSnapshot view) {
+        long deadline = System.nanoTime() + budgetNanos;
+        Pending pending = new Pending();
+        try {
+            pending.thinking = workers.submit(() -> {
+                BotAction action = null;
+                try {
+                    action = strategy.decide(view, botName, deadline);
+                } catch (RuntimeException e) {
+                    LOG.error("Bot {} failed", botName, e);
+                }
+                if (answer(pending, table, version, botName, action)) {
+                    ScheduledFuture<?> timeout = pending.timeout;
+                    if (timeout != null) {
+                        timeout.cancel(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            answer(pending, table, version, botName, null);
+            return;
+        }
+        pending.timeout = timer.schedule(() -> {
+            if (answer(pending, table, version, botName, null)) {
+                pending.thinking.cancel(true);
+            }
+        }, budgetNanos, TimeUnit.NANOSECONDS);
+        // answered before the timeout was set
+        if (pending.answered.get()) {
+            pending.timeout.cancel(false);
+        }
+    }
+
+    private static boolean answer(Pending pending, GameTable table, long version, String botName,
+            BotAction action) {
+        if (!pending.answered.compareAndSet(false, true)) {
+            return false;
+        }
+        table.submit(game -> table.playBotAction(version, botName, action));
+        return true;
+    }
+}
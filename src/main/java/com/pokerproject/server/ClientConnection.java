@@ -0,0 +1,52 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Outgoing side of one client connection, independent of the transport.
+ * Every message is sent as one line.
+ */
+public interface ClientConnection {
+
+    /**
+     * Sends a line made by {@link #encodeLine(String)}. The buffer may be
+     * shared with other connections, so implementations read it through a
+     * duplicate and never change its content or position.
+     */
+    void send(ByteBuffer line);
+
+    /**
+     * Sends a line and tells {@code delivery} once it has been written, or
+     * dropped.
+     */
+    default void send(ByteBuffer line, Delivery delivery) {
+        send(line);
+        delivery.delivered();
+    }
+
+    default void send(String message) {
+        send(encodeLine(message));
+    }
+
+    void close();
+
+    /**
+     * Incoming bytes from now on are {@link BinaryProtocol} frames for
+     * {@link ClientHandler#handleFrame}. Transports that leave reading to
+     * the handler ignore this.
+     */
+    default void switchToBinary() {
+    }
+
+    /**
+     * UTF-8 bytes of the message plus the newline, encoded once and then
+     * sent to any number of connections.
+     */
+    static ByteBuffer encodeLine(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer line = ByteBuffer.allocate(bytes.length + 1);
+        line.put(bytes).put((byte) '\n').flip();
+        return line;
+    }
+}
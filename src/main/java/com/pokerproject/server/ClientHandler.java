@@ -1,256 +1,504 @@
 package com.pokerproject.server;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.Socket;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.gson.Gson;
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.log.Logger;
+import com.pokerproject.model.Card;
 import com.pokerproject.model.Game;
+import com.pokerproject.model.GameSnapshot;
 import com.pokerproject.model.JoinGameResult;
 import com.pokerproject.model.Player;
 
 public class ClientHandler implements Runnable {
 
-    private Socket clientSocket;
-    private BufferedReader in;
-    private PrintWriter out;
-    private Player player;
-    private Game currentGame;
+    private static final Logger LOG = Logger.get(ClientHandler.class);
+    private static final Game.Action[] ACTIONS = Game.Action.values();
+    private static final byte[] BINARY = "BINARY".getBytes(StandardCharsets.US_ASCII);
+    // reconnect tokens, handed to each player that creates or joins a game
+    private static final SecureRandom TOKENS = new SecureRandom();
+
+    private final ClientConnection out;
+    private InputStream in;
+    // reused for every line of a blocking connection
+    private byte[] lineBytes = new byte[256];
+    // written by table threads as well as the connection's own thread
+    private volatile Player player;
+    private volatile GameTable currentTable;
+    // set once, before the client joins a table
+    private volatile boolean binary;
+    // parsers and the join-time binding, only used on the connection's own thread
+    private final TextCommand textCommand = new TextCommand();
+    private final FrameCommand frameCommand = new FrameCommand();
+    private byte[] boundName;
+    private byte[] boundGameId;
+    // when the command being handled was read, for the action-to-write latency
+    private long receivedAt;
+    private final AtomicBoolean disconnected = new AtomicBoolean();
     private static final Gson gson = new Gson();
 
-    public ClientHandler(Socket socket) {
-        this.clientSocket = socket;
+    /**
+     * Handler for a blocking socket; {@link #run()} reads it line by line,
+     * and a thread from {@code writers} writes what is sent to it.
+     */
+    public ClientHandler(Socket socket, Executor writers) {
+        ServerMetrics.CONNECTIONS.increment();
+        SocketConnection connection = null;
         try {
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            out = new PrintWriter(clientSocket.getOutputStream(), true);
+            connection = new SocketConnection(socket, writers);
+            in = new BufferedInputStream(socket.getInputStream());
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.warn("Could not open the client's socket", e);
         }
+        this.out = connection;
+    }
+
+    /**
+     * Handler for a connection whose transport delivers the lines itself
+     * through {@link #handleLine(ByteBuffer)} and {@link #disconnect()}.
+     */
+    public ClientHandler(ClientConnection connection) {
+        ServerMetrics.CONNECTIONS.increment();
+        this.out = connection;
     }
 
     @Override
     public void run() {
         try {
-            String message;
-            while ((message = in.readLine()) != null) {
-                String[] parts = message.split(":");
-
-                if (parts[0].equalsIgnoreCase("CREATE") && parts.length == 2) {
-                    String playerName = parts[1];
-                    if (playerName == null || playerName.trim().isEmpty()) {
-                        out.println("Player name cannot be empty.");
-                        out.println("");
-                        continue;
-                    }
-                    this.player = new Player(playerName, this, true);
-                    GameManager manager = GameManager.getInstance();
-                    currentGame = manager.createGame(player);
-                    String gameJson = gson.toJson(currentGame);
-                    String gameId = currentGame.getGameId();
-                    out.println("Game created successfully! Game ID: " + gameId);
-                    out.println(gameJson);
-                    continue;
-                } else if (parts[0].equalsIgnoreCase("JOIN") && parts.length == 3) {
-                    String playerName = parts[1];
-                    String gameId = parts[2];
-                    if (playerName == null || playerName.trim().isEmpty()) {
-                        out.println("Player name cannot be empty.");
-                        out.println("");
-                        continue;
-                    }
-                    GameManager manager = GameManager.getInstance();
-                    Game game = manager.getGame(gameId);
-                    if (game == null) {
-                        out.println("Game not found.");
-                        out.println("");
-                        continue;
-                    }
-                    if (game.isPlayerNameExists(playerName)) {
-                        out.println("This name is already taken in the game.");
-                        out.println("");
-                        continue;
-                    }
-                    this.player = new Player(playerName, this, false);
-                    JoinGameResult joinGameResult = manager.joinGame(gameId, player);
-                    currentGame = joinGameResult.getGame();
-                    if (currentGame == null) {
-                        out.println(joinGameResult.getError());
-                        out.println("");
-                        continue;
-                    }
-
-                    String gameJson = gson.toJson(currentGame);
-                    out.println("Joined game: " + gameId);
-                    out.println(gameJson);
-                    broadcastToGame("UPDATE_GAME:" + gameJson);
-                    continue;
+            ByteBuffer line = ByteBuffer.wrap(lineBytes);
+            int length;
+            while (!binary && (length = readLine()) >= 0) {
+                if (line.array() != lineBytes) {
+                    line = ByteBuffer.wrap(lineBytes);
                 }
-
-                if (player == null) {
-                    out.println("You must JOIN or CREATE a game first.");
-                    out.println("");
-                    continue;
-                }
-
-                if (message.startsWith("LEAVE_GAME:")) {
-                    String[] exitParts = message.split(":", 3);
-                    if (exitParts.length < 3) {
-                        out.println("Invalid LEAVE_GAME command format.");
-                        continue;
-                    }
-                    String playerName = exitParts[1];
-                    String gameId = exitParts[2];
-
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    if (game != null) {
-
-                        boolean removed = game.removePlayerByName(playerName);
-                        if (game.getPlayers().isEmpty()) {
-                            GameManager.getInstance().removeGame(gameId);
-                        }
-                        if (removed) {
-                            out.println("LEAVE_GAME_SUCCESS");
-                            String gameJson = gson.toJson(game);
-                            broadcastToOthers("UPDATE_GAME:" + gameJson, playerName);
-                        } else {
-                            out.println("Failed to leave game - player not found");
-                        }
-                    } else {
-                        out.println("Game not found");
-                    }
-                    broadcastToOthers("END:", playerName);
-                    currentGame = null;
-                    continue;
-                } else if (message.startsWith("START_GAME:")) {
-                    String[] startParts = message.split(":", 2);
-                    String gameId = startParts[1];
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    game.setState(Game.State.PLAYING);
-                    game.getDeck().shuffle();
-                    game.initializeFirstDealer();
-                    List<Player> players = game.getPlayers();
-                    game.getDeck().dealCardsFromPosition(players, 0, 2);
-                    String gameJson = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJson);
-                    continue;
-                } else if (message.startsWith("FOLD:")) {
-                    String[] foldParts = message.split(":", 3);
-                    String gameId = foldParts[1];
-                    String playerName = foldParts[2];
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.FOLD, 0);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
-                } else if (message.startsWith("CHECK:")) {
-                    String[] checkParts = message.split(":", 3);
-                    String gameId = checkParts[1];
-                    String playerName = checkParts[2];
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.CHECK, 0);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
-                } else if (message.startsWith("CALL:")) {
-                    String[] callParts = message.split(":", 4);
-                    String gameId = callParts[1];
-                    String playerName = callParts[2];
-                    String callAmountStr = callParts[3];
-                    int callAmount = Integer.parseInt(callAmountStr);
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.CALL, callAmount);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
-                } else if (message.startsWith("BET:")) {
-                    String[] betParts = message.split(":", 4);
-                    String gameId = betParts[1];
-                    String playerName = betParts[2];
-                    String betAmountStr = betParts[3];
-                    int betAmount = Integer.parseInt(betAmountStr);
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.BET, betAmount);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
-                } else if (message.startsWith("RAISE:")) {
-                    String[] raiseParts = message.split(":", 4);
-                    String gameId = raiseParts[1];
-                    String playerName = raiseParts[2];
-                    String raiseAmountStr = raiseParts[3];
-                    int raiseAmount = Integer.parseInt(raiseAmountStr);
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.RAISE, raiseAmount);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
-                } else if (message.startsWith("NEXTGAME:")) {
-                    String[] nextParts = message.split(":", 3);
-                    String gameId = nextParts[1];
-                    String playerName = nextParts[2];
-                    Game game = GameManager.getInstance().getGame(gameId);
-                    Player actionPlayer = game.getPlayerByName(playerName);
-                    game.processPlayerAction(actionPlayer, Game.Action.NEXT, 0);
-                    String gameJsonFold = gson.toJson(game);
-                    broadcastToGame("UPDATE_GAME:" + gameJsonFold);
-                    continue;
+                line.limit(length).position(0);
+                handleLine(line);
+            }
+            if (binary) {
+                DataInputStream frames = new DataInputStream(in);
+                ByteBuffer frame;
+                while ((frame = BinaryProtocol.readFrame(frames)) != null) {
+                    handleFrame(frame);
                 }
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            // the client went away
+            LOG.debug("Connection closed", e);
         } catch (Exception e) {
+            LOG.warn("Dropping the connection, a command failed", e);
         } finally {
-            cleanup();
+            disconnect();
         }
     }
 
-    private void broadcastToOthers(String message, String excludePlayerName) {
-        if (currentGame != null) {
-            for (Player p : currentGame.getPlayers()) {
-                if (!p.getName().equals(excludePlayerName)) {
-                    p.getHandler().sendMessage(message);
+    /**
+     * Reads one line, without its newline, into {@link #lineBytes} and
+     * returns its length, or -1 at the end of the stream.
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (length == lineBytes.length) {
+                if (length >= NioConnection.MAX_LINE_LENGTH) {
+                    throw new IOException("Line longer than " + NioConnection.MAX_LINE_LENGTH + " bytes");
                 }
+                lineBytes = Arrays.copyOf(lineBytes, Math.min(length * 2, NioConnection.MAX_LINE_LENGTH));
             }
+            lineBytes[length++] = (byte) b;
         }
+        return b < 0 && length == 0 ? -1 : length;
     }
 
-    public void sendMessage(String message) {
-        out.println(message);
+    /**
+     * Runs one command given as a string; {@link #handleLine(ByteBuffer)}
+     * does the same without decoding.
+     */
+    public void handleMessage(String message) {
+        handleLine(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Runs the command line between the buffer's position and limit. The
+     * buffer is only read during the call. An exception means the connection
+     * should be dropped, as it was when the read loop died on it.
+     *
+     * Commands that touch a game are posted to that game's {@link GameTable}
+     * and run, broadcast and reply on the table's thread.
+     */
+    public void handleLine(ByteBuffer line) {
+        long start = ServerMetrics.start();
+        receivedAt = start;
+        int opcode = textCommand.parse(line);
+        if (opcode == TextCommand.HELLO) {
+            if (currentTable == null && !binary && textCommand.nextEquals(BINARY)) {
+                switchToBinary();
+            }
+            return;
+        }
+        dispatch(opcode, textCommand);
+        ServerMetrics.stop(ServerMetrics.COMMAND_PARSE, start);
     }
 
-    private void broadcastToGame(String message) {
-        if (currentGame != null) {
-            List<Player> playersCopy = new ArrayList<>(currentGame.getPlayers());
-            for (Player p : playersCopy) {
-                try {
-                    p.getHandler().sendMessage(message);
-                } catch (Exception e) {
-                    System.err.println("Failed to send message to player " + p.getName() + ": " + e.getMessage());
+    /**
+     * Runs one {@link BinaryProtocol} frame, positioned at its opcode. The
+     * frame is only read during the call.
+     */
+    public void handleFrame(ByteBuffer frame) {
+        long start = ServerMetrics.start();
+        receivedAt = start;
+        int opcode = frameCommand.parse(frame);
+        if (opcode == BinaryProtocol.TEXT_COMMAND) {
+            handleMessage(frameCommand.nextString());
+            return;
+        }
+        dispatch(opcode, frameCommand);
+        ServerMetrics.stop(ServerMetrics.COMMAND_PARSE, start);
+    }
+
+    /**
+     * Runs a command from either protocol. Once the client is seated its
+     * game and name were bound at join time; the ones a command carries must
+     * match them and are never looked up.
+     */
+    private void dispatch(int opcode, CommandArgs args) {
+        switch (opcode) {
+            case BinaryProtocol.CREATE:
+                create(args.hasNext() ? args.nextString() : null);
+                return;
+            case BinaryProtocol.JOIN:
+                String playerName = args.hasNext() ? args.nextString() : null;
+                String gameId = args.hasNext() ? args.nextString() : null;
+                join(playerName, gameId, args.hasNext() ? args.nextString() : null);
+                return;
+            default:
+                break;
+        }
+
+        if (!requireTable()) {
+            return;
+        }
+
+        switch (opcode) {
+            case BinaryProtocol.LEAVE:
+                if (args.nextEquals(boundName) && args.nextEquals(boundGameId)) {
+                    leave();
+                } else {
+                    reply("Failed to leave game - player not found");
+                }
+                break;
+            case BinaryProtocol.START:
+                if (args.nextEquals(boundGameId)) {
+                    start();
+                }
+                break;
+            case BinaryProtocol.RESYNC:
+                resync();
+                break;
+            case BinaryProtocol.ADD_BOT:
+                if (args.nextEquals(boundGameId)) {
+                    addBot(args.hasNext() ? args.nextString() : "equity");
                 }
+                break;
+            default:
+                if (opcode >= BinaryProtocol.ACTION && opcode < BinaryProtocol.ACTION + ACTIONS.length
+                        && args.nextEquals(boundGameId) && args.nextEquals(boundName)) {
+                    int amount = args.hasNext() ? args.nextInt() : 0;
+                    submitAction(ACTIONS[opcode - BinaryProtocol.ACTION], amount);
+                }
+                break;
+        }
+    }
+
+    private void switchToBinary() {
+        out.send(BinaryProtocol.HELLO);
+        binary = true;
+        out.switchToBinary();
+    }
+
+    private boolean requireTable() {
+        if (currentTable == null) {
+            reply("You must JOIN or CREATE a game first.");
+            reply("");
+            return false;
+        }
+        return true;
+    }
+
+    private void create(String playerName) {
+        if (playerName == null || playerName.trim().isEmpty()) {
+            reply("Player name cannot be empty.");
+            reply("");
+            return;
+        }
+        Player creater = new Player(playerName, this, true);
+        creater.setReconnectToken(newReconnectToken());
+        GameTable table = GameManager.getInstance().createGame(creater);
+        this.player = creater;
+        bind(table, playerName);
+        table.submit(game -> {
+            GameSnapshot view = table.commit(this).viewFor(playerName);
+            reply("Game created successfully! Game ID: " + game.getGameId());
+            replySnapshot(view);
+            reply("TOKEN:" + creater.getReconnectToken());
+        });
+    }
+
+    /**
+     * Seats the player, or gives a seat restored after a restart back to
+     * the client holding the token its player was given.
+     */
+    private void join(String playerName, String gameId, String token) {
+        if (playerName == null || playerName.trim().isEmpty()) {
+            reply("Player name cannot be empty.");
+            reply("");
+            return;
+        }
+        GameManager manager = GameManager.getInstance();
+        GameTable table = gameId == null ? null : manager.getGame(gameId);
+        if (table == null) {
+            reply("Game not found.");
+            reply("");
+            return;
+        }
+        // bound right away so later commands queue up behind the join
+        bind(table, playerName);
+        table.submit(game -> {
+            if (disconnected.get()) {
+                // gone while the join waited its turn, a seat would never act
+                unbind(table);
+                return;
+            }
+            Player seated = game.getPlayerByName(playerName);
+            if (seated != null && !table.isBot(playerName) && seated.reconnect(this, token)) {
+                this.player = seated;
+                GameSnapshot view = table.commit(this).viewFor(playerName);
+                reply("Joined game: " + gameId);
+                replySnapshot(view);
+                return;
+            }
+            if (game.isPlayerNameExists(playerName)) {
+                unbind(table);
+                reply("This name is already taken in the game.");
+                reply("");
+                return;
+            }
+            Player joining = new Player(playerName, this, false);
+            joining.setReconnectToken(newReconnectToken());
+            JoinGameResult joinGameResult = manager.joinGame(game, joining);
+            if (joinGameResult.getGame() == null) {
+                unbind(table);
+                reply(joinGameResult.getError());
+                reply("");
+                return;
+            }
+            this.player = joining;
+
+            // the others get the join as a delta, the new player starts from this snapshot
+            GameSnapshot view = table.commit(this).viewFor(playerName);
+            reply("Joined game: " + gameId);
+            replySnapshot(view);
+            reply("TOKEN:" + joining.getReconnectToken());
+        });
+    }
+
+    private static String newReconnectToken() {
+        byte[] token = new byte[16];
+        TOKENS.nextBytes(token);
+        return HexFormat.of().formatHex(token);
+    }
+
+    private void bind(GameTable table, String playerName) {
+        boundName = playerName.getBytes(StandardCharsets.UTF_8);
+        boundGameId = table.getGameId().getBytes(StandardCharsets.UTF_8);
+        currentTable = table;
+    }
+
+    private void unbind(GameTable table) {
+        if (currentTable == table) {
+            currentTable = null;
+        }
+    }
+
+    private void leave() {
+        GameTable table = currentTable;
+        Player leaving = player;
+        currentTable = null;
+        table.submit(game -> {
+            boolean removed = leaving != null && game.removePlayerByName(leaving.getName());
+            if (game.getPlayers().isEmpty()) {
+                GameManager.getInstance().removeGame(game.getGameId());
+            }
+            if (removed) {
+                reply("LEAVE_GAME_SUCCESS");
+                table.commit(this);
+            } else {
+                reply("Failed to leave game - player not found");
             }
+            broadcastToOthers(game, "END:", leaving == null ? null : leaving.getName());
+            table.closeIfOnlyBots();
+        });
+    }
+
+    private void start() {
+        currentTable.submit(game -> GameManager.getInstance().startGame(game));
+    }
+
+    /**
+     * Seats a bot, e.g. for a practice table; the others see it join like
+     * any player.
+     */
+    private void addBot(String strategyName) {
+        BotStrategy strategy = BotStrategy.forName(strategyName);
+        if (strategy == null) {
+            reply("Unknown bot: " + strategyName);
+            return;
         }
+        GameTable table = currentTable;
+        table.submit(game -> {
+            if (table.addBot(strategy, false) == null) {
+                reply("Game id: " + game.getGameId() + " is full.");
+            }
+        });
     }
 
-    private void cleanup() {
-        try {
-            if (currentGame != null && player != null) {
-                currentGame.removePlayer(player);
-                broadcastToGame(player.getName() + " has left the game.");
+    /**
+     * The client missed a delta; send the whole state again.
+     */
+    private void resync() {
+        GameTable table = currentTable;
+        table.submit(game -> {
+            Player viewer = player;
+            GameSnapshot snapshot = table.commit(null);
+            replySnapshot(snapshot.viewFor(viewer == null ? null : viewer.getName()));
+        });
+    }
+
+    private void submitAction(Game.Action action, int amount) {
+        GameTable table = currentTable;
+        long received = receivedAt;
+        table.submit(game -> {
+            Player actor = player;
+            if (actor == null) {
+                reply("You must JOIN or CREATE a game first.");
+                reply("");
+                return;
             }
-            in.close();
-            out.close();
-            clientSocket.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            table.act(actor, action, amount, received);
+        });
+    }
+
+    private void broadcastToOthers(Game game, String message, String excludePlayerName) {
+        ByteBuffer line = null;
+        ByteBuffer frame = null;
+        for (Player p : game.getPlayers()) {
+            ClientHandler handler = p.getHandler();
+            if (handler == null || p.getName().equals(excludePlayerName)) {
+                continue;
+            }
+            if (handler.isBinary()) {
+                if (frame == null) {
+                    frame = BinaryProtocol.text(message);
+                }
+                handler.sendEncoded(frame);
+            } else {
+                if (line == null) {
+                    line = ClientConnection.encodeLine(message);
+                }
+                handler.sendEncoded(line);
+            }
+        }
+    }
+
+    private void broadcastToGame(Game game, String message) {
+        broadcastToOthers(game, message, null);
+    }
+
+    private void reply(String message) {
+        if (binary) {
+            out.send(BinaryProtocol.text(message));
+        } else {
+            out.send(message);
+        }
+    }
+
+    private void replySnapshot(GameSnapshot view) {
+        if (binary) {
+            out.send(BinaryProtocol.snapshot(view));
+        } else {
+            out.send("SNAPSHOT:" + ServerMetrics.toJson(gson, view));
+        }
+    }
+
+    public void sendMessage(String message) {
+        reply(message);
+    }
+
+    /**
+     * Whether this client speaks {@link BinaryProtocol} frames rather than
+     * text lines.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Sends bytes already encoded for this client's protocol, e.g. a line
+     * from {@link ClientConnection#encodeLine(String)} or a
+     * {@link BinaryProtocol} frame shared by a whole table.
+     */
+    public void sendEncoded(ByteBuffer message) {
+        out.send(message);
+    }
+
+    /**
+     * Sends like {@link #sendEncoded(ByteBuffer)} and tells
+     * {@code delivery} once the message is written.
+     */
+    void sendEncoded(ByteBuffer message, Delivery delivery) {
+        out.send(message, delivery);
+    }
+
+    public void sendHoleCards(List<Card> cards) {
+        if (binary) {
+            out.send(BinaryProtocol.holeCards(cards));
+        } else {
+            out.send("HOLE_CARDS:" + ServerMetrics.toJson(gson, cards));
+        }
+    }
+
+    public void disconnect() {
+        if (!disconnected.compareAndSet(false, true)) {
+            return;
+        }
+        ServerMetrics.CONNECTIONS.decrement();
+        GameTable table = currentTable;
+        if (table != null) {
+            // by the bound name, the player is only set once a queued join has run
+            String name = new String(boundName, StandardCharsets.UTF_8);
+            table.submit(game -> {
+                Player leaving = game.getPlayerByName(name);
+                if (leaving == null || leaving.getHandler() != this) {
+                    return;
+                }
+                game.removePlayer(leaving);
+                broadcastToGame(game, leaving.getName() + " has left the game.");
+                table.closeIfOnlyBots();
+            });
         }
+        out.close();
     }
 }
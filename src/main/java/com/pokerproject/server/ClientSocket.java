@@ -1,29 +1,92 @@
 package com.pokerproject.server;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 public class ClientSocket {
 
     private final Socket socket;
     private final BufferedReader in;
     private final PrintWriter out;
+    private DataInputStream frameIn;
+    private OutputStream frameOut;
 
     public ClientSocket(String serverAddress, int port) throws IOException {
+        this(serverAddress, port, false);
+    }
+
+    /**
+     * @param binary ask the server for {@link BinaryProtocol} frames. Messages
+     *               are still sent as the text lines of the plain protocol
+     *               and encoded here; frames are decoded straight into
+     *               {@link ServerMessage}s. Falls back to text if the server
+     *               does not answer the hello.
+     */
+    public ClientSocket(String serverAddress, int port, boolean binary) throws IOException {
         socket = new Socket(serverAddress, port);
+        socket.setTcpNoDelay(true);
         in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
         out = new PrintWriter(socket.getOutputStream(), true);
+        if (binary) {
+            out.println(BinaryProtocol.HELLO);
+            // nothing follows the reply until we send a command, so the reader holds no frame bytes
+            if (BinaryProtocol.HELLO.equals(in.readLine())) {
+                frameIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                frameOut = socket.getOutputStream();
+            }
+        }
+    }
+
+    public boolean isBinary() {
+        return frameOut != null;
     }
 
     public void sendMessage(String message) {
-        out.println(message);
+        if (frameOut == null) {
+            out.println(message);
+            return;
+        }
+        ByteBuffer frame = BinaryProtocol.encodeCommand(message);
+        try {
+            synchronized (frameOut) {
+                frameOut.write(frame.array(), frame.position(), frame.remaining());
+                frameOut.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to send message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the next message, or returns null at the end of the stream.
+     */
+    public ServerMessage read() throws IOException {
+        if (frameIn == null) {
+            String line = in.readLine();
+            return line == null ? null : ServerMessage.parse(line);
+        }
+        ByteBuffer frame = BinaryProtocol.readFrame(frameIn);
+        return frame == null ? null : ServerMessage.decode(frame);
     }
 
+    /**
+     * Reads the next message as its text line, for debugging and tools that
+     * print what the server sends. In binary mode the frame is re-encoded as
+     * JSON, so the client itself uses {@link #read()}.
+     */
     public String readMessage() throws IOException {
-        return in.readLine();
+        if (frameIn == null) {
+            return in.readLine();
+        }
+        ByteBuffer frame = BinaryProtocol.readFrame(frameIn);
+        return frame == null ? null : BinaryProtocol.toText(frame);
     }
 
     public void close() throws IOException {
@@ -0,0 +1,24 @@
+package com.pokerproject.server;
+
+/**
+ * Arguments of one parsed command, read in order straight from the
+ * connection's buffer. Only {@link #nextString()} allocates; commands that
+ * run while a player is seated compare their arguments against the values
+ * bound at join time instead.
+ *
+ * Readers throw {@link IllegalArgumentException} on malformed input.
+ */
+interface CommandArgs {
+
+    boolean hasNext();
+
+    String nextString();
+
+    /**
+     * Consumes the next argument and tells whether its UTF-8 bytes are
+     * {@code expected}.
+     */
+    boolean nextEquals(byte[] expected);
+
+    int nextInt();
+}
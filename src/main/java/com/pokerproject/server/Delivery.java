@@ -0,0 +1,35 @@
+package com.pokerproject.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Follows one broadcast caused by a client's action to every connection it
+ * was sent to, and records the time from when the action was read to when
+ * the last of them finished writing it.
+ *
+ * The table holds one share while it sends and takes one more per
+ * connection; each connection gives its share back once the line is
+ * written, or dropped, and the last one back records.
+ */
+public final class Delivery {
+
+    private final long receivedAt;
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    Delivery(long receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    void add() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * One connection is done with the broadcast.
+     */
+    void delivered() {
+        if (pending.decrementAndGet() == 0) {
+            ServerMetrics.END_TO_END.recordSince(receivedAt);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.pokerproject.server;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * A selector thread serving many {@link NioConnection}s. Other threads talk
+ * to it only through {@link #execute(Runnable)}, which queues a task and
+ * wakes the selector once per batch.
+ *
+ * Connections with queued output are flushed once at the end of each tick,
+ * however many lines were sent to them during it.
+ */
+public class EventLoop implements Runnable {
+
+    private static final Logger LOG = Logger.get(EventLoop.class);
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    // lines handed to one gathering write
+    private static final int GATHER_LIMIT = 64;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    // shared by every connection of this loop, only used on the loop thread
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[GATHER_LIMIT];
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    public void execute(Runnable task) {
+        tasks.add(task);
+        wakeup();
+    }
+
+    /**
+     * Queues the connection for the flush at the end of the current tick.
+     * The connection calls this once per burst of sends.
+     */
+    void scheduleFlush(NioConnection connection) {
+        pendingFlushes.add(connection);
+        wakeup();
+    }
+
+    private void wakeup() {
+        if (Thread.currentThread() != thread && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    public void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                // writes are already coalesced per tick, don't let Nagle hold them back
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                NioConnection connection = new NioConnection(channel, this);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.register(key, new ClientHandler(connection));
+            } catch (IOException e) {
+                LOG.warn("Could not register a connection", e);
+                try {
+                    channel.close();
+                } catch (IOException closeError) {
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                runTasks();
+                // one write per connection for everything sent during this tick
+                flushPending();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LOG.error("Event loop stopped", e);
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOG.debug("Could not close the selector", e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable() && !connection.read(readBuffer)) {
+                connection.disconnected();
+                return;
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush(gatherBuffers);
+            }
+        } catch (Exception e) {
+            connection.disconnected();
+        }
+    }
+
+    private void flushPending() {
+        NioConnection connection;
+        while ((connection = pendingFlushes.poll()) != null) {
+            if (!connection.isOpen()) {
+                continue;
+            }
+            try {
+                connection.flush(gatherBuffers);
+            } catch (IOException e) {
+                connection.disconnected();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * Reader for the arguments of one {@link BinaryProtocol} command frame.
+ * One instance is reused for every frame of a connection.
+ */
+final class FrameCommand implements CommandArgs {
+
+    private static final int ACTIONS = Game.Action.values().length;
+
+    private ByteBuffer frame;
+
+    /**
+     * Reads the opcode of a frame positioned at it. Unknown opcodes are
+     * rejected, since the rest of the frame cannot be trusted.
+     */
+    int parse(ByteBuffer frame) {
+        this.frame = frame;
+        int opcode = WireCodec.readByte(frame);
+        boolean known = (opcode >= BinaryProtocol.CREATE && opcode <= BinaryProtocol.ADD_BOT)
+                || (opcode >= BinaryProtocol.ACTION && opcode < BinaryProtocol.ACTION + ACTIONS);
+        if (!known) {
+            throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+        return opcode;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return frame.hasRemaining();
+    }
+
+    @Override
+    public String nextString() {
+        return WireCodec.readString(frame);
+    }
+
+    @Override
+    public boolean nextEquals(byte[] expected) {
+        long length = WireCodec.readVarLong(frame);
+        if (length > frame.remaining()) {
+            throw new IllegalArgumentException("String longer than the frame");
+        }
+        int start = frame.position();
+        frame.position(start + (int) length);
+        if (expected == null || expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (frame.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int nextInt() {
+        return WireCodec.readInt(frame);
+    }
+}
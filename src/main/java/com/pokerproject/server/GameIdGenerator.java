@@ -0,0 +1,95 @@
+package com.pokerproject.server;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collision-free game ids without a lookup-and-retry loop.
+ *
+ * An id is the node's base36 prefix followed by a sequence number. Sequence
+ * numbers come from striped counters: stripe {@code s} hands out
+ * {@code s, s + STRIPES, s + 2 * STRIPES, ...}, so threads on different
+ * stripes never contend and never produce the same number. The low five
+ * base36 digits are multiplied by a constant coprime to 36^5, a bijection
+ * that keeps ids short and unique while not handing out AAAAA1, AAAAA2, ...
+ */
+public class GameIdGenerator {
+
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int STRIPES = 16;
+    // counters 8 longs apart so two stripes never share a cache line
+    private static final int PADDING = 8;
+    private static final long BLOCK = 36L * 36 * 36 * 36 * 36;
+    private static final long SCRAMBLE = 7_777_777L;
+    private static final long UNSCRAMBLE = BigInteger.valueOf(SCRAMBLE)
+            .modInverse(BigInteger.valueOf(BLOCK)).longValue();
+    private static final int BLOCK_DIGITS = 5;
+
+    private final String prefix;
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * @param nodeId 0-35, distinct for every server sharing an id space
+     */
+    public GameIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId >= DIGITS.length()) {
+            throw new IllegalArgumentException("Node id must be between 0 and 35");
+        }
+        this.prefix = String.valueOf(DIGITS.charAt(nodeId));
+    }
+
+    public String next() {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        long sequence = counters.getAndIncrement(stripe * PADDING) * STRIPES + stripe;
+
+        StringBuilder sb = new StringBuilder(prefix);
+        long block = sequence / BLOCK;
+        if (block > 0) {
+            appendBase36(sb, block, 1);
+        }
+        appendBase36(sb, (sequence % BLOCK) * SCRAMBLE % BLOCK, BLOCK_DIGITS);
+        return sb.toString();
+    }
+
+    /**
+     * Makes sure {@link #next()} never hands out {@code id} or anything
+     * before it on the same stripe, e.g. for ids of tables restored after a
+     * restart. Ids of other nodes or of another form are ignored.
+     */
+    public void reserve(String id) {
+        if (!id.startsWith(prefix) || id.length() < prefix.length() + BLOCK_DIGITS) {
+            return;
+        }
+        int split = id.length() - BLOCK_DIGITS;
+        long block = split > prefix.length() ? parseBase36(id, prefix.length(), split) : 0;
+        long scrambled = parseBase36(id, split, id.length());
+        if (block < 0 || scrambled < 0 || scrambled >= BLOCK) {
+            return;
+        }
+        long sequence = block * BLOCK + scrambled * UNSCRAMBLE % BLOCK;
+        int stripe = (int) (sequence % STRIPES);
+        counters.accumulateAndGet(stripe * PADDING, sequence / STRIPES + 1, Math::max);
+    }
+
+    private static long parseBase36(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = DIGITS.indexOf(s.charAt(i));
+            if (digit < 0 || value > Long.MAX_VALUE / 36) {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+
+    private static void appendBase36(StringBuilder sb, long value, int minDigits) {
+        char[] digits = new char[13];
+        int pos = digits.length;
+        do {
+            digits[--pos] = DIGITS.charAt((int) (value % 36));
+            value /= 36;
+        } while (value > 0 || digits.length - pos < minDigits);
+        sb.append(digits, pos, digits.length - pos);
+    }
+}
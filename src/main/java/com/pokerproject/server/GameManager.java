@@ -1,69 +1,364 @@
 package com.pokerproject.server;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.history.HandHistoryReader;
+import com.pokerproject.history.HandHistoryWriter;
+import com.pokerproject.history.HandRecord;
+import com.pokerproject.history.HandRecorder;
+import com.pokerproject.log.Logger;
 import com.pokerproject.model.Game;
 import com.pokerproject.model.JoinGameResult;
 import com.pokerproject.model.Player;
+import com.pokerproject.wal.RecoveredTable;
+import com.pokerproject.wal.TableLog;
+import com.pokerproject.wal.TableLogReader;
 
 public class GameManager {
 
-    private static GameManager instance;
-    private final Map<String, Game> games = new HashMap<>();
-    private final Random random = new Random();
+    private static final Logger LOG = Logger.get(GameManager.class);
+    private static final int TABLE_THREADS = Integer.getInteger("poker.tableThreads",
+            Runtime.getRuntime().availableProcessors());
+    // distinct per server when several share one id space
+    private static final int NODE_ID = Integer.getInteger("poker.nodeId", 0);
+    // bot decisions: threads, queued decisions, time budget per decision and a pause before each
+    private static final int BOT_THREADS = Integer.getInteger("poker.botThreads",
+            Runtime.getRuntime().availableProcessors());
+    private static final int BOT_QUEUE = Integer.getInteger("poker.botQueue", 10_000);
+    private static final long BOT_BUDGET_MS = Long.getLong("poker.botBudgetMs", 200);
+    private static final long BOT_DELAY_MS = Long.getLong("poker.botDelayMs", 0);
+    // hand histories are written under this directory when it is set
+    private static final String HISTORY_DIR = System.getProperty("poker.historyDir");
+    private static final int HISTORY_SEGMENT_MB = Integer.getInteger("poker.historySegmentMb", 64);
+    private static final int HISTORY_QUEUE = Integer.getInteger("poker.historyQueue", 65_536);
+    // tables are journaled under this directory, and restored from it at startup, when it is set
+    private static final String WAL_DIR = System.getProperty("poker.walDir");
+    private static final int WAL_SEGMENT_MB = Integer.getInteger("poker.walSegmentMb", 64);
+    private static final int WAL_QUEUE = Integer.getInteger("poker.walQueue", 65_536);
+    private static final boolean WAL_SYNC = Boolean.parseBoolean(System.getProperty("poker.walSync", "true"));
+    private static final long WAL_CHECKPOINT_SECONDS = Long.getLong("poker.walCheckpointSec", 60);
+
+    private static final GameManager instance = new GameManager();
+    // lock-free lookups; getGame runs for every action message
+    private final ConcurrentMap<String, GameTable> games = new ConcurrentHashMap<>();
+    private final GameIdGenerator idGenerator = new GameIdGenerator(NODE_ID);
+    // every table's commands run on this bounded pool, one drain per table at a time
+    private final ExecutorService tableExecutor = Executors.newFixedThreadPool(TABLE_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "table-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BotScheduler botScheduler = new BotScheduler(BOT_THREADS, BOT_QUEUE, BOT_BUDGET_MS, BOT_DELAY_MS);
+    private final HandHistoryWriter historyWriter = openHistory();
+    private final TableLog tableLog = openTableLog();
+    private long checkpointedAt = -1;
 
     private GameManager() {
     }
 
-    public static synchronized GameManager getInstance() {
-        if (instance == null) {
-            instance = new GameManager();
+    private static HandHistoryWriter openHistory() {
+        if (HISTORY_DIR == null) {
+            return null;
+        }
+        try {
+            HandHistoryWriter writer = new HandHistoryWriter(Paths.get(HISTORY_DIR),
+                    HISTORY_SEGMENT_MB * 1024L * 1024L, HISTORY_QUEUE);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    writer.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            return writer;
+        } catch (IOException e) {
+            LOG.error("Hand history disabled, cannot write to {}", HISTORY_DIR, e);
+            return null;
         }
-        return instance;
     }
 
-    private String generateRandomGameId() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder sb = new StringBuilder(6);
-        for (int i = 0; i < 6; i++) {
-            sb.append(chars.charAt(random.nextInt(chars.length())));
+    private static TableLog openTableLog() {
+        if (WAL_DIR == null) {
+            return null;
+        }
+        try {
+            TableLog log = new TableLog(Paths.get(WAL_DIR), WAL_SEGMENT_MB * 1024L * 1024L, WAL_QUEUE, WAL_SYNC);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            return log;
+        } catch (IOException e) {
+            LOG.error("Table log disabled, cannot write to {}", WAL_DIR, e);
+            return null;
         }
-        return sb.toString();
     }
 
-    public synchronized Game createGame(Player player) {
-        String gameId;
-        do {
-            gameId = generateRandomGameId();
-        } while (games.containsKey(gameId));
+    private Game newGame(String gameId) {
+        return recordHands(new Game(gameId, 50, 100));
+    }
 
-        Game game = new Game(gameId, 50, 100);
-        game.addPlayer(player);
-        games.put(gameId, game);
+    private Game recordHands(Game game) {
+        HandRecorder recorder = newRecorder();
+        if (recorder != null) {
+            game.setHandObserver(recorder);
+        }
         return game;
     }
 
-    public synchronized JoinGameResult joinGame(String gameId, Player player) {
-        Game game = games.get(gameId);
-        if (game == null) {
-            return new JoinGameResult(null, "Failed to join game with id: " + gameId + " (ID may not exist).");
+    private HandRecorder newRecorder() {
+        return historyWriter == null ? null : new HandRecorder(historyWriter);
+    }
+
+    /**
+     * Rebuilds the tables in the table log, each from its last snapshot and
+     * the actions after it, on the table threads. Players come back seated
+     * without a connection until they join again under the same name with
+     * the reconnect token they were given; bot tables carry on by
+     * themselves. Call once at startup, before taking connections;
+     * checkpoints of the log start from here. Returns how many
+     * tables were restored.
+     */
+    public int recover() {
+        if (tableLog == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Collection<RecoveredTable> found;
+        try {
+            found = TableLogReader.read(tableLog.getDirectory());
+        } catch (IOException e) {
+            LOG.error("Could not read the table log", e);
+            return 0;
+        }
+        long read = System.nanoTime();
+
+        Map<String, Long> recorded = lastRecordedHands(found);
+        List<Future<GameTable>> restoring = new ArrayList<>(found.size());
+        for (RecoveredTable recovered : found) {
+            long recordedThrough = recorded.getOrDefault(recovered.getGameId(), 0L);
+            restoring.add(tableExecutor.submit(() -> restore(recovered, recordedThrough)));
+        }
+        int restored = 0;
+        long actions = 0;
+        for (Future<GameTable> future : restoring) {
+            GameTable table;
+            try {
+                table = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOG.error("Could not restore a table", e.getCause());
+                continue;
+            }
+            idGenerator.reserve(table.getGameId());
+            games.put(table.getGameId(), table);
+            restored++;
+        }
+        for (RecoveredTable recovered : found) {
+            actions += recovered.getActionCount();
+        }
+        // the first command journals each table afresh and prompts its bots
+        for (GameTable table : games.values()) {
+            table.submit(game -> { });
+        }
+        LOG.info("Restored {} tables ({} actions replayed) in {} ms", restored, actions,
+                (System.nanoTime() - start) / 1_000_000);
+        LOG.info("Reading the table log took {} ms", (read - start) / 1_000_000);
+
+        ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "table-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleWithFixedDelay(this::checkpoint,
+                WAL_CHECKPOINT_SECONDS, WAL_CHECKPOINT_SECONDS, TimeUnit.SECONDS);
+        return restored;
+    }
+
+    /**
+     * The last hand of each table that the history already has. Only the
+     * two newest segments are read: the hands the table log replays were
+     * played since its last checkpoint, while the writer was filling the
+     * segment it had open when the server stopped.
+     */
+    private static Map<String, Long> lastRecordedHands(Collection<RecoveredTable> tables) {
+        Map<String, Long> last = new HashMap<>();
+        if (HISTORY_DIR == null) {
+            return last;
+        }
+        Set<String> gameIds = new HashSet<>();
+        for (RecoveredTable table : tables) {
+            gameIds.add(table.getGameId());
+        }
+        try {
+            List<Path> segments = HandHistoryReader.segments(Paths.get(HISTORY_DIR));
+            HandRecord record = new HandRecord();
+            for (Path segment : segments.subList(Math.max(0, segments.size() - 2), segments.size())) {
+                HandHistoryReader.forEach(segment, record, hand -> {
+                    if (gameIds.contains(hand.getGameId())) {
+                        last.merge(hand.getGameId(), hand.getHandNumber(), Math::max);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not read the hand history, replayed hands may be recorded twice", e);
+        }
+        return last;
+    }
+
+    private GameTable restore(RecoveredTable recovered, long recordedThrough) {
+        HandRecorder recorder = newRecorder();
+        if (recorder != null) {
+            recorder.skipThrough(recordedThrough);
+        }
+        Game game = recovered.restore(recorder);
+        GameTable table = new GameTable(game, tableExecutor, botScheduler, tableLog);
+        table.botTable = recovered.isBotTable();
+        for (Map.Entry<String, BotStrategy> bot : recovered.getBots().entrySet()) {
+            table.restoreBot(bot.getKey(), bot.getValue());
+        }
+        return table;
+    }
+
+    /**
+     * Starts a new log segment, has every table write a snapshot into it and
+     * then drops the segments before it. Skipped when nothing was logged
+     * since the last one.
+     */
+    private void checkpoint() {
+        long written = tableLog.getWritten();
+        if (written == checkpointedAt) {
+            return;
+        }
+        try {
+            tableLog.startCheckpoint();
+            List<GameTable> tables = new ArrayList<>(games.values());
+            CountDownLatch snapshots = new CountDownLatch(tables.size());
+            AtomicBoolean complete = new AtomicBoolean(true);
+            for (GameTable table : tables) {
+                table.submit(game -> {
+                    if (!table.writeSnapshot()) {
+                        complete.set(false);
+                    }
+                    snapshots.countDown();
+                });
+            }
+            if (snapshots.await(WAL_CHECKPOINT_SECONDS, TimeUnit.SECONDS) && complete.get()) {
+                tableLog.finishCheckpoint();
+                checkpointedAt = tableLog.getWritten();
+            } else {
+                LOG.warn("Table checkpoint incomplete, keeping the older log segments");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
+
+    public static GameManager getInstance() {
+        return instance;
+    }
 
+    public GameTable createGame(Player player) {
+        String gameId = idGenerator.next();
+        Game game = newGame(gameId);
+        game.addPlayer(player);
+        GameTable table = new GameTable(game, tableExecutor, botScheduler, tableLog);
+        games.put(gameId, table);
+        return table;
+    }
+
+    /**
+     * Opens a table of bots only that deals hand after hand by itself, for
+     * soak and load testing. Humans may still join it by id.
+     */
+    public GameTable createBotTable(int seats, BotStrategy strategy) {
+        String gameId = idGenerator.next();
+        GameTable table = new GameTable(newGame(gameId), tableExecutor, botScheduler, tableLog);
+        table.botTable = true;
+        table.submit(game -> {
+            for (int i = 0; i < seats; i++) {
+                table.addBot(strategy, i == 0);
+            }
+            startGame(game);
+        });
+        games.put(gameId, table);
+        return table;
+    }
+
+    /**
+     * Deals the first hand. Must run as a command of the game's own table.
+     */
+    public void startGame(Game game) {
+        game.setState(Game.State.PLAYING);
+        game.getDeck().shuffle();
+        game.initializeFirstDealer();
+        List<Player> players = game.getPlayers();
+        game.getDeck().dealCardsFromPosition(players, 0, 2);
+    }
+
+    /**
+     * Seats the player. Must run as a command of the game's own table so the
+     * capacity check and the add cannot interleave with other commands.
+     */
+    public JoinGameResult joinGame(Game game, Player player) {
         boolean added = game.addPlayer(player);
         if (added) {
             return new JoinGameResult(game, null);
         } else {
-            return new JoinGameResult(null, "Game id: " + gameId + " is full.");
+            return new JoinGameResult(null, "Game id: " + game.getGameId() + " is full.");
         }
     }
 
-    public synchronized void removeGame(String gameId) {
-        games.remove(gameId);
+    /**
+     * Takes a table out. Must run as a command of that table.
+     */
+    public void removeGame(String gameId) {
+        GameTable table = games.remove(gameId);
+        if (table != null) {
+            table.removed();
+        }
     }
 
-    public synchronized Game getGame(String gameId) {
+    public GameTable getGame(String gameId) {
         return games.get(gameId);
     }
+
+    public int getGameCount() {
+        return games.size();
+    }
+
+    public int getBotTableCount() {
+        int count = 0;
+        for (GameTable table : games.values()) {
+            if (table.botTable) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
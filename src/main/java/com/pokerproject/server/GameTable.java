@@ -0,0 +1,410 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.pokerproject.bot.BotAction;
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.log.Logger;
+import com.pokerproject.model.Card;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.GameDelta;
+import com.pokerproject.model.GameSnapshot;
+import com.pokerproject.model.Player;
+import com.pokerproject.model.PlayerSnapshot;
+import com.pokerproject.wal.TableJournal;
+import com.pokerproject.wal.TableLog;
+
+/**
+ * Single-writer owner of one {@link Game}.
+ *
+ * Every mutation is a command posted to the table's mailbox, a lock-free
+ * multi-producer queue. At most one drain task per table runs on the shared
+ * executor at a time, so commands run one after another without locks, while
+ * different tables progress in parallel on a bounded pool. After each command
+ * the table is committed: if anything changed, a new immutable
+ * {@link GameSnapshot} is published for readers on other threads and the
+ * seated players are sent the {@link GameDelta} of its public view, plus
+ * their own hole cards when those changed, as text lines or
+ * {@link BinaryProtocol} frames.
+ *
+ * Bots are players without a connection. When a commit leaves it to a bot
+ * to act, the table asks the {@link BotScheduler} once for that version and
+ * plays the answer as a later command, unless the table has moved on.
+ *
+ * With a {@link TableLog}, each command is journaled before it is
+ * published, so the table can be rebuilt after a restart.
+ */
+public class GameTable {
+
+    private static final Logger LOG = Logger.get(GameTable.class);
+
+    // commands run per drain before the thread is handed to other tables
+    private static final int MAX_BATCH = 64;
+    private static final Gson gson = new Gson();
+    private static final int BOT_STACK = 1000;
+
+    private final Game game;
+    private final Executor executor;
+    private final Queue<Consumer<Game>> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final BotScheduler botScheduler;
+    // null when tables are not logged
+    private final TableJournal journal;
+    // bot seats by name and the version they were last asked to act at, only touched by commands
+    private final Map<String, BotStrategy> bots = new HashMap<>();
+    private long promptedVersion = -1;
+    // when the client action the current command played was read, or 0
+    private long actionReceivedAt;
+    // hands already added to ServerMetrics.HANDS
+    private long countedHands;
+    private boolean closed;
+    // set before the table is published when it only ever has bots
+    boolean botTable;
+    private long version;
+    private volatile GameSnapshot snapshot;
+    // what the clients were last sent, only touched by commands
+    private GameSnapshot publicSnapshot;
+
+    public GameTable(Game game, Executor executor, BotScheduler botScheduler) {
+        this(game, executor, botScheduler, null);
+    }
+
+    /**
+     * @param log where every command's effect is journaled, or null
+     */
+    public GameTable(Game game, Executor executor, BotScheduler botScheduler, TableLog log) {
+        this.game = game;
+        this.executor = executor;
+        this.botScheduler = botScheduler;
+        this.journal = log == null ? null : new TableJournal(log, game.getGameId());
+        this.countedHands = game.getHandNumber();
+        this.snapshot = game.snapshot(version);
+        this.publicSnapshot = snapshot.publicView();
+    }
+
+    public String getGameId() {
+        return game.getGameId();
+    }
+
+    /**
+     * Latest published state; never blocks and never sees a half-applied
+     * command.
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes the game's current state to every seated player except
+     * {@code skip}, which may be null: the delta of the public view from the
+     * last published version, encoded once for everybody, then their own
+     * hole cards to each player whose cards changed.
+     * Returns the latest full snapshot, unchanged if nothing changed.
+     *
+     * Only call this from a command. Commands that reply with a snapshot
+     * commit first so the snapshot lines up with the deltas that follow.
+     */
+    public GameSnapshot commit(ClientHandler skip) {
+        GameSnapshot previous = snapshot;
+        GameSnapshot previousPublic = publicSnapshot;
+        GameSnapshot next = game.snapshot(version + 1);
+        GameSnapshot nextPublic = next.publicView();
+        GameDelta delta = GameDelta.diff(previousPublic, nextPublic);
+        long receivedAt = actionReceivedAt;
+        actionReceivedAt = 0;
+        long start = ServerMetrics.start();
+
+        if (delta != null) {
+            version++;
+            snapshot = next;
+            publicSnapshot = nextPublic;
+
+            // encoded at most once per protocol, every connection writes the same bytes
+            ByteBuffer line = null;
+            ByteBuffer frame = null;
+            Delivery delivery = receivedAt != 0 ? new Delivery(receivedAt) : null;
+            for (Player p : game.getPlayers()) {
+                ClientHandler handler = p.getHandler();
+                if (handler == null || handler == skip) {
+                    continue;
+                }
+                ByteBuffer message;
+                if (handler.isBinary()) {
+                    if (frame == null) {
+                        frame = BinaryProtocol.delta(delta);
+                    }
+                    message = frame;
+                } else {
+                    if (line == null) {
+                        line = ClientConnection.encodeLine("DELTA:" + ServerMetrics.toJson(gson, delta));
+                    }
+                    message = line;
+                }
+                if (delivery != null) {
+                    delivery.add();
+                    handler.sendEncoded(message, delivery);
+                } else {
+                    handler.sendEncoded(message);
+                }
+            }
+            if (delivery != null) {
+                delivery.delivered();
+            }
+        } else if (holeCardsEqual(previous, next)) {
+            return previous;
+        } else {
+            // only private cards changed, clients keep the public version they have
+            nextPublic = previousPublic;
+            next = game.snapshot(version);
+            snapshot = next;
+        }
+
+        for (Player p : game.getPlayers()) {
+            ClientHandler handler = p.getHandler();
+            if (handler == null || handler == skip) {
+                continue;
+            }
+            List<Card> cards = next.getPlayerByName(p.getName()).getHoleCards();
+            List<Card> publicCards = holeCardsOf(nextPublic, p.getName());
+            // also resend when the delta overwrote them, e.g. leaving a showdown
+            if (!cards.equals(holeCardsOf(previous, p.getName()))
+                    || (!publicCards.equals(cards) && !publicCards.equals(holeCardsOf(previousPublic, p.getName())))) {
+                handler.sendHoleCards(cards);
+            }
+        }
+        ServerMetrics.stop(ServerMetrics.FAN_OUT, start);
+        return next;
+    }
+
+    private static boolean holeCardsEqual(GameSnapshot before, GameSnapshot after) {
+        for (PlayerSnapshot player : after.getPlayers()) {
+            if (!player.getHoleCards().equals(holeCardsOf(before, player.getName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Card> holeCardsOf(GameSnapshot snapshot, String playerName) {
+        PlayerSnapshot player = snapshot.getPlayerByName(playerName);
+        return player == null ? Collections.emptyList() : player.getHoleCards();
+    }
+
+    /**
+     * Seats a bot and returns its name, or null if the table is full. Only
+     * call this from a command.
+     */
+    String addBot(BotStrategy strategy, boolean creater) {
+        String name;
+        int number = bots.size() + 1;
+        do {
+            name = "Bot" + number++;
+        } while (game.isPlayerNameExists(name));
+        if (!game.addPlayer(new Player(name, null, creater))) {
+            return null;
+        }
+        bots.put(name, strategy);
+        return name;
+    }
+
+    /**
+     * Seats a restored bot under its old name. Only call this before the
+     * table is published.
+     */
+    void restoreBot(String name, BotStrategy strategy) {
+        bots.put(name, strategy);
+    }
+
+    boolean isBot(String name) {
+        return bots.containsKey(name);
+    }
+
+    /**
+     * Plays an action through the game and journals it if the game took
+     * it. Only call this from a command.
+     */
+    boolean act(Player player, Game.Action action, int amount) {
+        return act(player, action, amount, 0);
+    }
+
+    /**
+     * Plays a client's action, read at {@code receivedAt}, so the time until
+     * the delta it causes is written to every client is measured.
+     */
+    boolean act(Player player, Game.Action action, int amount, long receivedAt) {
+        long start = ServerMetrics.start();
+        boolean accepted = game.processPlayerAction(player, action, amount);
+        ServerMetrics.stop(ServerMetrics.PLAYER_ACTION, start);
+        if (accepted) {
+            actionReceivedAt = receivedAt;
+            if (journal != null) {
+                journal.acted(player, action, amount);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Journals the whole table, for a checkpoint; returns false if the log
+     * dropped it. Only call this from a command.
+     */
+    boolean writeSnapshot() {
+        return journal == null || closed || journal.snapshot(game, botTable, bots);
+    }
+
+    /**
+     * Called once the table has been taken out of the {@link GameManager};
+     * stops journaling it. Only call this from a command.
+     */
+    void removed() {
+        closed = true;
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Closes a table once only the bots that humans added are left, so they
+     * stop playing. Only call this from a command.
+     */
+    void closeIfOnlyBots() {
+        if (botTable || bots.isEmpty() || closed) {
+            return;
+        }
+        for (Player player : game.getPlayers()) {
+            if (!bots.containsKey(player.getName())) {
+                return;
+            }
+        }
+        closed = true;
+        GameManager.getInstance().removeGame(game.getGameId());
+    }
+
+    /**
+     * Asks for a bot's move if it is a bot's turn and it has not been asked
+     * at this version yet. After a showdown a bot that created the table
+     * deals the next hand.
+     */
+    private void promptBot() {
+        if (bots.isEmpty() || closed || game.getState() != Game.State.PLAYING
+                || game.getPlayers().isEmpty() || promptedVersion == version) {
+            return;
+        }
+        if (game.getCurrentRound() == Game.Round.SHOWDOWN) {
+            Player creater = game.getCreaterPlayer();
+            if (creater != null && bots.containsKey(creater.getName())) {
+                promptedVersion = version;
+                botScheduler.play(this, version, creater.getName(), BotAction.NEXT);
+            }
+            return;
+        }
+        String name = game.getCurrentPlayer().getName();
+        BotStrategy strategy = bots.get(name);
+        if (strategy != null) {
+            promptedVersion = version;
+            botScheduler.decide(this, version, name, strategy, snapshot.viewFor(name));
+        }
+    }
+
+    /**
+     * Plays a bot's answer for the state at {@code askedVersion}; a null
+     * answer checks, or folds to a bet. Answers to an older state are
+     * dropped, the bot is asked again for the new one. Only call this from a
+     * command.
+     */
+    void playBotAction(long askedVersion, String botName, BotAction answer) {
+        if (askedVersion != version || closed) {
+            return;
+        }
+        promptedVersion = -1;
+        Player bot = game.getPlayerByName(botName);
+        if (bot == null) {
+            return;
+        }
+        if (game.getCurrentRound() == Game.Round.SHOWDOWN) {
+            if (answer == BotAction.NEXT) {
+                rebuyBustedBots();
+                act(bot, Game.Action.NEXT, 0);
+            }
+            return;
+        }
+        if (bot != game.getCurrentPlayer()) {
+            return;
+        }
+
+        boolean facingBet = game.getCurrentBet() > game.getPlayerBet(bot);
+        Game.Action action = answer == null || answer == BotAction.NEXT ? Game.Action.CHECK : answer.getAction();
+        // checking to a bet folds, calling nothing checks
+        if (action == Game.Action.CHECK && facingBet) {
+            action = Game.Action.FOLD;
+        } else if (action == Game.Action.CALL && !facingBet) {
+            action = Game.Action.CHECK;
+        }
+        act(bot, action, answer == null ? 0 : answer.getAmount());
+    }
+
+    private void rebuyBustedBots() {
+        for (Player player : game.getPlayers()) {
+            if (player.getChips() == 0 && bots.containsKey(player.getName())) {
+                player.addChips(BOT_STACK);
+            }
+        }
+    }
+
+    /**
+     * Queues a command. Commands from one thread run in the order they were
+     * submitted.
+     */
+    public void submit(Consumer<Game> command) {
+        mailbox.add(command);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Logger.setTable(game.getGameId());
+        try {
+            Consumer<Game> command;
+            int processed = 0;
+            while (processed < MAX_BATCH && (command = mailbox.poll()) != null) {
+                try {
+                    command.accept(game);
+                } catch (Exception e) {
+                    LOG.error("Command failed", e);
+                    if (journal != null) {
+                        journal.invalidate();
+                    }
+                }
+                if (journal != null && !closed) {
+                    journal.commit(game, botTable, bots);
+                }
+                long hands = game.getHandNumber();
+                if (hands != countedHands) {
+                    ServerMetrics.HANDS.add(hands - countedHands);
+                    countedHands = hands;
+                }
+                commit(null);
+                promptBot();
+                processed++;
+            }
+        } finally {
+            Logger.setTable(null);
+            scheduled.set(false);
+            // a command may have arrived after the last poll
+            if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.pokerproject.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.pokerproject.log.Logger;
+
+import com.pokerproject.model.WireCodec;
+
+/**
+ * One non-blocking client connection owned by an {@link EventLoop}.
+ *
+ * Incoming bytes are split into lines, handed to the {@link ClientHandler}
+ * on the loop thread in place in the loop's read buffer. {@link #send(ByteBuffer)} may be called from any
+ * thread: it queues a view of the shared encoded line and asks the loop to
+ * flush, so a broadcast never waits on the socket. Queued lines go out in
+ * gathering writes. An idle connection holds no buffers; a partial line is
+ * only kept until its newline arrives. A {@link Delivery} sent along with a
+ * line waits in the queue behind it and is told once the line is written.
+ *
+ * A reader that falls more than {@link #MAX_QUEUED_BYTES} behind loses the
+ * lines sent until its queue has drained. The next delta then shows a
+ * version gap and the client asks for a snapshot again.
+ */
+public class NioConnection implements ClientConnection {
+
+    private static final Logger LOG = Logger.get(NioConnection.class);
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+    static final int MAX_QUEUED_BYTES = 256 * 1024;
+
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    // lines, and the deliveries waiting on the lines before them
+    private final Queue<Object> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicInteger queuedBytes = new AtomicInteger();
+    private volatile boolean overflowed;
+    private ClientHandler handler;
+    private SelectionKey key;
+    private ByteBuffer partialLine;
+    // only touched on the loop thread
+    private boolean binary;
+
+    NioConnection(SocketChannel channel, EventLoop loop) {
+        this.channel = channel;
+        this.loop = loop;
+    }
+
+    void register(SelectionKey key, ClientHandler handler) {
+        this.key = key;
+        this.handler = handler;
+    }
+
+    @Override
+    public void send(ByteBuffer line) {
+        send(line, null);
+    }
+
+    @Override
+    public void send(ByteBuffer line, Delivery delivery) {
+        if (closed.get() || overflowed) {
+            dropped(delivery);
+            return;
+        }
+        int size = line.remaining();
+        if (queuedBytes.addAndGet(size) > MAX_QUEUED_BYTES) {
+            queuedBytes.addAndGet(-size);
+            overflowed = true;
+            dropped(delivery);
+            return;
+        }
+        // the content is shared with the other subscribers, only the position is ours
+        pendingWrites.add(line.duplicate());
+        if (delivery != null) {
+            pendingWrites.add(delivery);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.scheduleFlush(this);
+        }
+    }
+
+    private static void dropped(Delivery delivery) {
+        if (delivery != null) {
+            delivery.delivered();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            loop.execute(this::closeChannel);
+        }
+    }
+
+    /**
+     * Reads what is available from the shared loop buffer and dispatches every
+     * complete line. Returns false once the peer has closed the connection.
+     */
+    boolean read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        if (read < 0) {
+            return false;
+        }
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            if (binary) {
+                readFrames(buffer);
+                break;
+            }
+            int start = buffer.position();
+            int newline = -1;
+            for (int i = start; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    newline = i;
+                    break;
+                }
+            }
+
+            if (newline < 0) {
+                appendPartial(buffer, buffer.limit() - start);
+                break;
+            }
+
+            int limit = buffer.limit();
+            if (partialLine != null) {
+                buffer.limit(newline);
+                appendPartial(buffer, buffer.remaining());
+                buffer.limit(limit).position(newline + 1);
+                partialLine.flip();
+                ByteBuffer line = partialLine;
+                partialLine = null;
+                handler.handleLine(line);
+            } else {
+                // hand over the line in place, no copy
+                buffer.limit(newline);
+                handler.handleLine(buffer);
+                buffer.limit(limit).position(newline + 1);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void switchToBinary() {
+        binary = true;
+    }
+
+    /**
+     * Dispatches every complete frame and keeps the rest for the next read.
+     * Like lines, frames are handed over in place.
+     */
+    private void readFrames(ByteBuffer buffer) throws IOException {
+        ByteBuffer source = buffer;
+        if (partialLine != null) {
+            appendPartial(buffer, buffer.remaining());
+            partialLine.flip();
+            source = partialLine;
+        }
+
+        int length;
+        while ((length = BinaryProtocol.completeFrameLength(source)) > 0) {
+            int position = source.position();
+            int limit = source.limit();
+            source.limit(position + length);
+            WireCodec.readVarLong(source);
+            handler.handleFrame(source);
+            source.limit(limit).position(position + length);
+        }
+
+        if (source == partialLine) {
+            if (source.hasRemaining()) {
+                partialLine.compact();
+            } else {
+                partialLine = null;
+            }
+        } else if (source.hasRemaining()) {
+            appendPartial(source, source.remaining());
+        }
+    }
+
+    private void appendPartial(ByteBuffer source, int length) throws IOException {
+        int needed = (partialLine == null ? 0 : partialLine.position()) + length;
+        if (needed > MAX_LINE_LENGTH) {
+            throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+        }
+        if (partialLine == null || partialLine.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(needed, 256));
+            if (partialLine != null) {
+                partialLine.flip();
+                grown.put(partialLine);
+            }
+            partialLine = grown;
+        }
+        ByteBuffer slice = source.duplicate();
+        slice.limit(slice.position() + length);
+        partialLine.put(slice);
+        source.position(source.position() + length);
+    }
+
+    /**
+     * Writes queued lines, up to {@code gather.length} per write, until the
+     * socket stops accepting bytes. Runs on the loop thread, which lends its
+     * {@code gather} array.
+     */
+    void flush(ByteBuffer[] gather) throws IOException {
+        flushScheduled.set(false);
+        while (!pendingWrites.isEmpty()) {
+            int count = 0;
+            Iterator<Object> queued = pendingWrites.iterator();
+            while (count < gather.length && queued.hasNext()) {
+                Object next = queued.next();
+                if (next instanceof ByteBuffer) {
+                    gather[count++] = (ByteBuffer) next;
+                }
+            }
+
+            boolean blocked = false;
+            if (count > 0) {
+                long written = channel.write(gather, 0, count);
+                queuedBytes.addAndGet((int) -written);
+                ServerMetrics.BYTES_OUT.add(written);
+                blocked = gather[count - 1].hasRemaining();
+                Arrays.fill(gather, 0, count, null);
+            }
+            // drop the written lines and tell the deliveries behind them
+            Object head;
+            while ((head = pendingWrites.peek()) != null) {
+                if (head instanceof Delivery) {
+                    ((Delivery) head).delivered();
+                } else if (((ByteBuffer) head).hasRemaining()) {
+                    break;
+                }
+                pendingWrites.poll();
+            }
+
+            if (blocked) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        overflowed = false;
+    }
+
+    void disconnected() {
+        closed.set(true);
+        closeChannel();
+        handler.disconnect();
+    }
+
+    private void closeChannel() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.debug("Could not close the channel", e);
+        }
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+}
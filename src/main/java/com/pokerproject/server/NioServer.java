@@ -0,0 +1,53 @@
+package com.pokerproject.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * Selector based transport: the calling thread accepts connections and hands
+ * them round-robin to a fixed set of {@link EventLoop}s, so the thread count
+ * does not grow with the number of clients.
+ */
+public class NioServer {
+
+    private static final Logger LOG = Logger.get(NioServer.class);
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final int port;
+    private final EventLoop[] loops;
+
+    public NioServer(int port, int eventLoops) throws IOException {
+        this.port = port;
+        this.loops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop("event-loop-" + i);
+        }
+    }
+
+    public void start() throws IOException {
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            LOG.info("Server started on port {} with {} event loops", port, loops.length);
+
+            int next = 0;
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                LOG.info("New client connected: {}", channel.socket().getInetAddress());
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        } finally {
+            for (EventLoop loop : loops) {
+                loop.shutdown();
+            }
+        }
+    }
+}
@@ -6,34 +6,103 @@ import java.net.Socket;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.log.Logger;
+
 public class PokerServer {
 
+    private static final Logger LOG = Logger.get(PokerServer.class);
     private static final int PORT = 12345;
 
+    // "nio" (default) or "blocking" for a reader and a writer thread per connection
+    private static final String TRANSPORT = System.getProperty("poker.transport", "nio");
+    private static final int EVENT_LOOPS = Integer.getInteger("poker.eventLoops",
+            Runtime.getRuntime().availableProcessors());
+
+    // blocking transport only: "platform" (default) or "virtual" threads per connection
+    private static final String EXECUTOR = System.getProperty("poker.executor", "platform");
+
+    // bot-only tables opened at startup, for soak and load testing
+    private static final int BOT_TABLES = Integer.getInteger("poker.botTables", 0);
+    private static final int BOT_SEATS = Integer.getInteger("poker.botSeats", 6);
+    private static final String BOT_STRATEGY = System.getProperty("poker.botStrategy", "equity");
+
     // thread manager
-    private final ExecutorService threadPool = Executors.newCachedThreadPool();
+    private final ExecutorService threadPool = createThreadPool(EXECUTOR);
+
+    /**
+     * Virtual threads need JDK 21 at runtime while the build targets 17, so
+     * the factory is looked up reflectively and platform threads are used
+     * when it is missing.
+     */
+    static ExecutorService createThreadPool(String mode) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOG.warn("Virtual threads need JDK 21+, using platform threads");
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
 
     public void start() {
+        ServerMetrics.export();
+        GameManager.getInstance().recover();
+        startBotTables();
+        if ("blocking".equalsIgnoreCase(TRANSPORT)) {
+            startBlocking();
+            return;
+        }
+
+        try {
+            new NioServer(PORT, EVENT_LOOPS).start();
+        } catch (IOException e) {
+            LOG.error("Server stopped", e);
+        }
+    }
+
+    /**
+     * Tops the bot tables up to {@code poker.botTables}, counting those
+     * restored from the table log.
+     */
+    private void startBotTables() {
+        int missing = BOT_TABLES - GameManager.getInstance().getBotTableCount();
+        if (missing <= 0) {
+            return;
+        }
+        BotStrategy strategy = BotStrategy.forName(BOT_STRATEGY);
+        if (strategy == null) {
+            LOG.warn("Unknown bot strategy {}, no bot tables started", BOT_STRATEGY);
+            return;
+        }
+        for (int i = 0; i < missing; i++) {
+            GameManager.getInstance().createBotTable(BOT_SEATS, strategy);
+        }
+        LOG.info("Started {} bot tables of {} {} bots", missing, BOT_SEATS, BOT_STRATEGY);
+    }
+
+    private void startBlocking() {
         // create a server socket
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            System.out.println("Server started on port " + PORT);
+            LOG.info("Server started on port {} with {} threads", PORT, EXECUTOR);
 
             while (true) {
                 // wait for accept incoming connections
                 Socket clientSocket = serverSocket.accept();
-                System.out.println("New client connected: " + clientSocket.getInetAddress());
+                LOG.info("New client connected: {}", clientSocket.getInetAddress());
 
-                ClientHandler handler = new ClientHandler(clientSocket);
+                ClientHandler handler = new ClientHandler(clientSocket, threadPool);
 
                 // submit the handler task to the thread pool
                 threadPool.submit(() -> {
-                    System.out.println("Running handler in thread: " + Thread.currentThread().getName());
+                    LOG.debug("Running handler");
                     handler.run();
                 });
             }
 
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.error("Server stopped", e);
         }
     }
 
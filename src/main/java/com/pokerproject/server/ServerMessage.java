@@ -0,0 +1,120 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.pokerproject.model.Card;
+import com.pokerproject.model.GameDelta;
+import com.pokerproject.model.GameSnapshot;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * A message from the server as {@link ClientSocket} hands it to the client:
+ * a text line, or an already decoded snapshot, delta or hole cards. Binary
+ * frames are decoded straight into these; text lines are parsed once, here,
+ * so the client never goes through JSON it did not receive.
+ */
+public final class ServerMessage {
+
+    public enum Type {
+        TEXT, SNAPSHOT, DELTA, HOLE_CARDS
+    }
+
+    private static final Gson gson = new Gson();
+
+    private final Type type;
+    private final String text;
+    private final GameSnapshot snapshot;
+    private final GameDelta delta;
+    private final List<Card> holeCards;
+
+    private ServerMessage(Type type, String text, GameSnapshot snapshot, GameDelta delta, List<Card> holeCards) {
+        this.type = type;
+        this.text = text;
+        this.snapshot = snapshot;
+        this.delta = delta;
+        this.holeCards = holeCards;
+    }
+
+    /**
+     * Parses a line of the text protocol.
+     */
+    public static ServerMessage parse(String line) {
+        if (line.startsWith("SNAPSHOT:")) {
+            return snapshot(gson.fromJson(line.substring("SNAPSHOT:".length()), GameSnapshot.class));
+        }
+        if (line.startsWith("DELTA:")) {
+            return delta(gson.fromJson(line.substring("DELTA:".length()), GameDelta.class));
+        }
+        if (line.startsWith("HOLE_CARDS:")) {
+            return holeCards(gson.fromJson(line.substring("HOLE_CARDS:".length()),
+                    new TypeToken<List<Card>>() {}.getType()));
+        }
+        return new ServerMessage(Type.TEXT, line, null, null, null);
+    }
+
+    /**
+     * Decodes a {@link BinaryProtocol} server frame, positioned at its
+     * opcode.
+     */
+    public static ServerMessage decode(ByteBuffer frame) {
+        int opcode = WireCodec.readByte(frame);
+        switch (opcode) {
+            case BinaryProtocol.TEXT:
+                String line = WireCodec.readString(frame);
+                return new ServerMessage(Type.TEXT, line == null ? "" : line, null, null, null);
+            case BinaryProtocol.SNAPSHOT:
+                return snapshot(WireCodec.readSnapshot(frame));
+            case BinaryProtocol.DELTA:
+                return delta(GameDelta.readFrom(frame));
+            case BinaryProtocol.HOLE_CARDS:
+                return holeCards(WireCodec.readCards(frame));
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+    }
+
+    private static ServerMessage snapshot(GameSnapshot snapshot) {
+        return new ServerMessage(Type.SNAPSHOT, null, snapshot, null, null);
+    }
+
+    private static ServerMessage delta(GameDelta delta) {
+        return new ServerMessage(Type.DELTA, null, null, delta, null);
+    }
+
+    private static ServerMessage holeCards(List<Card> holeCards) {
+        return new ServerMessage(Type.HOLE_CARDS, null, null, null, holeCards);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The line of a {@link Type#TEXT} message, otherwise null.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Whether this is a text line starting with {@code prefix}.
+     */
+    public boolean isText(String prefix) {
+        return type == Type.TEXT && text.startsWith(prefix);
+    }
+
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public GameDelta getDelta() {
+        return delta;
+    }
+
+    public List<Card> getHoleCards() {
+        return holeCards;
+    }
+}
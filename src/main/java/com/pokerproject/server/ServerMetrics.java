@@ -0,0 +1,209 @@
+package com.pokerproject.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.google.gson.Gson;
+import com.pokerproject.log.Logger;
+import com.pokerproject.metrics.ConcurrentHistogram;
+import com.pokerproject.metrics.Histogram;
+import com.pokerproject.metrics.LatencySummary;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Where the server's latencies and counters are kept.
+ *
+ * Timings are {@link System#nanoTime()} pairs recorded into
+ * {@link ConcurrentHistogram}s and counts go to {@link LongAdder}s, so the
+ * hot paths only pay for a clock read and an uncontended increment. Nothing
+ * is added up until somebody reads it: over JMX as
+ * {@code com.pokerproject:type=ServerMetrics}, and over HTTP at
+ * {@code http://127.0.0.1:<poker.metricsPort>/metrics} in the Prometheus
+ * text format when that port is set. {@code -Dpoker.metrics=false} turns
+ * the timings off altogether.
+ */
+public final class ServerMetrics {
+
+    private static final Logger LOG = Logger.get(ServerMetrics.class);
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("poker.metrics", "true"));
+    // the HTTP endpoint is only started when a port is given
+    private static final int PORT = Integer.getInteger("poker.metricsPort", -1);
+    private static final String HOST = System.getProperty("poker.metricsHost", "127.0.0.1");
+
+    // reading a command and posting it to its table
+    static final ConcurrentHistogram COMMAND_PARSE = new ConcurrentHistogram();
+    // Game.processPlayerAction on the table thread
+    static final ConcurrentHistogram PLAYER_ACTION = new ConcurrentHistogram();
+    // Gson encoding of deltas, snapshots and hole cards
+    static final ConcurrentHistogram SERIALIZATION = new ConcurrentHistogram();
+    // encoding a commit once and queueing it on every seated connection
+    static final ConcurrentHistogram FAN_OUT = new ConcurrentHistogram();
+    // a client's action read to the last connection done writing the delta it caused
+    static final ConcurrentHistogram END_TO_END = new ConcurrentHistogram();
+
+    static final LongAdder CONNECTIONS = new LongAdder();
+    static final LongAdder HANDS = new LongAdder();
+    static final LongAdder BYTES_OUT = new LongAdder();
+
+    private ServerMetrics() {
+    }
+
+    /**
+     * Start of a timing, or 0 when timings are off.
+     */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    static void stop(ConcurrentHistogram histogram, long start) {
+        if (ENABLED) {
+            histogram.recordSince(start);
+        }
+    }
+
+    static String toJson(Gson gson, Object value) {
+        long start = start();
+        String json = gson.toJson(value);
+        stop(SERIALIZATION, start);
+        return json;
+    }
+
+    /**
+     * Registers the JMX bean and starts the HTTP endpoint if
+     * {@code poker.metricsPort} is set. Serving runs on the endpoint's own
+     * thread and costs nothing between scrapes.
+     */
+    static void export() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Exported(),
+                    new ObjectName("com.pokerproject:type=ServerMetrics"));
+        } catch (JMException e) {
+            LOG.warn("Metrics not registered with JMX", e);
+        }
+        if (PORT < 0) {
+            return;
+        }
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(HOST, PORT), 0);
+            server.createContext("/metrics", ServerMetrics::serve);
+            server.start();
+            LOG.info("Metrics on http://{}:{}/metrics", HOST, server.getAddress().getPort());
+        } catch (IOException e) {
+            LOG.warn("Metrics endpoint not started on port {}", PORT, e);
+        }
+    }
+
+    private static void serve(HttpExchange exchange) throws IOException {
+        byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Everything in the Prometheus text exposition format, latencies as
+     * summaries in seconds.
+     */
+    static String prometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        summary(out, "poker_command_parse_seconds", "Reading a command and posting it to its table", COMMAND_PARSE);
+        summary(out, "poker_player_action_seconds", "Game.processPlayerAction", PLAYER_ACTION);
+        summary(out, "poker_serialization_seconds", "JSON encoding of deltas, snapshots and hole cards", SERIALIZATION);
+        summary(out, "poker_fan_out_seconds", "Queueing a commit on every seated connection", FAN_OUT);
+        summary(out, "poker_action_to_write_seconds", "Action read to the last client write of its delta", END_TO_END);
+        metric(out, "poker_connections", "gauge", "Open client connections", CONNECTIONS.sum());
+        metric(out, "poker_tables", "gauge", "Open tables", GameManager.getInstance().getGameCount());
+        metric(out, "poker_hands_total", "counter", "Hands dealt", HANDS.sum());
+        metric(out, "poker_bytes_out_total", "counter", "Bytes written to clients", BYTES_OUT.sum());
+        return out.toString();
+    }
+
+    private static void summary(StringBuilder out, String name, String help, ConcurrentHistogram histogram) {
+        Histogram nanos = histogram.snapshot();
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (String quantile : new String[] {"0.5", "0.9", "0.99", "0.999"}) {
+            double value = nanos.getValueAtPercentile(Double.parseDouble(quantile) * 100) / 1e9;
+            out.append(name).append("{quantile=\"").append(quantile).append("\"} ").append(value).append('\n');
+        }
+        out.append(name).append("_sum ").append(nanos.getSum() / 1e9).append('\n');
+        out.append(name).append("_count ").append(nanos.getCount()).append('\n');
+    }
+
+    private static void metric(StringBuilder out, String name, String type, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static final class Exported implements ServerMetricsMXBean {
+
+        private long lastHands;
+        private long lastRead = System.nanoTime();
+
+        @Override
+        public LatencySummary getCommandParse() {
+            return LatencySummary.of(COMMAND_PARSE.snapshot());
+        }
+
+        @Override
+        public LatencySummary getPlayerAction() {
+            return LatencySummary.of(PLAYER_ACTION.snapshot());
+        }
+
+        @Override
+        public LatencySummary getSerialization() {
+            return LatencySummary.of(SERIALIZATION.snapshot());
+        }
+
+        @Override
+        public LatencySummary getFanOut() {
+            return LatencySummary.of(FAN_OUT.snapshot());
+        }
+
+        @Override
+        public LatencySummary getActionToWrite() {
+            return LatencySummary.of(END_TO_END.snapshot());
+        }
+
+        @Override
+        public long getConnections() {
+            return CONNECTIONS.sum();
+        }
+
+        @Override
+        public long getTables() {
+            return GameManager.getInstance().getGameCount();
+        }
+
+        @Override
+        public long getHands() {
+            return HANDS.sum();
+        }
+
+        @Override
+        public synchronized double getHandsPerSecond() {
+            long hands = HANDS.sum();
+            long now = System.nanoTime();
+            double rate = (hands - lastHands) / ((now - lastRead) / 1e9);
+            lastHands = hands;
+            lastRead = now;
+            return rate;
+        }
+
+        @Override
+        public long getBytesOut() {
+            return BYTES_OUT.sum();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pokerproject.server;
+
+import com.pokerproject.metrics.LatencySummary;
+
+/**
+ * What {@link ServerMetrics} shows over JMX, as
+ * {@code com.pokerproject:type=ServerMetrics}. Latencies are in
+ * microseconds, counted since the server started.
+ */
+public interface ServerMetricsMXBean {
+
+    LatencySummary getCommandParse();
+
+    LatencySummary getPlayerAction();
+
+    LatencySummary getSerialization();
+
+    LatencySummary getFanOut();
+
+    LatencySummary getActionToWrite();
+
+    long getConnections();
+
+    long getTables();
+
+    long getHands();
+
+    /**
+     * Hands dealt per second since this was last read.
+     */
+    double getHandsPerSecond();
+
+    long getBytesOut();
+}
@@ -0,0 +1,180 @@
+package com.pokerproject.server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * {@link ClientConnection} over a blocking socket.
+ *
+ * {@link #send(ByteBuffer)} only queues a view of the shared encoded line;
+ * the connection's own writer thread, taken from the same executor as its
+ * reader, writes whatever has queued up and flushes once, so a slow reader
+ * never holds up the table that broadcasts to it. Like
+ * {@link NioConnection}, a reader that falls more than
+ * {@link NioConnection#MAX_QUEUED_BYTES} behind loses the lines sent until
+ * its queue has drained, and asks for a snapshot on the next delta. The
+ * queue is guarded by a {@link ReentrantLock}, not a monitor, so virtual
+ * threads waiting on it do not pin their carrier.
+ */
+public class SocketConnection implements ClientConnection {
+
+    private static final Logger LOG = Logger.get(SocketConnection.class);
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    // lines, and the deliveries waiting on the lines before them
+    private final ArrayDeque<Object> pendingWrites = new ArrayDeque<>();
+    private int queuedBytes;
+    private boolean overflowed;
+    private boolean closed;
+
+    public SocketConnection(Socket socket, Executor writer) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        writer.execute(this::writeQueued);
+    }
+
+    @Override
+    public void send(ByteBuffer line) {
+        send(line, null);
+    }
+
+    @Override
+    public void send(ByteBuffer line, Delivery delivery) {
+        lock.lock();
+        try {
+            if (closed || overflowed) {
+                dropped(delivery);
+                return;
+            }
+            int size = line.remaining();
+            if (queuedBytes + size > NioConnection.MAX_QUEUED_BYTES) {
+                overflowed = true;
+                dropped(delivery);
+                return;
+            }
+            queuedBytes += size;
+            // the content is shared with the other subscribers, only the position is ours
+            pendingWrites.add(line.duplicate());
+            if (delivery != null) {
+                pendingWrites.add(delivery);
+            }
+            queued.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void dropped(Delivery delivery) {
+        if (delivery != null) {
+            delivery.delivered();
+        }
+    }
+
+    /**
+     * The writer thread: takes everything queued, writes it with one flush
+     * and then tells the deliveries in it, until the connection closes or a
+     * write fails.
+     */
+    private void writeQueued() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (pendingWrites.isEmpty() && !closed) {
+                        queued.await();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    batch.addAll(pendingWrites);
+                    pendingWrites.clear();
+                } finally {
+                    lock.unlock();
+                }
+
+                int written = 0;
+                for (Object next : batch) {
+                    if (next instanceof ByteBuffer) {
+                        ByteBuffer line = (ByteBuffer) next;
+                        out.write(line.array(), line.arrayOffset() + line.position(), line.remaining());
+                        written += line.remaining();
+                    }
+                }
+                out.flush();
+                ServerMetrics.BYTES_OUT.add(written);
+                deliver(batch);
+
+                lock.lock();
+                try {
+                    queuedBytes -= written;
+                    if (pendingWrites.isEmpty()) {
+                        overflowed = false;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // the reader thread sees the broken socket and disconnects
+            LOG.debug("Could not write to the client", e);
+        } finally {
+            deliver(batch);
+            close();
+            lock.lock();
+            try {
+                deliver(pendingWrites);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Tells the deliveries among {@code writes} and empties it.
+     */
+    private static void deliver(Collection<Object> writes) {
+        for (Object next : writes) {
+            if (next instanceof Delivery) {
+                ((Delivery) next).delivered();
+            }
+        }
+        writes.clear();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queued.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOG.debug("Could not close the socket", e);
+        }
+    }
+}
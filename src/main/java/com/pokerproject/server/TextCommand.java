@@ -0,0 +1,143 @@
+package com.pokerproject.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser for one colon-separated text command, e.g.
+ * {@code CALL:<gameId>:<name>:<amount>}. The keyword is looked up in a
+ * table and mapped to the {@link BinaryProtocol} opcode of the same
+ * command, so text and binary clients share one dispatch. Arguments are read
+ * in place from the line's bytes.
+ *
+ * One instance is reused for every line of a connection.
+ */
+final class TextCommand implements CommandArgs {
+
+    // opcodes that only exist in text
+    static final int UNKNOWN = 0;
+    static final int HELLO = 0x7F;
+
+    private static final byte[][] KEYWORDS = {
+            ascii("CREATE"), ascii("JOIN"), ascii("LEAVE_GAME"), ascii("START_GAME"), ascii("RESYNC"),
+            ascii("FOLD"), ascii("CHECK"), ascii("CALL"), ascii("BET"), ascii("RAISE"), ascii("NEXTGAME"),
+            ascii("PROTO"), ascii("ADD_BOT"),
+    };
+    private static final int[] OPCODES = {
+            BinaryProtocol.CREATE, BinaryProtocol.JOIN, BinaryProtocol.LEAVE, BinaryProtocol.START,
+            BinaryProtocol.RESYNC,
+            BinaryProtocol.ACTION, BinaryProtocol.ACTION + 1, BinaryProtocol.ACTION + 2,
+            BinaryProtocol.ACTION + 3, BinaryProtocol.ACTION + 4, BinaryProtocol.ACTION + 5,
+            HELLO, BinaryProtocol.ADD_BOT,
+    };
+
+    private ByteBuffer line;
+    private int position;
+    private int end;
+
+    private static byte[] ascii(String keyword) {
+        return keyword.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Starts parsing the bytes between the line's position and limit, without
+     * the newline, and returns the command's opcode or {@link #UNKNOWN}. The
+     * line must not change until its arguments have been read.
+     */
+    int parse(ByteBuffer line) {
+        this.line = line;
+        this.position = line.position();
+        this.end = line.limit();
+        if (end > position && line.get(end - 1) == '\r') {
+            end--;
+        }
+
+        int keywordEnd = fieldEnd();
+        int length = keywordEnd - position;
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            if (KEYWORDS[k].length == length && matchesIgnoreCase(KEYWORDS[k])) {
+                skipField(keywordEnd);
+                return OPCODES[k];
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private boolean matchesIgnoreCase(byte[] keyword) {
+        for (int i = 0; i < keyword.length; i++) {
+            int b = line.get(position + i);
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int fieldEnd() {
+        int i = position;
+        while (i < end && line.get(i) != ':') {
+            i++;
+        }
+        return i;
+    }
+
+    private void skipField(int fieldEnd) {
+        position = fieldEnd < end ? fieldEnd + 1 : end;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    @Override
+    public String nextString() {
+        int fieldEnd = fieldEnd();
+        byte[] bytes = new byte[fieldEnd - position];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = line.get(position + i);
+        }
+        skipField(fieldEnd);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean nextEquals(byte[] expected) {
+        int fieldEnd = fieldEnd();
+        boolean equal = expected != null && fieldEnd - position == expected.length;
+        for (int i = 0; equal && i < expected.length; i++) {
+            equal = line.get(position + i) == expected[i];
+        }
+        skipField(fieldEnd);
+        return equal;
+    }
+
+    @Override
+    public int nextInt() {
+        int fieldEnd = fieldEnd();
+        int i = position;
+        boolean negative = i < fieldEnd && line.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("Missing number");
+        }
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = line.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Number too large");
+            }
+        }
+        skipField(fieldEnd);
+        return (int) (negative ? -value : value);
+    }
+}
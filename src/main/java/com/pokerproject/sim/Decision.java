@@ -0,0 +1,26 @@
+package com.pokerproject.sim;
+
+import com.pokerproject.model.Game;
+
+/**
+ * The action a {@link Policy} picked. One instance is reused for every
+ * decision at a table so deciding does not allocate.
+ */
+public final class Decision {
+
+    private Game.Action action = Game.Action.CHECK;
+    private int amount;
+
+    public void set(Game.Action action, int amount) {
+        this.action = action;
+        this.amount = amount;
+    }
+
+    public Game.Action getAction() {
+        return action;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+}
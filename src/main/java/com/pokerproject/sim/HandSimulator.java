@@ -0,0 +1,160 @@
+package com.pokerproject.sim;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.pokerproject.history.HandHistoryWriter;
+import com.pokerproject.metrics.Histogram;
+
+/**
+ * Plays many tables of {@link Policy} players straight through
+ * {@code Game.processPlayerAction}, with no sockets or GUI, to soak-test the
+ * rules and measure how fast they run.
+ *
+ * Tables are dealt out to the threads, each thread playing its tables in
+ * turn, so tables never share a thread and need no locking. After a warmup
+ * it reports hands per second, the latency of single actions, the
+ * allocation rate and any hand that broke the rules (see
+ * {@link SimulatedTable}).
+ *
+ * <pre>
+ * java -cp target/classes com.pokerproject.sim.HandSimulator [tables] [seconds] [threads] [seats] [policies] [seed]
+ * java -cp target/classes com.pokerproject.sim.HandSimulator 256 30 8 6 random,calling,script:CALL/RAISE:400
+ * </pre>
+ *
+ * Threads default to one per core; pass 1 for a sequential run. Policies are
+ * given to the seats of every table in turn. With
+ * {@code -Dpoker.historyDir=<directory>} every hand is also recorded, as the
+ * server does.
+ */
+public class HandSimulator {
+
+    private static final int WARMUP_SECONDS = 2;
+    // actions between clock checks
+    private static final int STEPS_PER_CHECK = 1024;
+
+    private final List<SimulatedTable> tables;
+    private final long warmupEnd;
+    private final long end;
+    private long allocatedBytes;
+
+    private HandSimulator(List<SimulatedTable> tables, long warmupEnd, long end) {
+        this.tables = tables;
+        this.warmupEnd = warmupEnd;
+        this.end = end;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tableCount = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int seats = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        String[] policies = (args.length > 4 ? args[4] : "random").split(",");
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+        threads = Math.max(1, Math.min(threads, tableCount));
+        String historyDir = System.getProperty("poker.historyDir");
+        HandHistoryWriter history = historyDir == null ? null
+                : new HandHistoryWriter(Paths.get(historyDir), 64L << 20, 65_536);
+
+        List<List<SimulatedTable>> perThread = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            perThread.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tableCount; i++) {
+            perThread.get(i % threads).add(new SimulatedTable(seed + i, seats, policies, history));
+        }
+
+        System.out.printf("Simulating %d tables of %d seats (%s) on %d threads for %d s after %d s warmup%n",
+                tableCount, seats, String.join(",", policies), threads, seconds, WARMUP_SECONDS);
+
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<HandSimulator> simulators = new ArrayList<>();
+        List<Future<SimulationStats>> results = new ArrayList<>();
+        for (List<SimulatedTable> tables : perThread) {
+            HandSimulator simulator = new HandSimulator(tables, warmupEnd, end);
+            simulators.add(simulator);
+            results.add(pool.submit(simulator::run));
+        }
+        SimulationStats total = new SimulationStats();
+        long allocated = 0;
+        for (int i = 0; i < results.size(); i++) {
+            total.add(results.get(i).get());
+            allocated += simulators.get(i).allocatedBytes;
+        }
+        pool.shutdown();
+
+        report(total, allocated, seconds);
+        if (history != null) {
+            history.close();
+            System.out.printf("History:      %,d hands written to %s, %,d dropped%n",
+                    history.getWritten(), historyDir, history.getDropped());
+        }
+    }
+
+    private SimulationStats run() {
+        SimulationStats warmup = new SimulationStats();
+        while (System.nanoTime() < warmupEnd) {
+            playRound(warmup);
+        }
+
+        SimulationStats stats = new SimulationStats();
+        // problems found during the warmup count too
+        stats.stalls = warmup.stalls;
+        stats.errors = warmup.errors;
+        stats.chipErrors = warmup.chipErrors;
+        long allocatedBefore = threadAllocatedBytes();
+        while (System.nanoTime() < end) {
+            playRound(stats);
+        }
+        allocatedBytes = threadAllocatedBytes() - allocatedBefore;
+        return stats;
+    }
+
+    private void playRound(SimulationStats stats) {
+        for (int i = 0; i < STEPS_PER_CHECK; i++) {
+            for (int t = 0; t < tables.size(); t++) {
+                tables.get(t).step(stats);
+            }
+        }
+    }
+
+    /**
+     * Bytes allocated by the calling thread so far, or 0 if the JVM does not
+     * track it.
+     */
+    private static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    private static void report(SimulationStats stats, long allocatedBytes, int seconds) {
+        Histogram latency = stats.actionLatency;
+        System.out.printf("Hands:        %,d (%,.0f/s, %,.0f/min)%n",
+                stats.hands, (double) stats.hands / seconds, stats.hands * 60.0 / seconds);
+        System.out.printf("Actions:      %,d (%,.0f/s, %.1f per hand)%n",
+                stats.actions, (double) stats.actions / seconds,
+                stats.hands == 0 ? 0.0 : (double) stats.actions / stats.hands);
+        System.out.printf("Action (ns):  mean %.0f  p50 %d  p90 %d  p99 %d  p99.9 %d  max %d%n",
+                latency.getMean(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMax());
+        System.out.printf("Allocation:   %,.1f MB/s (%,.0f B/hand)%n",
+                allocatedBytes / 1e6 / seconds, stats.hands == 0 ? 0.0 : (double) allocatedBytes / stats.hands);
+        System.out.printf("Problems:     %d stalled hands, %d errors, %d chip mismatches%n",
+                stats.stalls, stats.errors, stats.chipErrors);
+    }
+}
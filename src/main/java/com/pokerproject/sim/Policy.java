@@ -0,0 +1,40 @@
+package com.pokerproject.sim;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.Player;
+
+/**
+ * How a simulated seat plays. Each seat has its own instance, so a policy
+ * may keep state between decisions.
+ */
+public interface Policy {
+
+    /**
+     * Picks the action of {@code player}, whose turn it is, into
+     * {@code decision}. The amount of a bet or raise is the player's total
+     * bet for the round, as {@link Game#processPlayerAction} takes it.
+     */
+    void decide(Game game, Player player, Decision decision);
+
+    /**
+     * Builds a policy from its command line name:
+     * <ul>
+     * <li>{@code random} - folds, calls, bets and raises at random, sometimes all-in</li>
+     * <li>{@code calling} - checks or calls every time</li>
+     * <li>{@code script:<steps>} - repeats steps separated by {@code /}, e.g.
+     * {@code script:CALL/RAISE:300/CHECK}</li>
+     * </ul>
+     */
+    static Policy forName(String name, long seed) {
+        if (name.equals("random")) {
+            return new RandomPolicy(seed);
+        }
+        if (name.equals("calling")) {
+            return new ScriptedPolicy("CALL");
+        }
+        if (name.startsWith("script:")) {
+            return new ScriptedPolicy(name.substring("script:".length()));
+        }
+        throw new IllegalArgumentException("Unknown policy " + name);
+    }
+}
@@ -0,0 +1,45 @@
+package com.pokerproject.sim;
+
+import java.util.SplittableRandom;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.Player;
+
+/**
+ * Plays legal actions at random, with enough aggression and all-ins to
+ * reach side pots and busted stacks often.
+ */
+final class RandomPolicy implements Policy {
+
+    private final SplittableRandom random;
+
+    RandomPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void decide(Game game, Player player, Decision decision) {
+        int bet = game.getPlayerBet(player);
+        int toCall = game.getCurrentBet() - bet;
+        int allIn = bet + player.getChips();
+        int roll = random.nextInt(100);
+
+        if (roll < 4) {
+            decision.set(toCall > 0 || game.getCurrentBet() > 0 ? Game.Action.RAISE : Game.Action.BET, allIn);
+        } else if (toCall > 0) {
+            if (roll < 20) {
+                decision.set(Game.Action.FOLD, 0);
+            } else if (roll < 80 || allIn <= game.getCurrentBet()) {
+                decision.set(Game.Action.CALL, 0);
+            } else {
+                int raiseTo = game.getCurrentBet() * 2 + random.nextInt(game.getPot() + 1);
+                decision.set(Game.Action.RAISE, Math.min(raiseTo, allIn));
+            }
+        } else if (roll < 70 || player.getChips() == 0) {
+            decision.set(Game.Action.CHECK, 0);
+        } else {
+            int betTo = 100 + random.nextInt(game.getPot() + 1);
+            decision.set(game.getCurrentBet() > 0 ? Game.Action.RAISE : Game.Action.BET, Math.min(betTo, allIn));
+        }
+    }
+}
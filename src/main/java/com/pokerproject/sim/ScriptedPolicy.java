@@ -0,0 +1,56 @@
+package com.pokerproject.sim;
+
+import com.pokerproject.model.Game;
+import com.pokerproject.model.Player;
+
+/**
+ * Repeats a fixed list of actions. A step that does not fit the spot is
+ * replaced by its nearest legal one: CHECK facing a bet calls, CALL with
+ * nothing to call checks, and bets are capped at the stack.
+ */
+final class ScriptedPolicy implements Policy {
+
+    private final Game.Action[] actions;
+    private final int[] amounts;
+    private int next;
+
+    /**
+     * @param script steps separated by {@code /}, each {@code ACTION} or
+     *               {@code ACTION:amount}
+     */
+    ScriptedPolicy(String script) {
+        String[] steps = script.split("/");
+        actions = new Game.Action[steps.length];
+        amounts = new int[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            String[] parts = steps[i].split(":");
+            actions[i] = Game.Action.valueOf(parts[0].trim().toUpperCase());
+            amounts[i] = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+        }
+    }
+
+    @Override
+    public void decide(Game game, Player player, Decision decision) {
+        Game.Action action = actions[next];
+        int amount = amounts[next];
+        next = (next + 1) % actions.length;
+
+        int bet = game.getPlayerBet(player);
+        boolean facingBet = game.getCurrentBet() > bet;
+        int allIn = bet + player.getChips();
+        switch (action) {
+            case CHECK:
+            case CALL:
+                decision.set(facingBet ? Game.Action.CALL : Game.Action.CHECK, 0);
+                break;
+            case BET:
+            case RAISE:
+                int to = Math.min(Math.max(amount, game.getCurrentBet() + 1), allIn);
+                decision.set(game.getCurrentBet() > 0 ? Game.Action.RAISE : Game.Action.BET, to);
+                break;
+            default:
+                decision.set(action, 0);
+                break;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.pokerproject.sim;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.pokerproject.history.HandHistoryWriter;
+import com.pokerproject.history.HandRecorder;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.Player;
+
+/**
+ * One {@link Game} played by {@link Policy} seats, one action per
+ * {@link #step}. Busted players are topped up between hands so the table
+ * keeps going. After every action the chips in stacks and in the pot must
+ * still add up to what was handed out; a hand that breaks that, throws or
+ * never ends is counted and reported with the table's seed, then the table
+ * starts over.
+ */
+final class SimulatedTable {
+
+    static final int STACK = 1000;
+    private static final int SMALL_BLIND = 50;
+    private static final int BIG_BLIND = 100;
+    private static final int MAX_ACTIONS_PER_HAND = 1000;
+    // problems printed per table, the rest are only counted
+    private static final int MAX_REPORTS = 3;
+
+    private final long seed;
+    private final int seats;
+    private final String[] policyNames;
+    private final HandHistoryWriter history;
+    private final Decision decision = new Decision();
+    private Game game;
+    private Policy[] policies;
+    private long chipsHandedOut;
+    private int actionsThisHand;
+    private long handNumber;
+    private int reports;
+
+    /**
+     * @param history where the hands played are recorded, or null
+     */
+    SimulatedTable(long seed, int seats, String[] policyNames, HandHistoryWriter history) {
+        this.seed = seed;
+        this.seats = seats;
+        this.policyNames = policyNames;
+        this.history = history;
+        reset();
+    }
+
+    private void reset() {
+        SplittableRandom random = new SplittableRandom(seed);
+        game = new Game("SIM-" + seed, SMALL_BLIND, BIG_BLIND, random.split());
+        if (history != null) {
+            game.setHandObserver(new HandRecorder(history));
+        }
+        policies = new Policy[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            game.addPlayer(new Player("P" + seat, null, seat == 0));
+            policies[seat] = Policy.forName(policyNames[seat % policyNames.length], random.nextLong());
+        }
+        chipsHandedOut = (long) STACK * seats;
+        actionsThisHand = 0;
+        game.setState(Game.State.PLAYING);
+        game.initializeFirstDealer();
+    }
+
+    void step(SimulationStats stats) {
+        try {
+            Player player = game.getCurrentPlayer();
+            if (game.getCurrentRound() == Game.Round.SHOWDOWN) {
+                topUpBustedPlayers();
+                stats.hands++;
+                handNumber++;
+                actionsThisHand = 0;
+                decision.set(Game.Action.NEXT, 0);
+            } else if (++actionsThisHand > MAX_ACTIONS_PER_HAND) {
+                stats.stalls++;
+                report("hand did not finish after " + MAX_ACTIONS_PER_HAND + " actions");
+                reset();
+                return;
+            } else {
+                policies[player.getSeat()].decide(game, player, decision);
+            }
+
+            long start = System.nanoTime();
+            game.processPlayerAction(player, decision.getAction(), decision.getAmount());
+            stats.actionLatency.record(System.nanoTime() - start);
+            stats.actions++;
+        } catch (RuntimeException e) {
+            stats.errors++;
+            report(decision.getAction() + " threw " + e);
+            reset();
+            return;
+        }
+
+        if (chipsOnTable() != chipsHandedOut) {
+            stats.chipErrors++;
+            report("chips on the table " + chipsOnTable() + ", handed out " + chipsHandedOut
+                    + " after " + decision.getAction());
+            reset();
+        }
+    }
+
+    private void topUpBustedPlayers() {
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.getChips() == 0) {
+                player.addChips(STACK);
+                chipsHandedOut += STACK;
+            }
+        }
+    }
+
+    private long chipsOnTable() {
+        long chips = game.getPot();
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            chips += players.get(i).getChips();
+        }
+        return chips;
+    }
+
+    private void report(String problem) {
+        if (reports++ < MAX_REPORTS) {
+            System.err.println("Table seed " + seed + ", hand " + handNumber + " in " + game.getCurrentRound()
+                    + ": " + problem);
+        }
+    }
+}
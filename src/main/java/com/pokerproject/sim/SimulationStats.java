@@ -0,0 +1,29 @@
+package com.pokerproject.sim;
+
+import com.pokerproject.metrics.Histogram;
+
+/**
+ * Counters of one simulator thread, added together for the report.
+ */
+final class SimulationStats {
+
+    // time spent in Game.processPlayerAction, in nanoseconds
+    final Histogram actionLatency = new Histogram();
+    long hands;
+    long actions;
+    // hands abandoned after too many actions
+    long stalls;
+    // actions that threw
+    long errors;
+    // hands after which the chips on the table did not add up
+    long chipErrors;
+
+    void add(SimulationStats other) {
+        actionLatency.add(other.actionLatency);
+        hands += other.hands;
+        actions += other.actions;
+        stalls += other.stalls;
+        errors += other.errors;
+        chipErrors += other.chipErrors;
+    }
+}
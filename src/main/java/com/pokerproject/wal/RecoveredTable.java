@@ -0,0 +1,127 @@
+package com.pokerproject.wal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.HandObserver;
+import com.pokerproject.model.Player;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * What the log holds for one table: its last snapshot, still undecoded in
+ * the mapped segment, and the actions written after it. {@link #restore()}
+ * does the decoding and replaying, so many tables can be restored at once
+ * on different threads.
+ */
+public final class RecoveredTable {
+
+    private static final Game.Action[] ACTIONS = Game.Action.values();
+
+    private final String gameId;
+    private ByteBuffer snapshot;
+    private int actionCount;
+    private byte[] seats = new byte[8];
+    private byte[] actions = new byte[8];
+    private int[] amounts = new int[8];
+    private boolean botTable;
+    private Map<String, BotStrategy> bots = Collections.emptyMap();
+
+    RecoveredTable(String gameId, ByteBuffer snapshot) {
+        this.gameId = gameId;
+        this.snapshot = snapshot;
+    }
+
+    void reset(ByteBuffer snapshot) {
+        this.snapshot = snapshot;
+        actionCount = 0;
+    }
+
+    void addAction(int seat, int action, int amount) {
+        if (actionCount == seats.length) {
+            seats = Arrays.copyOf(seats, actionCount * 2);
+            actions = Arrays.copyOf(actions, actionCount * 2);
+            amounts = Arrays.copyOf(amounts, actionCount * 2);
+        }
+        seats[actionCount] = (byte) seat;
+        actions[actionCount] = (byte) action;
+        amounts[actionCount] = amount;
+        actionCount++;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Actions replayed on top of the snapshot.
+     */
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    /**
+     * Whether the table only ever has bots. Known after {@link #restore()}.
+     */
+    public boolean isBotTable() {
+        return botTable;
+    }
+
+    /**
+     * The bot seats by name. Known after {@link #restore()}; a bot whose
+     * strategy is no longer known is left out and its seat plays like a
+     * player who went away.
+     */
+    public Map<String, BotStrategy> getBots() {
+        return bots;
+    }
+
+    /**
+     * Decodes the snapshot and replays the actions after it, returning the
+     * game as it was after the last action written. Throws
+     * {@link IllegalArgumentException} if the snapshot is malformed.
+     */
+    public Game restore() {
+        return restore(null);
+    }
+
+    /**
+     * Restores like {@link #restore()}, with {@code observer} told about the
+     * hand in progress and watching the replayed actions, so a hand cut
+     * short by the restart is still recorded.
+     */
+    public Game restore(HandObserver observer) {
+        ByteBuffer in = snapshot.duplicate();
+        botTable = (WireCodec.readByte(in) & TableJournal.BOT_TABLE) != 0;
+        int botCount = WireCodec.readInt(in);
+        bots = new LinkedHashMap<>();
+        for (int i = 0; i < botCount; i++) {
+            String name = WireCodec.readString(in);
+            BotStrategy strategy = BotStrategy.forName(WireCodec.readString(in));
+            if (strategy != null) {
+                bots.put(name, strategy);
+            }
+        }
+        Game game = Game.readState(in, new Random());
+        if (observer != null) {
+            game.setHandObserver(observer);
+            observer.handResumed(game);
+        }
+
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < actionCount; i++) {
+            int action = actions[i];
+            if (seats[i] >= players.size() || action >= ACTIONS.length) {
+                throw new IllegalArgumentException("Action " + i + " does not fit table " + gameId);
+            }
+            game.processPlayerAction(players.get(seats[i]), ACTIONS[action], amounts[i]);
+        }
+        return game;
+    }
+}
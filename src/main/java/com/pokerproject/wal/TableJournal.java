@@ -0,0 +1,167 @@
+package com.pokerproject.wal;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.pokerproject.bot.BotStrategy;
+import com.pokerproject.model.Game;
+import com.pokerproject.model.Player;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * Writes one table's state to a {@link TableLog}: a snapshot whenever
+ * something happened that replaying actions could not reproduce, and the
+ * actions in between.
+ *
+ * Dealing a hand shuffles the deck, so a snapshot is written after every
+ * command that started a hand, as well as after seats changed or a command
+ * failed halfway. Any other command only applied actions, which
+ * {@link Game#processPlayerAction} replays exactly from the snapshot,
+ * undealt cards included; those are written as a few bytes each.
+ *
+ * Record bodies start with a type byte and the game id:
+ * <ul>
+ * <li>{@link #SNAPSHOT}: flags ({@link #BOT_TABLE}), the bot count and each
+ * bot's name and strategy, then {@link Game#writeState}</li>
+ * <li>{@link #ACTION}: seat byte, action ordinal byte, the amount asked</li>
+ * <li>{@link #CLOSED}: nothing; the table is gone</li>
+ * </ul>
+ *
+ * Runs on the table's thread, like the game itself.
+ */
+public final class TableJournal {
+
+    static final int SNAPSHOT = 1;
+    static final int ACTION = 2;
+    static final int CLOSED = 3;
+    // snapshot flags
+    static final int BOT_TABLE = 1;
+
+    private final TableLog log;
+    private final String gameId;
+    private ByteBuffer out = ByteBuffer.allocate(512);
+    // the seats and hand of the last snapshot written
+    private Player[] loggedSeats = new Player[0];
+    private long loggedHand = -1;
+    private boolean snapshotNeeded = true;
+    private int pendingCount;
+    private byte[] pendingSeats = new byte[8];
+    private byte[] pendingActions = new byte[8];
+    private int[] pendingAmounts = new int[8];
+
+    public TableJournal(TableLog log, String gameId) {
+        this.log = log;
+        this.gameId = gameId;
+    }
+
+    /**
+     * Notes an action the game accepted, with the amount it was asked for.
+     */
+    public void acted(Player player, Game.Action action, int amount) {
+        if (pendingCount == pendingSeats.length) {
+            pendingSeats = Arrays.copyOf(pendingSeats, pendingCount * 2);
+            pendingActions = Arrays.copyOf(pendingActions, pendingCount * 2);
+            pendingAmounts = Arrays.copyOf(pendingAmounts, pendingCount * 2);
+        }
+        pendingSeats[pendingCount] = (byte) player.getSeat();
+        pendingActions[pendingCount] = (byte) action.ordinal();
+        pendingAmounts[pendingCount] = amount;
+        pendingCount++;
+    }
+
+    /**
+     * The game may have changed in a way no action explains; the next
+     * {@link #commit} writes a snapshot.
+     */
+    public void invalidate() {
+        snapshotNeeded = true;
+    }
+
+    /**
+     * Writes what the last command did, as a snapshot or as its actions.
+     */
+    public void commit(Game game, boolean botTable, Map<String, BotStrategy> bots) {
+        if (snapshotNeeded || game.getHandNumber() != loggedHand || seatsChanged(game.getPlayers())) {
+            snapshot(game, botTable, bots);
+        } else {
+            for (int i = 0; i < pendingCount; i++) {
+                out.clear();
+                out.put((byte) ACTION);
+                WireCodec.writeString(out, gameId);
+                out.put(pendingSeats[i]);
+                out.put(pendingActions[i]);
+                WireCodec.writeInt(out, pendingAmounts[i]);
+                if (!log.append(Arrays.copyOf(out.array(), out.position()))) {
+                    // a gap in the actions, only a snapshot can cover it
+                    snapshotNeeded = true;
+                    break;
+                }
+            }
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Writes the whole table; returns false if the log dropped it.
+     */
+    public boolean snapshot(Game game, boolean botTable, Map<String, BotStrategy> bots) {
+        pendingCount = 0;
+        byte[] record;
+        while (true) {
+            try {
+                record = encodeSnapshot(game, botTable, bots);
+                break;
+            } catch (BufferOverflowException e) {
+                out = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+        if (!log.append(record)) {
+            snapshotNeeded = true;
+            return false;
+        }
+        List<Player> players = game.getPlayers();
+        loggedSeats = players.toArray(new Player[0]);
+        loggedHand = game.getHandNumber();
+        snapshotNeeded = false;
+        return true;
+    }
+
+    private byte[] encodeSnapshot(Game game, boolean botTable, Map<String, BotStrategy> bots) {
+        out.clear();
+        out.put((byte) SNAPSHOT);
+        WireCodec.writeString(out, gameId);
+        out.put((byte) (botTable ? BOT_TABLE : 0));
+        WireCodec.writeInt(out, bots.size());
+        for (Map.Entry<String, BotStrategy> bot : bots.entrySet()) {
+            WireCodec.writeString(out, bot.getKey());
+            WireCodec.writeString(out, bot.getValue().getName());
+        }
+        game.writeState(out);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Marks the table as gone, so recovery leaves it out.
+     */
+    public void close() {
+        out.clear();
+        out.put((byte) CLOSED);
+        WireCodec.writeString(out, gameId);
+        log.append(Arrays.copyOf(out.array(), out.position()));
+    }
+
+    private boolean seatsChanged(List<Player> players) {
+        if (players.size() != loggedSeats.length) {
+            return true;
+        }
+        for (int i = 0; i < loggedSeats.length; i++) {
+            if (players.get(i) != loggedSeats[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
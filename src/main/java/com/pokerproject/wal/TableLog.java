@@ -0,0 +1,268 @@
+package com.pokerproject.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+import com.pokerproject.log.Logger;
+
+/**
+ * The write-ahead log every table's {@link TableJournal} appends to, written
+ * by one background thread with group commit.
+ *
+ * Tables only offer their records to a bounded queue and never wait for
+ * the disk. The writer takes whatever has queued up, writes it with one
+ * call and syncs once for the whole batch, so while one sync runs the next
+ * batch gathers and a busy server syncs a few hundred times a second
+ * however many tables it runs. A table whose record is dropped because the
+ * queue is full writes a snapshot next instead of further actions.
+ *
+ * A segment is a file named {@code tables-<n>.wal} that starts with
+ * {@link #MAGIC} and holds records, each a 4-byte big-endian length, a
+ * CRC32C of the body and the body (see {@link TableJournal}). A new segment
+ * is started when the current one would grow past the segment size, on
+ * every start and at every checkpoint; {@link TableLogReader} stops a
+ * segment at its first torn or corrupt record.
+ *
+ * A checkpoint keeps the log from growing without bound:
+ * {@link #startCheckpoint()} starts a new segment, every live table then
+ * writes a snapshot, and {@link #finishCheckpoint()} deletes the segments
+ * from before it once those snapshots are on disk.
+ */
+public final class TableLog implements AutoCloseable {
+
+    private static final Logger LOG = Logger.get(TableLog.class);
+    public static final int MAGIC = 0x50574C32; // "PWL2"
+    static final String PREFIX = "tables-";
+    static final String SUFFIX = ".wal";
+
+    private static final int MAX_BATCH = 4096;
+    // checkpoint markers in the queue, told apart from records by identity
+    private static final byte[] ROLL = new byte[0];
+    private static final byte[] TRIM = new byte[0];
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean sync;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread thread;
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private volatile boolean closed;
+    private FileChannel channel;
+    private int segmentNumber;
+    private long segmentSize;
+    // segments before this one are covered by the checkpoint in progress
+    private int checkpointSegment;
+    private volatile long written;
+    private volatile long syncs;
+
+    /**
+     * @param segmentBytes size a segment is rolled at, at most 2 GiB so
+     *                     recovery can map a whole segment
+     * @param queueCapacity records waiting for the disk before new ones are
+     *                      dropped
+     * @param sync whether each batch is forced to the device, rather than
+     *             only handed to the OS, which survives a crash of the
+     *             server but not of the machine
+     */
+    public TableLog(Path directory, long segmentBytes, int queueCapacity, boolean sync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+        this.sync = sync;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Files.createDirectories(directory);
+        for (Path segment : TableLogReader.segments(directory)) {
+            segmentNumber = Math.max(segmentNumber, segmentNumberOf(segment));
+        }
+        thread = new Thread(this::run, "table-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static int segmentNumberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Queues one encoded record without blocking; returns false if it was
+     * dropped because the queue is full or the log is closed.
+     */
+    public boolean append(byte[] record) {
+        if (closed || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new segment for everything appended from now on. Each live
+     * table must write a snapshot after this and before
+     * {@link #finishCheckpoint()}.
+     */
+    public void startCheckpoint() throws InterruptedException {
+        queue.put(ROLL);
+    }
+
+    /**
+     * Deletes the segments from before the last {@link #startCheckpoint()},
+     * once everything appended so far is on disk.
+     */
+    public void finishCheckpoint() throws InterruptedException {
+        queue.put(TRIM);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Records written to disk so far.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Batches synced so far; records written over syncs is the group size.
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    private void run() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                byte[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOG.error("Table log writer stopped", e);
+            closed = true;
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        int records = 0;
+        for (byte[] record : batch) {
+            if (record == ROLL) {
+                flush();
+                closeSegment();
+                checkpointSegment = segmentNumber + 1;
+                continue;
+            }
+            if (record == TRIM) {
+                flush();
+                force();
+                trim();
+                continue;
+            }
+            int size = 8 + record.length;
+            if (channel == null || segmentSize + buffer.position() + size > segmentBytes) {
+                flush();
+                openSegment();
+            }
+            if (buffer.remaining() < size) {
+                flush();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocateDirect(size);
+                }
+            }
+            crc.reset();
+            crc.update(record);
+            buffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            records++;
+        }
+        flush();
+        force();
+        written += records;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void force() throws IOException {
+        if (sync && channel != null) {
+            channel.force(false);
+            syncs++;
+        }
+    }
+
+    private void trim() throws IOException {
+        for (Path segment : TableLogReader.segments(directory)) {
+            if (segmentNumberOf(segment) < checkpointSegment) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        closeSegment();
+        segmentNumber++;
+        Path segment = directory.resolve(String.format("%s%08d%s", PREFIX, segmentNumber, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(MAGIC).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        segmentSize = 4;
+    }
+
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Could not close table log segment", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Writes what is queued, syncs the segment to disk and stops the thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        thread.join();
+        if (dropped.get() > 0) {
+            LOG.warn("Table log dropped {} records", dropped.get());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pokerproject.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import com.pokerproject.log.Logger;
+import com.pokerproject.model.WireCodec;
+
+/**
+ * Reads a {@link TableLog} back at startup. Every segment is memory-mapped
+ * and scanned once, oldest first, keeping for each table only its latest
+ * snapshot, as a slice of the mapping, and the actions after it; decoding
+ * the snapshots is left to {@link RecoveredTable#restore()}.
+ */
+public final class TableLogReader {
+
+    private static final Logger LOG = Logger.get(TableLogReader.class);
+
+    // records start after the segment's magic number
+    private static final int FIRST_RECORD = 4;
+
+    private TableLogReader() {
+    }
+
+    /**
+     * The segments in a directory in the order they were written; empty if
+     * there is no such directory.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                TableLog.PREFIX + "*" + TableLog.SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingInt(TableLog::segmentNumberOf));
+        return segments;
+    }
+
+    /**
+     * The tables still open at the end of the log.
+     */
+    public static Collection<RecoveredTable> read(Path directory) throws IOException {
+        Map<String, RecoveredTable> tables = new HashMap<>();
+        for (Path segment : segments(directory)) {
+            read(segment, tables);
+        }
+        return tables.values();
+    }
+
+    private static void read(Path segment, Map<String, RecoveredTable> tables) throws IOException {
+        ByteBuffer map;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (map.limit() < FIRST_RECORD || map.getInt(0) != TableLog.MAGIC) {
+            LOG.warn("Skipping {}: not a table log", segment);
+            return;
+        }
+        CRC32C crc = new CRC32C();
+        int offset = FIRST_RECORD;
+        while (offset + 8 <= map.limit()) {
+            int length = map.getInt(offset);
+            int checksum = map.getInt(offset + 4);
+            int start = offset + 8;
+            if (length <= 0 || length > map.limit() - start) {
+                break;
+            }
+            ByteBuffer body = map.slice(start, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                LOG.warn("Corrupt record in {} at {}, skipping the rest", segment, offset);
+                return;
+            }
+            try {
+                apply(body, tables);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Bad record in {} at {}: {}", segment, offset, e.getMessage());
+            }
+            offset = start + length;
+        }
+        if (offset != map.limit()) {
+            LOG.warn("Torn record at the end of {}, ignored", segment);
+        }
+    }
+
+    private static void apply(ByteBuffer body, Map<String, RecoveredTable> tables) {
+        int type = WireCodec.readByte(body);
+        String gameId = WireCodec.readString(body);
+        switch (type) {
+            case TableJournal.SNAPSHOT:
+                RecoveredTable table = tables.get(gameId);
+                if (table == null) {
+                    tables.put(gameId, new RecoveredTable(gameId, body.slice()));
+                } else {
+                    table.reset(body.slice());
+                }
+                break;
+            case TableJournal.ACTION:
+                RecoveredTable acting = tables.get(gameId);
+                // actions with no snapshot before them were checkpointed away
+                if (acting != null) {
+                    int seat = WireCodec.readByte(body);
+                    int action = WireCodec.readByte(body);
+                    acting.addAction(seat, action, WireCodec.readInt(body));
+                }
+                break;
+            case TableJournal.CLOSED:
+                tables.remove(gameId);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + type);
+        }
+    }
+}